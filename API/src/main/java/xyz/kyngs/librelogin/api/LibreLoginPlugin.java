@@ -18,6 +18,7 @@ import xyz.kyngs.librelogin.api.event.EventTypes;
 import xyz.kyngs.librelogin.api.image.ImageProjector;
 import xyz.kyngs.librelogin.api.integration.LimboIntegration;
 import xyz.kyngs.librelogin.api.mail.EmailHandler;
+import xyz.kyngs.librelogin.api.metrics.DatabaseMetrics;
 import xyz.kyngs.librelogin.api.premium.PremiumProvider;
 import xyz.kyngs.librelogin.api.server.ServerHandler;
 import xyz.kyngs.librelogin.api.totp.TOTPProvider;
@@ -105,6 +106,13 @@ public interface LibreLoginPlugin<P, S> {
      */
     ReadWriteDatabaseProvider getDatabaseProvider();
 
+    /**
+     * Gets the metrics of the plugin's database.
+     *
+     * @return The database metrics
+     */
+    DatabaseMetrics getDatabaseMetrics();
+
     /**
      * Gets the plugin's TOTP provider.
      *
@@ -7,10 +7,17 @@
 package xyz.kyngs.librelogin.api.database;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This interface is used to read from the database.
+ * <br>
+ * The async variants run the lookup on {@link #getExecutor()} and never block the calling thread, use them from the main thread or the event loop.
  *
  * @author kyngs
  */
@@ -55,4 +62,78 @@ public interface ReadDatabaseProvider {
      */
     Collection<User> getByIP(String ip);
 
+    /**
+     * This method finds several players by their UUIDs, at once.
+     *
+     * @param uuids The UUIDs of the players.
+     * @return A map of the found players by their UUIDs, players which do not exist are omitted.
+     */
+    default Map<UUID, User> getByUUIDs(Collection<UUID> uuids) {
+        var users = new HashMap<UUID, User>(uuids.size());
+
+        for (UUID uuid : uuids) {
+            var user = getByUUID(uuid);
+            if (user != null) users.put(uuid, user);
+        }
+
+        return users;
+    }
+
+    /**
+     * @return The executor the async variants run on. The plugin's providers use the plugin's own I/O executor.
+     */
+    default Executor getExecutor() {
+        return ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Asynchronous variant of {@link #getByName(String)}.
+     *
+     * @param name The name of the player.
+     * @return A future completed with the player, or with null if the player does not exist.
+     */
+    default CompletableFuture<User> getByNameAsync(String name) {
+        return CompletableFuture.supplyAsync(() -> getByName(name), getExecutor());
+    }
+
+    /**
+     * Asynchronous variant of {@link #getByUUID(UUID)}.
+     *
+     * @param uuid The UUID of the player.
+     * @return A future completed with the player, or with null if the player does not exist.
+     */
+    default CompletableFuture<User> getByUUIDAsync(UUID uuid) {
+        return CompletableFuture.supplyAsync(() -> getByUUID(uuid), getExecutor());
+    }
+
+    /**
+     * Asynchronous variant of {@link #getByPremiumUUID(UUID)}.
+     *
+     * @param uuid The premium UUID of the player.
+     * @return A future completed with the player, or with null if the player does not exist.
+     */
+    default CompletableFuture<User> getByPremiumUUIDAsync(UUID uuid) {
+        return CompletableFuture.supplyAsync(() -> getByPremiumUUID(uuid), getExecutor());
+    }
+
+    /**
+     * Asynchronous variant of {@link #getByUUIDs(Collection)}.
+     *
+     * @param uuids The UUIDs of the players.
+     * @return A future completed with a map of the found players by their UUIDs.
+     */
+    default CompletableFuture<Map<UUID, User>> getByUUIDsAsync(Collection<UUID> uuids) {
+        return CompletableFuture.supplyAsync(() -> getByUUIDs(uuids), getExecutor());
+    }
+
+    /**
+     * Asynchronous variant of {@link #getByIP(String)}.
+     *
+     * @param ip IP address.
+     * @return A future completed with a collection of all players which used the specified IP.
+     */
+    default CompletableFuture<Collection<User>> getByIPAsync(String ip) {
+        return CompletableFuture.supplyAsync(() -> getByIP(ip), getExecutor());
+    }
+
 }
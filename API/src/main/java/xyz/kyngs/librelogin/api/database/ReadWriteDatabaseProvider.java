@@ -6,6 +6,8 @@
 
 package xyz.kyngs.librelogin.api.database;
 
+import java.util.concurrent.Executor;
+
 /**
  * This interface is used to read and write to the database.
  *
@@ -13,4 +15,9 @@ package xyz.kyngs.librelogin.api.database;
  */
 public interface ReadWriteDatabaseProvider extends ReadDatabaseProvider, WriteDatabaseProvider {
 
+    @Override
+    default Executor getExecutor() {
+        return ReadDatabaseProvider.super.getExecutor();
+    }
+
 }
@@ -0,0 +1,80 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.api.database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class collects several changes of players, which should be written to the database at once.
+ * <br>
+ * Pass it to {@link WriteDatabaseProvider#commit(UnitOfWork)}, which applies the changes in the order they were added.
+ * The plugin's providers apply them in a single transaction, so either all of them are written, or none of them.
+ *
+ * @author kyngs
+ */
+public final class UnitOfWork {
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    /**
+     * Adds the player to the database.
+     *
+     * @param user The player to add.
+     * @return This unit of work.
+     */
+    public UnitOfWork insert(User user) {
+        operations.add(new Operation(Action.INSERT, user));
+        return this;
+    }
+
+    /**
+     * Updates the player in the database.
+     *
+     * @param user The player to update.
+     * @return This unit of work.
+     */
+    public UnitOfWork update(User user) {
+        operations.add(new Operation(Action.UPDATE, user));
+        return this;
+    }
+
+    /**
+     * Deletes the player from the database.
+     *
+     * @param user The player to delete.
+     * @return This unit of work.
+     */
+    public UnitOfWork delete(User user) {
+        operations.add(new Operation(Action.DELETE, user));
+        return this;
+    }
+
+    /**
+     * @return The changes, in the order they were added.
+     */
+    public List<Operation> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    /**
+     * A single change of a player.
+     *
+     * @param action The kind of the change.
+     * @param user   The player.
+     */
+    public record Operation(Action action, User user) {
+    }
+
+    public enum Action {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+}
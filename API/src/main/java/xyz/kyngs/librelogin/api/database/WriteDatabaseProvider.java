@@ -7,9 +7,14 @@
 package xyz.kyngs.librelogin.api.database;
 
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This interface is used to write to the database.
+ * <br>
+ * The async variants run the write on {@link #getExecutor()} and never block the calling thread.
  *
  * @author kyngs
  */
@@ -43,4 +48,68 @@ public interface WriteDatabaseProvider {
      */
     void deleteUser(User user);
 
+    /**
+     * This method applies all the changes in the unit of work, in the order they were added.
+     * <br>
+     * By default, the changes are applied one by one. The plugin's providers apply them in a single transaction.
+     *
+     * @param unit The changes to apply.
+     */
+    default void commit(UnitOfWork unit) {
+        for (UnitOfWork.Operation operation : unit.getOperations()) {
+            switch (operation.action()) {
+                case INSERT -> insertUser(operation.user());
+                case UPDATE -> updateUser(operation.user());
+                case DELETE -> deleteUser(operation.user());
+            }
+        }
+    }
+
+    /**
+     * @return The executor the async variants run on. The plugin's providers use the plugin's own I/O executor.
+     */
+    default Executor getExecutor() {
+        return ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Asynchronous variant of {@link #insertUser(User)}.
+     *
+     * @param user The player to add.
+     * @return A future completed once the player is added.
+     */
+    default CompletableFuture<Void> insertUserAsync(User user) {
+        return CompletableFuture.runAsync(() -> insertUser(user), getExecutor());
+    }
+
+    /**
+     * Asynchronous variant of {@link #updateUser(User)}.
+     *
+     * @param user The player to update.
+     * @return A future completed once the player is updated.
+     */
+    default CompletableFuture<Void> updateUserAsync(User user) {
+        return CompletableFuture.runAsync(() -> updateUser(user), getExecutor());
+    }
+
+    /**
+     * Asynchronous variant of {@link #deleteUser(User)}.
+     *
+     * @param user The player to delete.
+     * @return A future completed once the player is deleted.
+     */
+    default CompletableFuture<Void> deleteUserAsync(User user) {
+        return CompletableFuture.runAsync(() -> deleteUser(user), getExecutor());
+    }
+
+    /**
+     * Asynchronous variant of {@link #commit(UnitOfWork)}.
+     *
+     * @param unit The changes to apply.
+     * @return A future completed once the changes are applied.
+     */
+    default CompletableFuture<Void> commitAsync(UnitOfWork unit) {
+        return CompletableFuture.runAsync(() -> commit(unit), getExecutor());
+    }
+
 }
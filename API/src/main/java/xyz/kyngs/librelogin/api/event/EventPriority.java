@@ -0,0 +1,37 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.api.event;
+
+/**
+ * The priority of an event handler. Handlers with a lower priority are called first, so handlers with a higher priority have the final say.
+ *
+ * @author kyngs
+ */
+public enum EventPriority {
+
+    /**
+     * Called first.
+     */
+    LOWEST,
+    /**
+     * Called after {@link #LOWEST}.
+     */
+    LOW,
+    /**
+     * The default priority.
+     */
+    NORMAL,
+    /**
+     * Called after {@link #NORMAL}.
+     */
+    HIGH,
+    /**
+     * Called last.
+     */
+    HIGHEST
+
+}
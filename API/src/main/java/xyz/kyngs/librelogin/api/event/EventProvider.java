@@ -34,12 +34,37 @@ public interface EventProvider<P, S> {
      * @param <E>     The event type
      * @return The handler you passed as a parameter, this is useful for unsubscribing
      */
-    <E extends Event<P, S>> Consumer<E> subscribe(EventType<P, S, E> type, Consumer<E> handler);
+    default <E extends Event<P, S>> Consumer<E> subscribe(EventType<P, S, E> type, Consumer<E> handler) {
+        return subscribe(type, handler, EventPriority.NORMAL);
+    }
+
+    /**
+     * Allows you to subscribe to an event with a specific priority.
+     *
+     * @param type     The type of the event see {@link #getTypes()}
+     * @param handler  The handler to call when the event is fired
+     * @param priority The priority of the handler, handlers with a lower priority are called first
+     * @param <E>      The event type
+     * @return The handler you passed as a parameter, this is useful for unsubscribing
+     */
+    <E extends Event<P, S>> Consumer<E> subscribe(EventType<P, S, E> type, Consumer<E> handler, EventPriority priority);
+
+    /**
+     * Allows you to observe an event without delaying the code which fired it.
+     * <br>
+     * <b>The handler is called asynchronously after the event has been fired, it must not modify the event.</b>
+     *
+     * @param type    The type of the event see {@link #getTypes()}
+     * @param handler The handler to call when the event is fired
+     * @param <E>     The event type
+     * @return The handler you passed as a parameter, this is useful for unsubscribing
+     */
+    <E extends Event<P, S>> Consumer<E> subscribeAsync(EventType<P, S, E> type, Consumer<E> handler);
 
     /**
      * Allows you to unsubscribe from an event.
      *
-     * @param handler The handler to unsubscribe. Must be the same instance as your handler used in {@link #subscribe(EventType, Consumer)}
+     * @param handler The handler to unsubscribe. Must be the same instance as your handler used in {@link #subscribe(EventType, Consumer)}, {@link #subscribe(EventType, Consumer, EventPriority)} or {@link #subscribeAsync(EventType, Consumer)}
      */
     void unsubscribe(Consumer<? extends Event<P, S>> handler);
 
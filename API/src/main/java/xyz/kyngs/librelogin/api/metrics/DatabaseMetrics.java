@@ -0,0 +1,34 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.api.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Metrics of the plugin's database. Use these to tell, whether latency comes from waiting for a connection, or from the database itself.
+ *
+ * @author kyngs
+ */
+public interface DatabaseMetrics {
+
+    /**
+     * @return The states of the connection pools, empty if the database does not use a pool.
+     */
+    List<PoolSnapshot> getPools();
+
+    /**
+     * @return The latencies of the database provider operations, by the name of the operation (e.g. getByName).
+     */
+    Map<String, LatencySnapshot> getOperations();
+
+    /**
+     * @return How many operations exceeded the slow operation threshold.
+     */
+    long getSlowOperations();
+
+}
@@ -0,0 +1,21 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.api.metrics;
+
+/**
+ * A point-in-time summary of a latency histogram. The percentiles are approximate, they are the upper bounds of the histogram buckets.
+ *
+ * @param count      The amount of recorded samples
+ * @param meanMillis The mean latency in milliseconds
+ * @param p50Millis  The median latency in milliseconds
+ * @param p95Millis  The 95th percentile in milliseconds
+ * @param p99Millis  The 99th percentile in milliseconds
+ * @param maxMillis  The maximum latency in milliseconds
+ */
+public record LatencySnapshot(long count, double meanMillis, double p50Millis, double p95Millis, double p99Millis,
+                              double maxMillis) {
+}
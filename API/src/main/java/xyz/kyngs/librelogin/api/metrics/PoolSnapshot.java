@@ -0,0 +1,24 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.api.metrics;
+
+/**
+ * A point-in-time state of a database connection pool.
+ *
+ * @param name             The name of the pool
+ * @param active           The amount of connections in use
+ * @param idle             The amount of idle connections
+ * @param pending          The amount of threads waiting for a connection
+ * @param total            The amount of open connections
+ * @param maximumSize      The current maximum size of the pool
+ * @param timeouts         How many times a thread gave up waiting for a connection
+ * @param connectionWait   How long threads waited for a connection
+ * @param connectionUsage  How long the connections were held
+ */
+public record PoolSnapshot(String name, int active, int idle, int pending, int total, int maximumSize, long timeouts,
+                           LatencySnapshot connectionWait, LatencySnapshot connectionUsage) {
+}
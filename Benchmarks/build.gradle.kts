@@ -0,0 +1,75 @@
+plugins {
+    id("java")
+    id("me.champeau.jmh").version("0.7.2")
+}
+
+repositories {
+    mavenCentral()
+    maven { url = uri("https://repo.kyngs.xyz/public/") }
+    maven { url = uri("https://jitpack.io/") }
+}
+
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(21))
+    }
+}
+
+tasks.withType<JavaCompile> {
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    implementation(project(":API"))
+    implementation(project(":Plugin"))
+
+    // Provided by the proxy, or downloaded at runtime by the plugin, so they are not on the runtime classpath of the Plugin project.
+    // The benchmarks see these too.
+    implementation("com.google.guava:guava:33.4.8-jre")
+    implementation("com.google.code.gson:gson:2.13.1")
+    implementation("net.kyori:adventure-api:4.23.0")
+    implementation("net.kyori:adventure-text-minimessage:4.23.0")
+    implementation("net.kyori:adventure-text-serializer-legacy:4.23.0")
+    implementation("com.github.kyngs.commands:acf-core:7d5bf7cac0")
+    implementation("com.github.ben-manes.caffeine:caffeine:3.2.1")
+    implementation("org.spongepowered:configurate-hocon:4.2.0")
+    implementation("com.zaxxer:HikariCP:6.3.0")
+    implementation("org.xerial:sqlite-jdbc:3.50.2.0")
+    implementation("at.favre.lib:bcrypt:0.10.2")
+    implementation("org.bouncycastle:bcprov-jdk18on:1.81")
+    implementation("dev.samstevens.totp:totp:1.7.1")
+    implementation("org.apache.commons:commons-email:1.6.0")
+    implementation("com.github.kyngs:LegacyMessage:0.2.0")
+    implementation("org.bstats:bstats-base:3.1.0")
+}
+
+tasks.register<JavaExec>("joinStorm") {
+    group = "verification"
+    description = "Runs the join-storm load simulator, pass the options with --args"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("xyz.kyngs.librelogin.loadtest.JoinStormSimulator")
+}
+
+tasks.register<JavaExec>("faultInjection") {
+    group = "verification"
+    description = "Injects database failover faults into the connector and checks the degraded mode"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("xyz.kyngs.librelogin.loadtest.DatabaseFaultInjector")
+}
+
+tasks.register<JavaExec>("mailOutbox") {
+    group = "verification"
+    description = "Sends mails through the mail outbox to a local SMTP stub and checks the batching, the retries and the hand-over on reload"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("xyz.kyngs.librelogin.loadtest.MailOutboxHarness")
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    // Reports the allocation rate next to the throughput
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+}
@@ -0,0 +1,71 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.benchmark;
+
+import xyz.kyngs.librelogin.api.Logger;
+import xyz.kyngs.librelogin.api.crypto.CryptoProvider;
+import xyz.kyngs.librelogin.common.crypto.Argon2IDCryptoProvider;
+import xyz.kyngs.librelogin.common.crypto.BCrypt2ACryptoProvider;
+import xyz.kyngs.librelogin.common.crypto.LogITMessageDigestCryptoProvider;
+import xyz.kyngs.librelogin.common.crypto.MessageDigestCryptoProvider;
+
+/**
+ * Creates the crypto providers the same way the plugin registers them.
+ */
+final class Crypto {
+
+    static final String PASSWORD = "correct horse battery staple";
+
+    private Crypto() {
+    }
+
+    static CryptoProvider provider(String algorithm) {
+        return switch (algorithm) {
+            case "SHA-256", "SHA-512" -> new MessageDigestCryptoProvider(algorithm);
+            case "BCrypt-2A" -> new BCrypt2ACryptoProvider();
+            case "Argon-2ID" -> new Argon2IDCryptoProvider(new SilentLogger());
+            case "LOGIT-SHA-256" -> new LogITMessageDigestCryptoProvider(algorithm, "SHA-256");
+            default -> throw new IllegalArgumentException("Unknown algorithm " + algorithm);
+        };
+    }
+
+    private static final class SilentLogger implements Logger {
+
+        @Override
+        public void info(String message) {
+        }
+
+        @Override
+        public void info(String message, Throwable throwable) {
+        }
+
+        @Override
+        public void warn(String message) {
+        }
+
+        @Override
+        public void warn(String message, Throwable throwable) {
+        }
+
+        @Override
+        public void error(String message) {
+        }
+
+        @Override
+        public void error(String message, Throwable throwable) {
+        }
+
+        @Override
+        public void debug(String message) {
+        }
+
+        @Override
+        public void debug(String message, Throwable throwable) {
+        }
+
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import xyz.kyngs.librelogin.api.crypto.CryptoProvider;
+import xyz.kyngs.librelogin.api.crypto.HashedPassword;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashing and verification of a single password with every registered crypto provider.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CryptoProviderBenchmark {
+
+    @Param({"SHA-256", "SHA-512", "LOGIT-SHA-256", "BCrypt-2A", "Argon-2ID"})
+    public String algorithm;
+
+    private CryptoProvider provider;
+    private HashedPassword hashed;
+
+    @Setup
+    public void setup() {
+        provider = Crypto.provider(algorithm);
+        hashed = provider.createHash(Crypto.PASSWORD);
+    }
+
+    @Benchmark
+    public HashedPassword createHash() {
+        return provider.createHash(Crypto.PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return provider.matches(Crypto.PASSWORD, hashed);
+    }
+
+    @Benchmark
+    public boolean mismatches() {
+        return provider.matches("wrong password", hashed);
+    }
+
+}
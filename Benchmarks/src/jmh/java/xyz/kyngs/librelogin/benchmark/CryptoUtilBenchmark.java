@@ -0,0 +1,62 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.benchmark;
+
+import org.bouncycastle.crypto.params.Argon2Parameters;
+import org.openjdk.jmh.annotations.*;
+import xyz.kyngs.librelogin.api.crypto.HashedPassword;
+import xyz.kyngs.librelogin.common.crypto.BCrypt2ACryptoProvider;
+import xyz.kyngs.librelogin.common.util.CryptoUtil;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion between the stored form of the passwords and the form the hashing libraries expect. Runs on every login, next to the hashing itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CryptoUtilBenchmark {
+
+    private String rawBCrypt;
+    private HashedPassword bcrypt;
+    private byte[] argon2Hash;
+    private Argon2Parameters argon2Parameters;
+    private HashedPassword argon2;
+
+    @Setup
+    public void setup() {
+        rawBCrypt = BCrypt2ACryptoProvider.HASHER.hashToString(4, Crypto.PASSWORD.toCharArray());
+        bcrypt = CryptoUtil.convertFromBCryptRaw(rawBCrypt);
+
+        argon2 = Crypto.provider("Argon-2ID").createHash(Crypto.PASSWORD);
+        var raw = CryptoUtil.rawArgonFromHashed(argon2);
+        argon2Hash = raw.hash();
+        argon2Parameters = raw.parameters();
+    }
+
+    @Benchmark
+    public HashedPassword convertFromBCryptRaw() {
+        return CryptoUtil.convertFromBCryptRaw(rawBCrypt);
+    }
+
+    @Benchmark
+    public String rawBcryptFromHashed() {
+        return CryptoUtil.rawBcryptFromHashed(bcrypt);
+    }
+
+    @Benchmark
+    public HashedPassword convertFromArgon2ID() {
+        return CryptoUtil.convertFromArgon2ID(argon2Hash, argon2Parameters);
+    }
+
+    @Benchmark
+    public CryptoUtil.Argon2IDHashedPassword rawArgonFromHashed() {
+        return CryptoUtil.rawArgonFromHashed(argon2);
+    }
+
+}
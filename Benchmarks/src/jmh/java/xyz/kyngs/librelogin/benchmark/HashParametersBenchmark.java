@@ -0,0 +1,76 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.benchmark;
+
+import at.favre.lib.crypto.bcrypt.BCrypt;
+import org.bouncycastle.crypto.generators.Argon2BytesGenerator;
+import org.bouncycastle.crypto.params.Argon2Parameters;
+import org.openjdk.jmh.annotations.*;
+import xyz.kyngs.librelogin.common.crypto.BCrypt2ACryptoProvider;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The providers use fixed parameters (BCrypt cost 10, Argon2ID with 16 MiB and 2 iterations).
+ * These benchmarks show what other parameter sets would cost, before changing them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class HashParametersBenchmark {
+
+    @Benchmark
+    public byte[] bcrypt(BCryptState state) {
+        return BCrypt2ACryptoProvider.HASHER.hash(state.cost, state.salt, Crypto.PASSWORD.getBytes());
+    }
+
+    @Benchmark
+    public byte[] argon2(Argon2State state) {
+        var hash = new byte[32];
+        var generator = new Argon2BytesGenerator();
+        generator.init(state.parameters);
+        generator.generateBytes(Crypto.PASSWORD.toCharArray(), hash);
+        return hash;
+    }
+
+    @State(Scope.Benchmark)
+    public static class BCryptState {
+
+        @Param({"8", "10", "12"})
+        public int cost;
+
+        private byte[] salt;
+
+        @Setup
+        public void setup() {
+            salt = new byte[16];
+        }
+
+    }
+
+    @State(Scope.Benchmark)
+    public static class Argon2State {
+
+        @Param({"16384", "65536"})
+        public int memoryKB;
+
+        @Param({"1", "2", "3"})
+        public int iterations;
+
+        private Argon2Parameters parameters;
+
+        @Setup
+        public void setup() {
+            parameters = new Argon2Parameters.Builder(Argon2Parameters.ARGON2_id)
+                    .withSalt(new byte[16])
+                    .withMemoryAsKB(memoryKB)
+                    .withIterations(iterations)
+                    .build();
+        }
+
+    }
+
+}
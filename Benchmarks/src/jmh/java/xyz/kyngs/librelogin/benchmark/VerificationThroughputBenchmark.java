@@ -0,0 +1,60 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import xyz.kyngs.librelogin.api.crypto.CryptoProvider;
+import xyz.kyngs.librelogin.api.crypto.HashedPassword;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Password verification from many threads at once, like during a login peak. The provider is shared between the threads, the same as in the plugin.
+ * Compare the scores of the thread counts to see how far the verification scales with the cores of the proxy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class VerificationThroughputBenchmark {
+
+    @Param({"SHA-256", "BCrypt-2A", "Argon-2ID"})
+    public String algorithm;
+
+    private CryptoProvider provider;
+    private HashedPassword hashed;
+
+    @Setup
+    public void setup() {
+        provider = Crypto.provider(algorithm);
+        hashed = provider.createHash(Crypto.PASSWORD);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean threads1() {
+        return provider.matches(Crypto.PASSWORD, hashed);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean threads4() {
+        return provider.matches(Crypto.PASSWORD, hashed);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean threads8() {
+        return provider.matches(Crypto.PASSWORD, hashed);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean threads16() {
+        return provider.matches(Crypto.PASSWORD, hashed);
+    }
+
+}
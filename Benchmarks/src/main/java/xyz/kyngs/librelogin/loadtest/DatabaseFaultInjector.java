@@ -0,0 +1,155 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.loadtest;
+
+import xyz.kyngs.librelogin.common.database.DatabaseUnavailableException;
+import xyz.kyngs.librelogin.common.database.connector.AuthenticHikariDatabaseConnector;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Injects the failures the JDBC drivers report during a database failover and checks, that the connector enters the degraded mode for them,
+ * and recovers once the database is back. Errors in the query itself must not count as an outage.<br>
+ * The faults are thrown when a connection is obtained, which is also how the probe of the circuit breaker reaches the database.<br>
+ * Usage: {@code ./gradlew :Benchmarks:faultInjection}
+ */
+public class DatabaseFaultInjector {
+
+    private static final int THRESHOLD = 2;
+    private static final long OPEN_DURATION = 300;
+
+    private static final List<Scenario> SCENARIOS = List.of(
+            new Scenario("PostgreSQL I/O error (SQLState 08006)", () -> new SQLException("An I/O error occurred while sending to the backend.", "08006"), true),
+            new Scenario("MariaDB connection reset", () -> new SQLNonTransientConnectionException("(conn=42) Connection reset"), true),
+            new Scenario("Recoverable exception", () -> new SQLRecoverableException("Connection closed by the server"), true),
+            new Scenario("Hikari connection timeout", () -> new SQLTransientConnectionException("Connection is not available, request timed out"), true),
+            new Scenario("Wrapped link failure (SQLState 08S01)", () -> new SQLException("Query failed", new SQLException("Communications link failure", "08S01")), true),
+            new Scenario("Syntax error (SQLState 42000)", () -> new SQLSyntaxErrorException("You have an error in your SQL syntax", "42000"), false)
+    );
+
+    public static void main(String[] args) throws Exception {
+        var dataFolder = Files.createTempDirectory("librelogin-fault-injection").toFile();
+        var failures = 0;
+
+        try {
+            prepareDataFolder(dataFolder);
+
+            // The premium API is never called here
+            var plugin = new HeadlessLibreLogin(dataFolder, "http://127.0.0.1:1");
+            plugin.start();
+
+            try {
+                System.out.printf("%n%-42s %10s %10s %10s %8s%n", "scenario", "degraded", "expected", "recovered", "result");
+
+                for (Scenario scenario : SCENARIOS) {
+                    if (!run(plugin, new File(dataFolder, "fault-injection.db"), scenario)) failures++;
+                }
+            } finally {
+                plugin.stop();
+            }
+        } finally {
+            JoinStormSimulator.delete(dataFolder);
+        }
+
+        System.out.printf("%n%d of %d scenarios failed%n", failures, SCENARIOS.size());
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static boolean run(HeadlessLibreLogin plugin, File database, Scenario scenario) throws Exception {
+        var connector = new FaultyConnector(plugin, database);
+        connector.connect();
+
+        try {
+            connector.fault = scenario.fault();
+
+            Exception first = null;
+
+            for (int i = 0; i <= THRESHOLD; i++) {
+                try {
+                    connector.runQuery(connection -> {
+                        connection.isValid(1);
+                    });
+                } catch (RuntimeException e) {
+                    if (first == null) first = e;
+                }
+            }
+
+            var degraded = connector.isDegraded();
+            var unavailable = first instanceof DatabaseUnavailableException;
+
+            connector.fault = null;
+
+            // Once the breaker lets the probe through, the connector must recover on its own
+            Thread.sleep(OPEN_DURATION * 3);
+
+            var recovered = !connector.isDegraded();
+            var passed = degraded == scenario.outage() && unavailable == scenario.outage() && recovered;
+
+            System.out.printf("%-42s %10s %10s %10s %8s%n", scenario.name(), degraded, scenario.outage(), recovered, passed ? "PASS" : "FAIL");
+
+            if (!passed && first != null) first.printStackTrace(System.out);
+
+            return passed;
+        } finally {
+            connector.disconnect();
+        }
+    }
+
+    private static void prepareDataFolder(File dataFolder) throws Exception {
+        // Written with the current revision, so that no migration runs and the plugin does not stop for a freshly generated configuration
+        Files.writeString(new File(dataFolder, "config.conf").toPath(), """
+                revision = 8
+                database.type = "librelogin-sqlite"
+                database.retry-attempts = 2
+                database.retry-delay = 5
+                database.circuit-breaker-threshold = %d
+                database.circuit-breaker-duration = %d
+                ping-servers = false
+                admission.enabled = false
+                """.formatted(THRESHOLD, OPEN_DURATION));
+        // Skips the download of the full list
+        Files.writeString(new File(dataFolder, "forbidden-passwords.txt").toPath(), "");
+    }
+
+    /**
+     * @param outage Whether the fault means that the database is unreachable
+     */
+    private record Scenario(String name, Supplier<SQLException> fault, boolean outage) {
+    }
+
+    private static final class FaultyConnector extends AuthenticHikariDatabaseConnector {
+
+        private volatile Supplier<SQLException> fault;
+
+        private FaultyConnector(HeadlessLibreLogin plugin, File database) {
+            super(plugin, "database.properties.fault-injection.");
+
+            hikariConfig.setPoolName("LibreLogin Fault Injection Pool");
+            hikariConfig.setDriverClassName("org.sqlite.JDBC");
+            hikariConfig.setJdbcUrl("jdbc:sqlite:" + database.getAbsolutePath());
+        }
+
+        @Override
+        public Connection obtainInterface() throws SQLException {
+            var current = fault;
+            if (current != null) throw current.get();
+
+            return super.obtainInterface();
+        }
+
+    }
+
+}
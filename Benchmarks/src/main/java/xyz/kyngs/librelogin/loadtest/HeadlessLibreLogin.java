@@ -0,0 +1,222 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.loadtest;
+
+import co.aikar.commands.CommandIssuer;
+import co.aikar.commands.CommandManager;
+import net.kyori.adventure.audience.Audience;
+import org.bstats.charts.CustomChart;
+import xyz.kyngs.librelogin.api.Logger;
+import xyz.kyngs.librelogin.api.PlatformHandle;
+import xyz.kyngs.librelogin.api.database.User;
+import xyz.kyngs.librelogin.api.event.exception.EventCancelledException;
+import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
+import xyz.kyngs.librelogin.common.command.CommandProvider;
+import xyz.kyngs.librelogin.common.image.AuthenticImageProjector;
+import xyz.kyngs.librelogin.common.premium.AuthenticPremiumProvider;
+import xyz.kyngs.librelogin.common.util.CancellableTask;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The plugin running on {@link HeadlessPlatformHandle}, with the premium API pointed to a local stub and without any commands registered.
+ */
+public class HeadlessLibreLogin extends AuthenticLibreLogin<SyntheticPlayer, SyntheticServer> {
+
+    private final File dataFolder;
+    private final String mojangApi;
+    private final ScheduledExecutorService scheduler;
+    private final Map<UUID, SyntheticPlayer> online;
+
+    public HeadlessLibreLogin(File dataFolder, String mojangApi) {
+        this.dataFolder = dataFolder;
+        this.mojangApi = mojangApi;
+        this.scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            var thread = new Thread(runnable, "LibreLogin Headless Scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.online = new ConcurrentHashMap<>();
+    }
+
+    public void start() {
+        enable();
+    }
+
+    public void stop() {
+        disable();
+        scheduler.shutdownNow();
+    }
+
+    HeadlessPlatformHandle getHeadlessHandle() {
+        return (HeadlessPlatformHandle) getPlatformHandle();
+    }
+
+    void join(SyntheticPlayer player) {
+        online.put(player.uuid(), player);
+    }
+
+    void quit(SyntheticPlayer player) {
+        online.remove(player.uuid());
+        getHeadlessHandle().disconnect(player);
+    }
+
+    @Override
+    protected PlatformHandle<SyntheticPlayer, SyntheticServer> providePlatformHandle() {
+        return new HeadlessPlatformHandle();
+    }
+
+    @Override
+    protected Logger provideLogger() {
+        return new ConsoleLogger();
+    }
+
+    @Override
+    protected AuthenticPremiumProvider providePremiumProvider() {
+        return new AuthenticPremiumProvider(this, mojangApi);
+    }
+
+    @Override
+    protected CommandProvider<SyntheticPlayer, SyntheticServer> provideCommandProvider() {
+        return null;
+    }
+
+    @Override
+    public CommandManager<?, ?, ?, ?, ?, ?> provideManager() {
+        return null;
+    }
+
+    @Override
+    public SyntheticPlayer getPlayerFromIssuer(CommandIssuer issuer) {
+        return null;
+    }
+
+    @Override
+    public Audience getAudienceFromIssuer(CommandIssuer issuer) {
+        return null;
+    }
+
+    @Override
+    public void authorize(SyntheticPlayer player, User user, Audience audience) {
+        try {
+            var lobby = getServerHandler().chooseLobbyServer(user, player, true, false);
+            if (lobby == null) {
+                getPlatformHandle().kick(player, getMessages().getMessage("kick-no-lobby"));
+                return;
+            }
+            getPlatformHandle().movePlayer(player, lobby);
+        } catch (EventCancelledException ignored) {}
+    }
+
+    @Override
+    public CancellableTask delay(Runnable runnable, long delayInMillis) {
+        var task = scheduler.schedule(() -> EXECUTOR.execute(runnable), delayInMillis, TimeUnit.MILLISECONDS);
+        return () -> task.cancel(false);
+    }
+
+    @Override
+    public CancellableTask repeat(Runnable runnable, long delayInMillis, long repeatInMillis) {
+        var task = scheduler.scheduleAtFixedRate(() -> EXECUTOR.execute(runnable), delayInMillis, repeatInMillis, TimeUnit.MILLISECONDS);
+        return () -> task.cancel(false);
+    }
+
+    @Override
+    public boolean pluginPresent(String pluginName) {
+        return false;
+    }
+
+    @Override
+    protected AuthenticImageProjector<SyntheticPlayer, SyntheticServer> provideImageProjector() {
+        return null;
+    }
+
+    @Override
+    protected void initMetrics(CustomChart... charts) {
+    }
+
+    @Override
+    public String getVersion() {
+        return "0.0.0-SNAPSHOT";
+    }
+
+    @Override
+    public boolean isPresent(UUID uuid) {
+        return online.containsKey(uuid);
+    }
+
+    @Override
+    public boolean multiProxyEnabled() {
+        return false;
+    }
+
+    @Override
+    public SyntheticPlayer getPlayerForUUID(UUID uuid) {
+        return online.get(uuid);
+    }
+
+    @Override
+    public InputStream getResourceAsStream(String name) {
+        return getClass().getClassLoader().getResourceAsStream(name);
+    }
+
+    @Override
+    public File getDataFolder() {
+        return dataFolder;
+    }
+
+    private static final class ConsoleLogger implements Logger {
+
+        @Override
+        public void info(String message) {
+            System.out.println("[INFO] " + message);
+        }
+
+        @Override
+        public void info(String message, Throwable throwable) {
+            info(message);
+            throwable.printStackTrace(System.out);
+        }
+
+        @Override
+        public void warn(String message) {
+            System.out.println("[WARN] " + message);
+        }
+
+        @Override
+        public void warn(String message, Throwable throwable) {
+            warn(message);
+            throwable.printStackTrace(System.out);
+        }
+
+        @Override
+        public void error(String message) {
+            System.err.println("[ERROR] " + message);
+        }
+
+        @Override
+        public void error(String message, Throwable throwable) {
+            error(message);
+            throwable.printStackTrace();
+        }
+
+        @Override
+        public void debug(String message) {
+        }
+
+        @Override
+        public void debug(String message, Throwable throwable) {
+        }
+
+    }
+}
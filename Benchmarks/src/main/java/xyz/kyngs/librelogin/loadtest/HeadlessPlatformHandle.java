@@ -0,0 +1,134 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.loadtest;
+
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.text.Component;
+import xyz.kyngs.librelogin.api.PlatformHandle;
+import xyz.kyngs.librelogin.api.server.ServerPing;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Platform without any real connections. Every server exists, players move instantly and all the messages are dropped.
+ */
+public class HeadlessPlatformHandle implements PlatformHandle<SyntheticPlayer, SyntheticServer> {
+
+    private final Map<String, SyntheticServer> servers;
+    private final Map<SyntheticPlayer, SyntheticServer> locations;
+
+    public HeadlessPlatformHandle() {
+        this.servers = new ConcurrentHashMap<>();
+        this.locations = new ConcurrentHashMap<>();
+    }
+
+    void connect(SyntheticPlayer player, SyntheticServer server) {
+        locations.put(player, server);
+    }
+
+    void disconnect(SyntheticPlayer player) {
+        locations.remove(player);
+    }
+
+    @Override
+    public Audience getAudienceForPlayer(SyntheticPlayer player) {
+        return Audience.empty();
+    }
+
+    @Override
+    public UUID getUUIDForPlayer(SyntheticPlayer player) {
+        return player.uuid();
+    }
+
+    @Override
+    public CompletableFuture<Throwable> movePlayer(SyntheticPlayer player, SyntheticServer to) {
+        connect(player, to);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void kick(SyntheticPlayer player, Component reason) {
+        disconnect(player);
+    }
+
+    @Override
+    public SyntheticServer getServer(String name, boolean limbo) {
+        return servers.computeIfAbsent(name, key -> new SyntheticServer(key, limbo));
+    }
+
+    @Override
+    public Class<SyntheticServer> getServerClass() {
+        return SyntheticServer.class;
+    }
+
+    @Override
+    public Class<SyntheticPlayer> getPlayerClass() {
+        return SyntheticPlayer.class;
+    }
+
+    @Override
+    public String getIP(SyntheticPlayer player) {
+        return player.ip();
+    }
+
+    @Override
+    public ServerPing ping(SyntheticServer server) {
+        return new ServerPing(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Collection<SyntheticServer> getServers() {
+        return servers.values();
+    }
+
+    @Override
+    public String getServerName(SyntheticServer server) {
+        return server.name();
+    }
+
+    @Override
+    public int getConnectedPlayers(SyntheticServer server) {
+        return (int) locations.values().stream().filter(server::equals).count();
+    }
+
+    @Override
+    public String getPlayersServerName(SyntheticPlayer player) {
+        var server = locations.get(player);
+        return server == null ? null : server.name();
+    }
+
+    @Override
+    public String getPlayersVirtualHost(SyntheticPlayer player) {
+        return null;
+    }
+
+    @Override
+    public String getUsernameForPlayer(SyntheticPlayer player) {
+        return player.name();
+    }
+
+    @Override
+    public String getPlatformIdentifier() {
+        return "headless";
+    }
+
+    @Override
+    public ProxyData getProxyData() {
+        return new ProxyData(
+                "headless",
+                servers.keySet().stream().toList(),
+                List.of(),
+                List.of(),
+                List.of()
+        );
+    }
+}
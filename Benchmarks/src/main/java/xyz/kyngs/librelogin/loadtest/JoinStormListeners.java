@@ -0,0 +1,77 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.loadtest;
+
+import net.kyori.adventure.audience.Audience;
+import xyz.kyngs.librelogin.common.command.commands.authorization.LoginCommand;
+import xyz.kyngs.librelogin.common.listener.AuthenticListeners;
+import xyz.kyngs.librelogin.common.listener.PreLoginState;
+import xyz.kyngs.librelogin.common.metrics.LatencyHistogram;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+
+/**
+ * Drives a single join through the same listener methods the platforms call, in the order of a real join, and times every phase.
+ */
+public class JoinStormListeners extends AuthenticListeners<HeadlessLibreLogin, SyntheticPlayer, SyntheticServer> {
+
+    public static final String PRE_LOGIN = "pre-login";
+    public static final String CHOOSE_SERVER = "choose-server";
+    public static final String POST_LOGIN = "post-login";
+    public static final String LOGIN = "login";
+    public static final String TOTAL = "total";
+
+    private final LoginCommand<SyntheticPlayer> loginCommand;
+
+    public JoinStormListeners(HeadlessLibreLogin plugin) {
+        super(plugin);
+        this.loginCommand = new LoginCommand<>(plugin);
+    }
+
+    /**
+     * @return true, if the player ended up authorized
+     */
+    public boolean join(SyntheticPlayer player, String password, Map<String, LatencyHistogram> phases) throws UnknownHostException {
+        var address = InetAddress.getByName(player.ip());
+        var start = System.nanoTime();
+
+        try {
+            var phase = System.nanoTime();
+            var result = onPreLogin(player.name(), address);
+            phases.get(PRE_LOGIN).record(System.nanoTime() - phase);
+
+            if (result.state() == PreLoginState.DENIED) return false;
+
+            phase = System.nanoTime();
+            var server = chooseServer(player, null, null);
+            phases.get(CHOOSE_SERVER).record(System.nanoTime() - phase);
+
+            if (server.value() == null) return false;
+
+            plugin.join(player);
+            plugin.getHeadlessHandle().connect(player, server.value());
+
+            phase = System.nanoTime();
+            onPostLogin(player, null);
+            phases.get(POST_LOGIN).record(System.nanoTime() - phase);
+
+            phase = System.nanoTime();
+            loginCommand.onLogin(Audience.empty(), player, password, null).toCompletableFuture().join();
+            phases.get(LOGIN).record(System.nanoTime() - phase);
+
+            phases.get(TOTAL).record(System.nanoTime() - start);
+
+            return plugin.getAuthorizationProvider().isAuthorized(player);
+        } finally {
+            onPlayerDisconnect(player);
+            plugin.quit(player);
+        }
+    }
+
+}
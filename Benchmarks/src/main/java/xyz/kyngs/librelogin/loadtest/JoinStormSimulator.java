@@ -0,0 +1,212 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.loadtest;
+
+import xyz.kyngs.librelogin.api.database.User;
+import xyz.kyngs.librelogin.api.metrics.LatencySnapshot;
+import xyz.kyngs.librelogin.common.database.AuthenticDatabaseProvider;
+import xyz.kyngs.librelogin.common.database.AuthenticUser;
+import xyz.kyngs.librelogin.common.metrics.LatencyHistogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Joins synthetic players through the whole join path, pre-login to the login command, at increasing concurrency.<br>
+ * The plugin runs headless on an SQLite database in a temporary folder, the Mojang API is replaced by {@link PremiumApiStub}.<br>
+ * Usage: {@code ./gradlew :Benchmarks:joinStorm --args="--players=500 --concurrency=1,8,32,128 --premium-latency=50"}
+ */
+public class JoinStormSimulator {
+
+    private static final String PASSWORD = "correct horse battery staple";
+    private static final List<String> PHASES = List.of(
+            JoinStormListeners.PRE_LOGIN,
+            JoinStormListeners.CHOOSE_SERVER,
+            JoinStormListeners.POST_LOGIN,
+            JoinStormListeners.LOGIN,
+            JoinStormListeners.TOTAL
+    );
+
+    public static void main(String[] args) throws Exception {
+        var options = parse(args);
+
+        var players = Integer.parseInt(options.getOrDefault("players", "500"));
+        var levels = Arrays.stream(options.getOrDefault("concurrency", "1,8,32,128").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        var premiumLatency = Long.parseLong(options.getOrDefault("premium-latency", "50"));
+
+        var dataFolder = Files.createTempDirectory("librelogin-join-storm").toFile();
+
+        try (var stub = new PremiumApiStub(premiumLatency)) {
+            prepareDataFolder(dataFolder);
+
+            var plugin = new HeadlessLibreLogin(dataFolder, stub.getUrl());
+            plugin.start();
+
+            try {
+                var listeners = new JoinStormListeners(plugin);
+                // Every level joins its own players, rejoining players would be logged in by their session
+                var synthetic = seed(plugin, players * levels.length);
+
+                System.out.printf("%n%-12s %10s %10s %12s %12s%n", "concurrency", "joins", "failed", "joins/s", "queries/join");
+
+                var results = new ArrayList<String>();
+
+                for (int level = 0; level < levels.length; level++) {
+                    var slice = synthetic.subList(level * players, (level + 1) * players);
+                    results.add(run(plugin, listeners, slice, levels[level], stub));
+                }
+
+                System.out.println();
+                results.forEach(System.out::println);
+            } finally {
+                plugin.stop();
+            }
+        } finally {
+            delete(dataFolder);
+        }
+
+        System.exit(0);
+    }
+
+    private static String run(HeadlessLibreLogin plugin, JoinStormListeners listeners, List<SyntheticPlayer> players, int concurrency, PremiumApiStub stub) throws Exception {
+        var phases = new LinkedHashMap<String, LatencyHistogram>();
+        PHASES.forEach(phase -> phases.put(phase, new LatencyHistogram()));
+
+        var failed = new AtomicInteger();
+        var firstFailure = new AtomicReference<Exception>();
+        var queriesBefore = countQueries(plugin);
+        var premiumBefore = stub.getRequests();
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        var start = System.nanoTime();
+
+        try {
+            var futures = new ArrayList<Future<?>>(players.size());
+
+            for (SyntheticPlayer player : players) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        if (!listeners.join(player, PASSWORD, phases)) failed.incrementAndGet();
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        firstFailure.compareAndSet(null, e);
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        var seconds = (System.nanoTime() - start) / 1_000_000_000d;
+        var queries = countQueries(plugin) - queriesBefore;
+
+        System.out.printf("%-12d %10d %10d %12.1f %12.2f%n", concurrency, players.size(), failed.get(), players.size() / seconds, (double) queries / players.size());
+
+        // Only the first one, the others of a level usually share the cause
+        var failure = firstFailure.get();
+        if (failure != null) {
+            System.err.println("First failed join at concurrency " + concurrency + ":");
+            failure.printStackTrace();
+        }
+
+        var report = new StringBuilder("concurrency %d, %d premium API requests%n".formatted(concurrency, stub.getRequests() - premiumBefore));
+        report.append("  %-14s %10s %10s %10s%n".formatted("phase", "p50 ms", "p99 ms", "max ms"));
+
+        phases.forEach((phase, histogram) -> {
+            var snapshot = histogram.snapshot();
+            report.append("  %-14s %10.2f %10.2f %10.2f%n".formatted(phase, snapshot.p50Millis(), snapshot.p99Millis(), snapshot.maxMillis()));
+        });
+
+        return report.toString();
+    }
+
+    /**
+     * @return The amount of database provider operations so far
+     */
+    private static long countQueries(HeadlessLibreLogin plugin) {
+        if (!(plugin.getDatabaseProvider() instanceof AuthenticDatabaseProvider<?> provider)) return 0;
+
+        return provider.getMetrics().snapshot().values().stream()
+                .mapToLong(LatencySnapshot::count)
+                .sum();
+    }
+
+    private static List<SyntheticPlayer> seed(HeadlessLibreLogin plugin, int count) {
+        // Hashing is not what is measured here, all the players share a single hash
+        var password = plugin.getDefaultCryptoProvider().createHash(PASSWORD);
+        var now = Timestamp.valueOf(LocalDateTime.now());
+
+        var players = new ArrayList<SyntheticPlayer>(count);
+        var users = new ArrayList<User>(count);
+
+        for (int i = 0; i < count; i++) {
+            var name = "Storm" + i;
+            var ip = "10.%d.%d.%d".formatted((i >> 16) & 0xFF, (i >> 8) & 0xFF, i & 0xFF);
+            var uuid = plugin.generateNewUUID(name, null);
+
+            players.add(new SyntheticPlayer(name, uuid, ip));
+            users.add(new AuthenticUser(uuid, null, password, name, now, now, null, ip, null, null, null));
+        }
+
+        plugin.getDatabaseProvider().insertUsers(users);
+
+        return players;
+    }
+
+    private static void prepareDataFolder(File dataFolder) throws IOException {
+        // Written with the current revision, so that no migration runs and the plugin does not stop for a freshly generated configuration
+        Files.writeString(new File(dataFolder, "config.conf").toPath(), """
+                revision = 8
+                database.type = "librelogin-sqlite"
+                ping-servers = false
+                admission.enabled = false
+                """);
+        // Skips the download of the full list
+        Files.writeString(new File(dataFolder, "forbidden-passwords.txt").toPath(), "");
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        var options = new HashMap<String, String>();
+
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) throw new IllegalArgumentException("Unknown argument " + arg);
+            var split = arg.substring(2).split("=", 2);
+            options.put(split[0], split[1]);
+        }
+
+        return options;
+    }
+
+    static void delete(File file) {
+        var children = file.listFiles();
+
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+
+        file.delete();
+    }
+
+}
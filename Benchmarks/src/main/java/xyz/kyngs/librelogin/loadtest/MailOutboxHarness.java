@@ -0,0 +1,195 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.loadtest;
+
+import org.apache.commons.mail.EmailException;
+import org.apache.commons.mail.HtmlEmail;
+import xyz.kyngs.librelogin.common.mail.MailOutbox;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends mails through the {@link MailOutbox} to a local {@link SmtpStub} and checks the batching, the retries with their backoff,
+ * and the hand-over of the queued mails to the outbox replacing the old one on reload.<br>
+ * Usage: {@code ./gradlew :Benchmarks:mailOutbox}
+ */
+public class MailOutboxHarness {
+
+    private static final int BATCH = 20;
+    /**
+     * The backoff of the first retry of the outbox.
+     */
+    private static final long RETRY_BACKOFF_MILLIS = 5_000;
+    private static final long TIMEOUT_MILLIS = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        var dataFolder = Files.createTempDirectory("librelogin-mail-outbox").toFile();
+        var failures = 0;
+
+        try {
+            prepareDataFolder(dataFolder);
+
+            // The premium API is never called here
+            var plugin = new HeadlessLibreLogin(dataFolder, "http://127.0.0.1:1");
+            plugin.start();
+
+            try {
+                System.out.printf("%n%-36s %8s  %s%n", "scenario", "result", "details");
+
+                if (!batching(plugin)) failures++;
+                if (!retry(plugin)) failures++;
+                if (!handOver(plugin)) failures++;
+            } finally {
+                plugin.stop();
+            }
+        } finally {
+            JoinStormSimulator.delete(dataFolder);
+        }
+
+        System.out.printf("%n%d of 3 scenarios failed%n", failures);
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * A burst of mails must be delivered over a single connection.
+     */
+    private static boolean batching(HeadlessLibreLogin plugin) throws Exception {
+        try (var stub = new SmtpStub()) {
+            var outbox = outbox(plugin, stub);
+
+            try {
+                var results = new ArrayList<CompletableFuture<Void>>();
+                for (int i = 0; i < BATCH; i++) {
+                    results.add(outbox.submit("player" + i + "@localhost", "Verification", "<p>Code " + i + "</p>"));
+                }
+
+                var delivered = await(results);
+                var passed = delivered && stub.getMessages() == BATCH && stub.getConnections() == 1 && outbox.getSent() == BATCH;
+
+                return report("batching of a burst", passed, "%d of %d delivered over %d connections".formatted(stub.getMessages(), BATCH, stub.getConnections()));
+            } finally {
+                outbox.stop();
+            }
+        }
+    }
+
+    /**
+     * A refused connection must be retried after the backoff.
+     */
+    private static boolean retry(HeadlessLibreLogin plugin) throws Exception {
+        try (var stub = new SmtpStub()) {
+            var outbox = outbox(plugin, stub);
+
+            try {
+                stub.refuseConnections(1);
+
+                var start = System.nanoTime();
+                var delivered = await(List.of(outbox.submit("player@localhost", "Password reset", "<p>Reset</p>")));
+                var elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+                var passed = delivered && outbox.getRetried() == 1 && outbox.getFailed() == 0 && elapsed >= RETRY_BACKOFF_MILLIS;
+
+                return report("retry after a refused connection", passed, "delivered %s, %d retries, after %d ms".formatted(delivered, outbox.getRetried(), elapsed));
+            } finally {
+                outbox.stop();
+            }
+        }
+    }
+
+    /**
+     * A reload must not wait for the old outbox, its queued mails must be sent by the new one, and a mail submitted to the old outbox afterwards as well.
+     */
+    private static boolean handOver(HeadlessLibreLogin plugin) throws Exception {
+        try (var stub = new SmtpStub()) {
+            var old = outbox(plugin, stub);
+            var successor = outbox(plugin, stub);
+
+            try {
+                stub.hold();
+
+                var results = new ArrayList<CompletableFuture<Void>>();
+                results.add(old.submit("first@localhost", "Verification", "<p>First</p>"));
+
+                // The worker is stuck sending the first mail, so these stay in the queue
+                if (!stub.awaitHeld(TIMEOUT_MILLIS)) return report("hand-over on reload", false, "the first mail never arrived");
+
+                for (int i = 0; i < 4; i++) {
+                    results.add(old.submit("queued" + i + "@localhost", "Verification", "<p>Queued</p>"));
+                }
+
+                var start = System.nanoTime();
+                old.handOver(successor);
+                var handOverMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+                results.add(old.submit("late@localhost", "Verification", "<p>Late</p>"));
+
+                stub.release();
+
+                var delivered = await(results);
+                var passed = delivered && handOverMillis < 100 && old.getSent() == 1 && successor.getSent() == 5;
+
+                return report("hand-over on reload", passed, "took %d ms, %d sent by the old outbox, %d by the new one".formatted(handOverMillis, old.getSent(), successor.getSent()));
+            } finally {
+                stub.release();
+                old.stop();
+                successor.stop();
+            }
+        }
+    }
+
+    private static MailOutbox outbox(HeadlessLibreLogin plugin, SmtpStub stub) throws EmailException {
+        var outbox = new MailOutbox(plugin, () -> {
+            try {
+                var mail = new HtmlEmail();
+
+                mail.setHostName("127.0.0.1");
+                mail.setSmtpPort(stub.getPort());
+                mail.setFrom("librelogin@localhost", "LibreLogin");
+
+                return mail;
+            } catch (EmailException e) {
+                throw new RuntimeException(e);
+            }
+        }, 100, 3);
+
+        outbox.start();
+
+        return outbox;
+    }
+
+    private static boolean await(List<CompletableFuture<Void>> results) {
+        try {
+            CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace(System.out);
+            return false;
+        }
+    }
+
+    private static boolean report(String scenario, boolean passed, String details) {
+        System.out.printf("%-36s %8s  %s%n", scenario, passed ? "PASS" : "FAIL", details);
+        return passed;
+    }
+
+    private static void prepareDataFolder(File dataFolder) throws Exception {
+        // Written with the current revision, so that no migration runs and the plugin does not stop for a freshly generated configuration
+        Files.writeString(new File(dataFolder, "config.conf").toPath(), """
+                revision = 8
+                database.type = "librelogin-sqlite"
+                ping-servers = false
+                """);
+        // Skips the download of the full list
+        Files.writeString(new File(dataFolder, "forbidden-passwords.txt").toPath(), "");
+    }
+
+}
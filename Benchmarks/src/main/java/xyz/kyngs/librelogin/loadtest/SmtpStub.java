@@ -0,0 +1,176 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local SMTP server, which accepts every mail without authentication or TLS and only counts them.
+ * It can refuse connections and hold the delivery of mails, to exercise the retries and the hand-over of the mail outbox.
+ */
+public class SmtpStub implements AutoCloseable {
+
+    private final ServerSocket server;
+    private final ExecutorService executor;
+    private final LongAdder connections;
+    private final LongAdder messages;
+    private final AtomicInteger refusals;
+    private volatile CountDownLatch gate;
+    private volatile CountDownLatch held;
+
+    public SmtpStub() throws IOException {
+        this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            var thread = new Thread(runnable, "LibreLogin SMTP Stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.connections = new LongAdder();
+        this.messages = new LongAdder();
+        this.refusals = new AtomicInteger();
+
+        executor.execute(this::accept);
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public long getConnections() {
+        return connections.sum();
+    }
+
+    public long getMessages() {
+        return messages.sum();
+    }
+
+    /**
+     * Greets the next connections with 421, which a client must treat as a temporary failure.
+     *
+     * @param count The amount of connections to refuse
+     */
+    public void refuseConnections(int count) {
+        refusals.set(count);
+    }
+
+    /**
+     * Holds every mail after its content is received, until {@link #release()} is called.
+     */
+    public void hold() {
+        held = new CountDownLatch(1);
+        gate = new CountDownLatch(1);
+    }
+
+    /**
+     * Waits until a mail is being held.
+     *
+     * @return true, if a mail arrived in time
+     */
+    public boolean awaitHeld(long timeoutMillis) throws InterruptedException {
+        var current = held;
+        return current != null && current.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void release() {
+        var current = gate;
+        gate = null;
+        if (current != null) current.countDown();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                var socket = server.accept();
+                connections.increment();
+                executor.execute(() -> handle(socket));
+            } catch (IOException e) {
+                // Closed
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket) {
+            var in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            var out = socket.getOutputStream();
+
+            if (refusals.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                reply(out, "421 Service not available, try again later");
+                return;
+            }
+
+            reply(out, "220 localhost ESMTP LibreLogin stub");
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                var command = line.length() < 4 ? line.toUpperCase(Locale.ROOT) : line.substring(0, 4).toUpperCase(Locale.ROOT);
+
+                switch (command) {
+                    case "EHLO", "HELO", "MAIL", "RCPT", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        readContent(in);
+
+                        var current = gate;
+                        if (current != null) {
+                            held.countDown();
+                            current.await();
+                        }
+
+                        messages.increment();
+                        reply(out, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (SocketException e) {
+            // The client dropped the connection
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void readContent(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.equals(".")) return;
+        }
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        release();
+        server.close();
+        executor.shutdownNow();
+    }
+}
@@ -8,8 +8,10 @@ package xyz.kyngs.librelogin.common;
 
 import co.aikar.commands.CommandIssuer;
 import co.aikar.commands.CommandManager;
+import com.github.benmanes.caffeine.cache.Cache;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
@@ -29,10 +31,10 @@ import xyz.kyngs.librelogin.api.database.connector.MySQLDatabaseConnector;
 import xyz.kyngs.librelogin.api.database.connector.PostgreSQLDatabaseConnector;
 import xyz.kyngs.librelogin.api.database.connector.SQLiteDatabaseConnector;
 import xyz.kyngs.librelogin.api.integration.LimboIntegration;
+import xyz.kyngs.librelogin.api.metrics.DatabaseMetrics;
 import xyz.kyngs.librelogin.api.premium.PremiumException;
 import xyz.kyngs.librelogin.api.premium.PremiumUser;
 import xyz.kyngs.librelogin.api.server.ServerHandler;
-import xyz.kyngs.librelogin.api.totp.TOTPProvider;
 import xyz.kyngs.librelogin.api.util.Release;
 import xyz.kyngs.librelogin.api.util.SemanticVersion;
 import xyz.kyngs.librelogin.api.util.ThrowableFunction;
@@ -45,12 +47,17 @@ import xyz.kyngs.librelogin.common.crypto.Argon2IDCryptoProvider;
 import xyz.kyngs.librelogin.common.crypto.BCrypt2ACryptoProvider;
 import xyz.kyngs.librelogin.common.crypto.LogITMessageDigestCryptoProvider;
 import xyz.kyngs.librelogin.common.crypto.MessageDigestCryptoProvider;
+import xyz.kyngs.librelogin.common.crypto.RecordingCryptoProvider;
 import xyz.kyngs.librelogin.common.database.AuthenticDatabaseProvider;
 import xyz.kyngs.librelogin.common.database.AuthenticUser;
+import xyz.kyngs.librelogin.common.database.connector.AuthenticEmbeddedDatabaseConnector;
+import xyz.kyngs.librelogin.common.database.connector.AuthenticHikariDatabaseConnector;
 import xyz.kyngs.librelogin.common.database.connector.AuthenticMySQLDatabaseConnector;
 import xyz.kyngs.librelogin.common.database.connector.AuthenticPostgreSQLDatabaseConnector;
 import xyz.kyngs.librelogin.common.database.connector.AuthenticSQLiteDatabaseConnector;
 import xyz.kyngs.librelogin.common.database.connector.DatabaseConnectorRegistration;
+import xyz.kyngs.librelogin.common.database.connector.HikariPoolMetrics;
+import xyz.kyngs.librelogin.common.database.provider.LibreLoginEmbeddedDatabaseProvider;
 import xyz.kyngs.librelogin.common.database.provider.LibreLoginMySQLDatabaseProvider;
 import xyz.kyngs.librelogin.common.database.provider.LibreLoginPostgreSQLDatabaseProvider;
 import xyz.kyngs.librelogin.common.database.provider.LibreLoginSQLiteDatabaseProvider;
@@ -58,16 +65,23 @@ import xyz.kyngs.librelogin.common.event.AuthenticEventProvider;
 import xyz.kyngs.librelogin.common.image.AuthenticImageProjector;
 import xyz.kyngs.librelogin.common.integration.FloodgateIntegration;
 import xyz.kyngs.librelogin.common.integration.luckperms.LuckPermsIntegration;
+import xyz.kyngs.librelogin.common.listener.AdmissionControl;
 import xyz.kyngs.librelogin.common.listener.LoginTryListener;
 import xyz.kyngs.librelogin.common.log.Log4JFilter;
 import xyz.kyngs.librelogin.common.log.SimpleLogFilter;
 import xyz.kyngs.librelogin.common.mail.AuthenticEMailHandler;
+import xyz.kyngs.librelogin.common.metrics.AuthenticDatabaseMetrics;
+import xyz.kyngs.librelogin.common.metrics.AuthenticMetrics;
+import xyz.kyngs.librelogin.common.metrics.MetricsExporter;
+import xyz.kyngs.librelogin.common.metrics.PrometheusExporter;
 import xyz.kyngs.librelogin.common.migrate.*;
 import xyz.kyngs.librelogin.common.premium.AuthenticPremiumProvider;
 import xyz.kyngs.librelogin.common.server.AuthenticServerHandler;
 import xyz.kyngs.librelogin.common.totp.AuthenticTOTPProvider;
 import xyz.kyngs.librelogin.common.util.CancellableTask;
+import xyz.kyngs.librelogin.common.util.ForbiddenPasswordIndex;
 import xyz.kyngs.librelogin.common.util.GeneralUtil;
+import xyz.kyngs.librelogin.common.util.StagedBootstrap;
 
 import java.io.*;
 import java.net.URL;
@@ -77,6 +91,8 @@ import java.sql.Timestamp;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ForkJoinPool;
 
@@ -97,12 +113,15 @@ public abstract class AuthenticLibreLogin<P, S> implements LibreLoginPlugin<P, S
     private final Map<Class<?>, DatabaseConnectorRegistration<?, ?>> databaseConnectors;
     private final Multimap<P, CancellableTask> cancelOnExit;
     private final PlatformHandle<P, S> platformHandle;
-    private final Set<String> forbiddenPasswords;
+    private final AuthenticMetrics metrics;
+    private final List<MetricsExporter> metricsExporters;
+    private final Map<String, Cache<?, ?>> caches;
     protected Logger logger;
+    private volatile ForbiddenPasswordIndex forbiddenPasswords;
     private AuthenticPremiumProvider premiumProvider;
     private AuthenticEventProvider<P, S> eventProvider;
     private AuthenticServerHandler<P, S> serverHandler;
-    private TOTPProvider totpProvider;
+    private AuthenticTOTPProvider totpProvider;
     private AuthenticImageProjector<P, S> imageProjector;
     private FloodgateIntegration floodgateApi;
     private LuckPermsIntegration<P, S> luckpermsApi;
@@ -115,14 +134,20 @@ public abstract class AuthenticLibreLogin<P, S> implements LibreLoginPlugin<P, S
     private DatabaseConnector<?, ?> databaseConnector;
     private AuthenticEMailHandler eMailHandler;
     private LoginTryListener<P, S> loginTryListener;
+    private AdmissionControl admissionControl;
+    @Nullable
+    private PrometheusExporter prometheusExporter;
 
     protected AuthenticLibreLogin() {
         cryptoProviders = new ConcurrentHashMap<>();
         readProviders = new ConcurrentHashMap<>();
         databaseConnectors = new ConcurrentHashMap<>();
         platformHandle = providePlatformHandle();
-        forbiddenPasswords = new HashSet<>();
-        cancelOnExit = HashMultimap.create();
+        // Written from the scheduler and the event threads, and read by the dump
+        cancelOnExit = Multimaps.synchronizedMultimap(HashMultimap.create());
+        metrics = new AuthenticMetrics(this);
+        metricsExporters = new CopyOnWriteArrayList<>();
+        caches = new ConcurrentHashMap<>();
     }
 
     public Map<Class<?>, DatabaseConnectorRegistration<?, ?>> getDatabaseConnectors() {
@@ -180,9 +205,7 @@ public abstract class AuthenticLibreLogin<P, S> implements LibreLoginPlugin<P, S
             return false;
         }
 
-        var upper = password.toUpperCase();
-
-        return !forbiddenPasswords.contains(upper);
+        return !forbiddenPasswords.contains(password);
     }
 
     @Override
@@ -199,13 +222,75 @@ public abstract class AuthenticLibreLogin<P, S> implements LibreLoginPlugin<P, S
         return databaseProvider;
     }
 
+    @Override
+    public DatabaseMetrics getDatabaseMetrics() {
+        var pools = getPoolMetrics().stream().map(HikariPoolMetrics::snapshot).toList();
+
+        if (databaseProvider instanceof AuthenticDatabaseProvider<?> provider) {
+            var metrics = provider.getMetrics();
+            return new AuthenticDatabaseMetrics(pools, metrics.snapshot(), metrics.getSlowOperations());
+        }
+
+        return new AuthenticDatabaseMetrics(pools, Map.of(), 0);
+    }
+
+    public AuthenticMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Starts the exporter, it is stopped when the plugin is disabled.
+     */
+    public void registerMetricsExporter(MetricsExporter exporter) {
+        try {
+            exporter.start();
+            metricsExporters.add(exporter);
+        } catch (IOException e) {
+            logger.error("Failed to start the metrics exporter %s".formatted(exporter.getClass().getSimpleName()), e);
+        }
+    }
+
+    public void unregisterMetricsExporter(MetricsExporter exporter) {
+        if (metricsExporters.remove(exporter)) exporter.stop();
+    }
+
+    /**
+     * Registers a cache for the performance report of the dump, replacing the previously registered one with the same name.
+     * The cache should be built with {@link com.github.benmanes.caffeine.cache.Caffeine#recordStats()}.
+     */
+    public void registerCache(String name, Cache<?, ?> cache) {
+        caches.put(name, cache);
+    }
+
+    public void unregisterCache(String name) {
+        caches.remove(name);
+    }
+
+    public Map<String, Cache<?, ?>> getCaches() {
+        return caches;
+    }
+
+    /**
+     * @return The amount of the tasks cancelled once their player leaves, e.g. the login reminders
+     */
+    public int getPlayerTaskCount() {
+        return cancelOnExit.size();
+    }
+
+    /**
+     * @return The metrics of the database pools, empty if the database does not use a pool
+     */
+    public List<HikariPoolMetrics> getPoolMetrics() {
+        return databaseConnector instanceof AuthenticHikariDatabaseConnector hikari ? hikari.getPoolMetrics() : List.of();
+    }
+
     @Override
     public AuthenticPremiumProvider getPremiumProvider() {
         return premiumProvider;
     }
 
     @Override
-    public TOTPProvider getTOTPProvider() {
+    public AuthenticTOTPProvider getTOTPProvider() {
         return totpProvider;
     }
 
@@ -223,34 +308,11 @@ public abstract class AuthenticLibreLogin<P, S> implements LibreLoginPlugin<P, S
         version = SemanticVersion.parse(getVersion());
         if (logger == null) logger = provideLogger();
 
-        try {
-            new Log4JFilter().inject();
-        } catch (Throwable ignored) {
-            logger.info("LogFilter is not supported on this platform");
-            var simpleLogger = getSimpleLogger();
+        var bootstrap = new StagedBootstrap(logger, bootstrapExecutor());
 
-            if (simpleLogger != null) {
-                logger.info("Using SimpleLogFilter");
-                new SimpleLogFilter(simpleLogger).inject();
-            }
-        }
+        bootstrap.stage("log-filter", this::injectLogFilter);
 
-        var folder = getDataFolder();
-        if (!folder.exists()) {
-            var oldFolder = new File(folder.getParentFile(), folder.getName().equals("librelogin") ? "librepremium" : "LibrePremium");
-            if (oldFolder.exists()) {
-                logger.info("Migrating configuration and messages from old folder...");
-                if (!oldFolder.renameTo(folder)) {
-                    throw new RuntimeException("Can't migrate configuration and messages from old folder!");
-                }
-            }
-        }
-
-        try {
-            Files.copy(getResourceAsStream("LICENSE.txt"), new File(folder, "LICENSE.txt").toPath(), StandardCopyOption.REPLACE_EXISTING);
-        } catch (IOException ignored) {
-            // Silently ignore
-        }
+        var dataFolder = bootstrap.stage("data-folder", this::prepareDataFolder);
 
         if (platformHandle.getPlatformIdentifier().equals("paper")) {
             LIMBO.setDefault(List.of("limbo"));
@@ -262,7 +324,13 @@ public abstract class AuthenticLibreLogin<P, S> implements LibreLoginPlugin<P, S
         }
 
         eventProvider = new AuthenticEventProvider<>(this);
-        premiumProvider = new AuthenticPremiumProvider(this);
+        eventProvider.subscribe(getEventTypes().authenticated, event -> {
+            metrics.increment(AuthenticMetrics.AUTHENTICATIONS, "reason", event.getReason().name());
+        });
+        eventProvider.subscribe(getEventTypes().wrongPassword, event -> {
+            metrics.increment(AuthenticMetrics.WRONG_PASSWORDS, "source", event.getSource().name());
+        });
+        premiumProvider = providePremiumProvider();
 
         registerCryptoProvider(new MessageDigestCryptoProvider("SHA-256"));
         registerCryptoProvider(new MessageDigestCryptoProvider("SHA-512"));
@@ -272,56 +340,102 @@ public abstract class AuthenticLibreLogin<P, S> implements LibreLoginPlugin<P, S
 
         setupDB();
 
-        checkDataFolder();
+        var configs = bootstrap.stage("configuration", this::loadConfigs, dataFolder);
+
+        bootstrap.stage("forbidden-passwords", () -> {
+            logger.info("Loading forbidden passwords...");
 
-        loadConfigs();
+            try {
+                loadForbiddenPasswords(bootstrap);
+            } catch (IOException e) {
+                e.printStackTrace();
+                logger.info("An unknown exception occurred while attempting to load the forbidden passwords, this most likely isn't your fault");
+                shutdownProxy(1);
+            }
 
-        logger.info("Loading forbidden passwords...");
+            logger.info("Loaded %s forbidden passwords".formatted(forbiddenPasswords.size()));
+        }, dataFolder);
 
-        try {
-            loadForbiddenPasswords();
-        } catch (IOException e) {
-            e.printStackTrace();
-            logger.info("An unknown exception occurred while attempting to load the forbidden passwords, this most likely isn't your fault");
-            shutdownProxy(1);
-        }
+        var database = bootstrap.stage("database", this::connectToDB, configs);
 
-        logger.info("Loaded %s forbidden passwords".formatted(forbiddenPasswords.size()));
+        // Moved to a different class to avoid class loading issues
+        bootstrap.stage("migration", () -> GeneralUtil.checkAndMigrate(configuration, logger, this), database);
 
-        connectToDB();
+        bootstrap.await();
 
         this.loginTryListener = new LoginTryListener<>(this);
 
-        // Moved to a different class to avoid class loading issues
-        GeneralUtil.checkAndMigrate(configuration, logger, this);
-
-        reloadComponents();
+        bootstrap.timed("components", this::reloadComponents);
 
-        authorizationProvider = new AuthenticAuthorizationProvider<>(this);
-        commandProvider = new CommandProvider<>(this);
+        bootstrap.timed("commands", () -> {
+            authorizationProvider = new AuthenticAuthorizationProvider<>(this);
+            commandProvider = provideCommandProvider();
+        });
 
         if (version.dev()) {
             logger.warn("!! YOU ARE RUNNING A DEVELOPMENT BUILD OF LIBRELOGIN !!");
             logger.warn("!! THIS IS NOT A RELEASE, USE THIS ONLY IF YOU WERE INSTRUCTED TO DO SO. DO NOT USE THIS IN PRODUCTION !!");
         } else {
-            initMetrics();
+            bootstrap.timed("metrics", () -> initMetrics());
         }
 
-        delay(this::checkForUpdates, 1000);
+        bootstrap.defer("update-check", this::checkForUpdates);
 
-        if (pluginPresent("floodgate")) {
-            logger.info("Floodgate detected, enabling bedrock support...");
-            floodgateApi = new FloodgateIntegration();
-        }
+        bootstrap.timed("integrations", () -> {
+            if (pluginPresent("floodgate")) {
+                logger.info("Floodgate detected, enabling bedrock support...");
+                floodgateApi = new FloodgateIntegration();
+            }
 
-        if (pluginPresent("luckperms")) {
-            logger.info("LuckPerms detected, enabling context provider");
-            luckpermsApi = new LuckPermsIntegration<>(this);
-        }
+            if (pluginPresent("luckperms")) {
+                logger.info("LuckPerms detected, enabling context provider");
+                luckpermsApi = new LuckPermsIntegration<>(this);
+            }
+        });
 
         if (multiProxyEnabled()) {
             logger.info("Detected MultiProxy setup, enabling MultiProxy support...");
         }
+
+        bootstrap.report();
+
+        // The platforms register their listeners right after this method returns
+        bootstrap.startDeferred(runnable -> delay(runnable, 1000));
+    }
+
+    private void injectLogFilter() {
+        try {
+            new Log4JFilter().inject();
+        } catch (Throwable ignored) {
+            logger.info("LogFilter is not supported on this platform");
+            var simpleLogger = getSimpleLogger();
+
+            if (simpleLogger != null) {
+                logger.info("Using SimpleLogFilter");
+                new SimpleLogFilter(simpleLogger).inject();
+            }
+        }
+    }
+
+    private void prepareDataFolder() {
+        var folder = getDataFolder();
+        if (!folder.exists()) {
+            var oldFolder = new File(folder.getParentFile(), folder.getName().equals("librelogin") ? "librepremium" : "LibrePremium");
+            if (oldFolder.exists()) {
+                logger.info("Migrating configuration and messages from old folder...");
+                if (!oldFolder.renameTo(folder)) {
+                    throw new RuntimeException("Can't migrate configuration and messages from old folder!");
+                }
+            }
+        }
+
+        checkDataFolder();
+
+        try {
+            Files.copy(getResourceAsStream("LICENSE.txt"), new File(folder, "LICENSE.txt").toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ignored) {
+            // Silently ignore
+        }
     }
 
     public <C extends DatabaseConnector<?, ?>> DatabaseConnectorRegistration<?, C> getDatabaseConnector(Class<C> clazz) {
@@ -463,6 +577,12 @@ public abstract class AuthenticLibreLogin<P, S> implements LibreLoginPlugin<P, S
                         "postgresql"
                 ),
                 PostgreSQLDatabaseConnector.class);
+        registerDatabaseConnector(new DatabaseConnectorRegistration<>(
+                        prefix -> new AuthenticEmbeddedDatabaseConnector(this, prefix),
+                        AuthenticEmbeddedDatabaseConnector.Configuration.class,
+                        "embedded"
+                ),
+                AuthenticEmbeddedDatabaseConnector.class);
 
         registerReadProvider(new ReadDatabaseProviderRegistration<>(
                 connector -> new LibreLoginMySQLDatabaseProvider(connector, this),
@@ -479,6 +599,11 @@ public abstract class AuthenticLibreLogin<P, S> implements LibreLoginPlugin<P, S
                 "librelogin-postgresql",
                 PostgreSQLDatabaseConnector.class
         ));
+        registerReadProvider(new ReadDatabaseProviderRegistration<>(
+                connector -> new LibreLoginEmbeddedDatabaseProvider(connector, this),
+                "librelogin-embedded",
+                AuthenticEmbeddedDatabaseConnector.class
+        ));
         registerReadProvider(new ReadDatabaseProviderRegistration<>(
                 connector -> new AegisSQLMigrateReadProvider(configuration.get(MIGRATION_MYSQL_OLD_DATABASE_TABLE), logger, connector),
                 "aegis-mysql",
@@ -520,12 +645,12 @@ public abstract class AuthenticLibreLogin<P, S> implements LibreLoginPlugin<P, S
                 MySQLDatabaseConnector.class
         ));
         registerReadProvider(new ReadDatabaseProviderRegistration<>(
-                connector -> new FastLoginSQLMigrateReadProvider("premium", logger, connector, databaseConnector, premiumProvider),
+                connector -> new FastLoginSQLMigrateReadProvider("premium", logger, connector, databaseProvider, premiumProvider),
                 "fastlogin-mysql",
                 MySQLDatabaseConnector.class
         ));
         registerReadProvider(new ReadDatabaseProviderRegistration<>(
-                connector -> new FastLoginSQLMigrateReadProvider("premium", logger, connector, databaseConnector, premiumProvider),
+                connector -> new FastLoginSQLMigrateReadProvider("premium", logger, connector, databaseProvider, premiumProvider),
                 "fastlogin-sqlite",
                 SQLiteDatabaseConnector.class
         ));
@@ -572,38 +697,34 @@ public abstract class AuthenticLibreLogin<P, S> implements LibreLoginPlugin<P, S
         ));*/
     }
 
-    private void loadForbiddenPasswords() throws IOException {
+    private void loadForbiddenPasswords(StagedBootstrap bootstrap) throws IOException {
         var file = new File(getDataFolder(), "forbidden-passwords.txt");
 
         if (!file.exists()) {
-            logger.info("Forbidden passwords list doesn't exist, downloading...");
-            try (BufferedInputStream in = new BufferedInputStream(new URL("https://raw.githubusercontent.com/kyngs/LibreLogin/dev/forbidden-passwords.txt").openStream())) {
-                if (!file.createNewFile()) {
-                    throw new IOException("Failed to create file");
-                }
-                try (var fos = new FileOutputStream(file)) {
-                    var dataBuffer = new byte[1024];
-                    int bytesRead;
-                    while ((bytesRead = in.read(dataBuffer, 0, 1024)) != -1) {
-                        fos.write(dataBuffer, 0, bytesRead);
-                    }
-                }
-                logger.info("Successfully downloaded forbidden passwords list");
-            } catch (IOException e) {
-                e.printStackTrace();
-                logger.warn("Failed to download forbidden passwords list, using template instead");
-                Files.copy(getResourceAsStream("forbidden-passwords-template.txt"), file.toPath());
-            }
+            logger.info("Forbidden passwords list doesn't exist, using template until it is downloaded");
+            Files.copy(getResourceAsStream("forbidden-passwords-template.txt"), file.toPath());
+            bootstrap.defer("forbidden-passwords-download", () -> downloadForbiddenPasswords(file));
         }
 
-        try (var reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.startsWith("# ")) {
-                    continue;
-                }
-                forbiddenPasswords.add(line.toUpperCase(Locale.ROOT));
-            }
+        forbiddenPasswords = ForbiddenPasswordIndex.open(file, new File(getDataFolder(), "forbidden-passwords.idx"));
+    }
+
+    private void downloadForbiddenPasswords(File file) {
+        logger.info("Downloading forbidden passwords list...");
+
+        var temp = new File(file.getParentFile(), file.getName() + ".download");
+
+        try (BufferedInputStream in = new BufferedInputStream(new URL("https://raw.githubusercontent.com/kyngs/LibreLogin/dev/forbidden-passwords.txt").openStream())) {
+            Files.copy(in, temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+            forbiddenPasswords = ForbiddenPasswordIndex.open(file, new File(getDataFolder(), "forbidden-passwords.idx"));
+
+            logger.info("Successfully downloaded forbidden passwords list, loaded %s forbidden passwords".formatted(forbiddenPasswords.size()));
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.warn("Failed to download forbidden passwords list, using template instead");
+            temp.delete();
         }
     }
 
@@ -669,6 +790,14 @@ public abstract class AuthenticLibreLogin<P, S> implements LibreLoginPlugin<P, S
     }
 
     protected void disable() {
+        for (MetricsExporter exporter : metricsExporters) {
+            exporter.stop();
+        }
+        metricsExporters.clear();
+
+        if (eMailHandler != null) eMailHandler.shutdown();
+        if (loginTryListener != null) loginTryListener.getTracker().shutdown();
+
         if (databaseConnector != null) {
             try {
                 databaseConnector.disconnect();
@@ -711,6 +840,13 @@ public abstract class AuthenticLibreLogin<P, S> implements LibreLoginPlugin<P, S
     }
 
     private void reloadComponents() {
+        // The components below are replaced, their old caches must not stay reachable through the dump, even if the new ones do not register any
+        if (admissionControl != null) admissionControl.getCaches().keySet().forEach(this::unregisterCache);
+        unregisterCache("server-pings");
+        unregisterCache("totp-maps");
+
+        admissionControl = new AdmissionControl(configuration);
+        admissionControl.getCaches().forEach(this::registerCache);
         serverHandler = new AuthenticServerHandler<>(this);
 
         imageProjector = provideImageProjector();
@@ -724,7 +860,17 @@ public abstract class AuthenticLibreLogin<P, S> implements LibreLoginPlugin<P, S
         }
 
         totpProvider = configuration.get(TOTP_ENABLED) ? new AuthenticTOTPProvider(this) : null;
+        var previousMailHandler = eMailHandler;
         eMailHandler = configuration.get(MAIL_ENABLED) ? new AuthenticEMailHandler(this) : null;
+        if (previousMailHandler != null) previousMailHandler.handOver(eMailHandler);
+
+        if (prometheusExporter != null) unregisterMetricsExporter(prometheusExporter);
+        prometheusExporter = null;
+
+        if (configuration.get(METRICS_PROMETHEUS_ENABLED)) {
+            prometheusExporter = new PrometheusExporter(this, configuration.get(METRICS_PROMETHEUS_ADDRESS), configuration.get(METRICS_PROMETHEUS_PORT));
+            registerMetricsExporter(prometheusExporter);
+        }
     }
 
     protected abstract Logger provideLogger();
@@ -743,6 +889,18 @@ public abstract class AuthenticLibreLogin<P, S> implements LibreLoginPlugin<P, S
 
     protected abstract AuthenticImageProjector<P, S> provideImageProjector();
 
+    protected AuthenticPremiumProvider providePremiumProvider() {
+        return new AuthenticPremiumProvider(this);
+    }
+
+    /**
+     * @return The command provider, or null when the platform has no command manager (e.g. a headless load test)
+     */
+    @Nullable
+    protected CommandProvider<P, S> provideCommandProvider() {
+        return new CommandProvider<>(this);
+    }
+
     public PremiumUser getUserOrThrowICA(String username) throws InvalidCommandArgument {
         try {
             return getPremiumProvider().getUserForName(username);
@@ -770,7 +928,7 @@ public abstract class AuthenticLibreLogin<P, S> implements LibreLoginPlugin<P, S
 
     @Override
     public void registerCryptoProvider(CryptoProvider provider) {
-        cryptoProviders.put(provider.getIdentifier(), provider);
+        cryptoProviders.put(provider.getIdentifier(), provider instanceof RecordingCryptoProvider ? provider : new RecordingCryptoProvider(provider));
     }
 
     @Override
@@ -795,8 +953,13 @@ public abstract class AuthenticLibreLogin<P, S> implements LibreLoginPlugin<P, S
         return loginTryListener;
     }
 
+    public AdmissionControl getAdmissionControl() {
+        return admissionControl;
+    }
+
     public void onExit(P player) {
         cancelOnExit.removeAll(player).forEach(CancellableTask::cancel);
+        if (floodgateApi != null) floodgateApi.onQuit(platformHandle.getUUIDForPlayer(player));
         if (configuration.get(REMEMBER_LAST_SERVER)) {
             var server = platformHandle.getPlayersServerName(player);
             if (server == null) return;
@@ -812,6 +975,10 @@ public abstract class AuthenticLibreLogin<P, S> implements LibreLoginPlugin<P, S
         cancelOnExit.put(player, task);
     }
 
+    public FloodgateIntegration getFloodgateIntegration() {
+        return floodgateApi;
+    }
+
     public boolean floodgateEnabled() {
         return floodgateApi != null;
     }
@@ -847,11 +1014,21 @@ public abstract class AuthenticLibreLogin<P, S> implements LibreLoginPlugin<P, S
         }
     }
 
-    public boolean fromFloodgate(String username) {
-        return floodgateApi != null && floodgateApi.getPlayer(username) != null;
+    /**
+     * @param uuid The UUID of the player, or null if it is not known yet
+     */
+    public boolean fromFloodgate(String username, UUID uuid) {
+        return floodgateApi != null && floodgateApi.getPlayer(username, uuid) != null;
     }
 
     protected java.util.logging.Logger getSimpleLogger() {
         return null;
     }
+
+    /**
+     * @return The executor used to run the independent startup stages concurrently
+     */
+    protected Executor bootstrapExecutor() {
+        return EXECUTOR;
+    }
 }
\ No newline at end of file
@@ -8,9 +8,7 @@ package xyz.kyngs.librelogin.common.authorization;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import net.kyori.adventure.audience.Audience;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.title.Title;
 import xyz.kyngs.librelogin.api.authorization.AuthorizationProvider;
 import xyz.kyngs.librelogin.api.database.User;
 import xyz.kyngs.librelogin.api.event.events.AuthenticatedEvent;
@@ -19,11 +17,10 @@ import xyz.kyngs.librelogin.common.AuthenticHandler;
 import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
 import xyz.kyngs.librelogin.common.config.ConfigurationKeys;
 import xyz.kyngs.librelogin.common.event.events.AuthenticAuthenticatedEvent;
+import xyz.kyngs.librelogin.common.metrics.AuthenticMetrics;
 
 import java.sql.Timestamp;
-import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -36,6 +33,7 @@ public class AuthenticAuthorizationProvider<P, S> extends AuthenticHandler<P, S>
     private final Map<P, String> awaiting2FADisable;
     private final Cache<UUID, EmailVerifyData> emailConfirmCache;
     private final Cache<UUID, String> passwordResetCache;
+    private final PromptBroadcaster<P> promptBroadcaster;
 
     public AuthenticAuthorizationProvider(AuthenticLibreLogin<P, S> plugin) {
         super(plugin);
@@ -43,21 +41,22 @@ public class AuthenticAuthorizationProvider<P, S> extends AuthenticHandler<P, S>
         awaiting2FA = new ConcurrentHashMap<>();
         awaiting2FADisable = new ConcurrentHashMap<>();
 
-        var millis = plugin.getConfiguration().get(ConfigurationKeys.MILLISECONDS_TO_REFRESH_NOTIFICATION);
+        promptBroadcaster = new PromptBroadcaster<>(plugin);
 
-        if (millis > 0) {
-            plugin.repeat(this::notifyUnauthorized, 0, millis);
-        }
-
-        plugin.repeat(this::broadcastActionbars, 0, 1000);
+        plugin.repeat(promptBroadcaster::tick, 0, PromptBroadcaster.TICK_MILLIS);
 
         emailConfirmCache = Caffeine.newBuilder()
                 .expireAfterWrite(10, TimeUnit.MINUTES)
+                .recordStats()
                 .build();
 
         passwordResetCache = Caffeine.newBuilder()
                 .expireAfterWrite(10, TimeUnit.MINUTES)
+                .recordStats()
                 .build();
+
+        plugin.registerCache("email-confirmations", emailConfirmCache);
+        plugin.registerCache("password-resets", passwordResetCache);
     }
 
     public Cache<UUID, EmailVerifyData> getEmailConfirmCache() {
@@ -68,6 +67,14 @@ public class AuthenticAuthorizationProvider<P, S> extends AuthenticHandler<P, S>
         return passwordResetCache;
     }
 
+    public int getUnauthorizedCount() {
+        return unAuthorized.size();
+    }
+
+    public int getAwaiting2FACount() {
+        return awaiting2FA.size();
+    }
+
     public void onExit(P player) {
         stopTracking(player);
         awaiting2FA.remove(player);
@@ -98,6 +105,8 @@ public class AuthenticAuthorizationProvider<P, S> extends AuthenticHandler<P, S>
         }
         stopTracking(player);
 
+        var start = System.nanoTime();
+
         user.setLastAuthentication(Timestamp.valueOf(LocalDateTime.now()));
         user.setIp(platformHandle.getIP(player));
         plugin.getDatabaseProvider().updateUser(user);
@@ -108,6 +117,8 @@ public class AuthenticAuthorizationProvider<P, S> extends AuthenticHandler<P, S>
         audience.sendActionBar(Component.empty());
         plugin.getEventProvider().fire(plugin.getEventTypes().authenticated, new AuthenticAuthenticatedEvent<>(user, player, plugin, reason));
         plugin.authorize(player, user, audience);
+
+        plugin.getMetrics().record(AuthenticMetrics.AUTHORIZATION, reason.name(), start);
     }
 
     @Override
@@ -139,7 +150,7 @@ public class AuthenticAuthorizationProvider<P, S> extends AuthenticHandler<P, S>
 
         plugin.cancelOnExit(plugin.delay(() -> {
             if (!unAuthorized.containsKey(player)) return;
-            sendInfoMessage(user.isRegistered(), audience);
+            promptBroadcaster.prompt(player, audience);
         }, 250), player);
 
         var limit = plugin.getConfiguration().get(ConfigurationKeys.SECONDS_TO_AUTHORIZE);
@@ -151,70 +162,12 @@ public class AuthenticAuthorizationProvider<P, S> extends AuthenticHandler<P, S>
             }, limit * 1000L), player);
         }
 
-        sendInfoMessage(user.isRegistered(), audience);
-    }
-
-    private void broadcastActionbars() {
-        var wrong = new HashSet<P>();
-        unAuthorized.forEach((player, registered) -> {
-            var audience = platformHandle.getAudienceForPlayer(player);
-
-            if (audience == null) {
-                wrong.add(player);
-                return;
-            }
-
-            sendActionBar(registered, audience);
-
-        });
-
-        wrong.forEach(unAuthorized::remove);
-    }
-
-    private void sendActionBar(boolean registered, Audience audience) {
-        if (plugin.getConfiguration().get(ConfigurationKeys.USE_ACTION_BAR)) {
-            audience.sendActionBar(plugin.getMessages().getMessage(registered ? "action-bar-login" : "action-bar-register"));
-        }
-    }
-
-    private void sendInfoMessage(boolean registered, Audience audience) {
-        audience.sendMessage(plugin.getMessages().getMessage(registered ? "prompt-login" : "prompt-register"));
-        if (!plugin.getConfiguration().get(ConfigurationKeys.USE_TITLES)) return;
-        var toRefresh = plugin.getConfiguration().get(ConfigurationKeys.MILLISECONDS_TO_REFRESH_NOTIFICATION);
-        //noinspection UnstableApiUsage
-        audience.showTitle(Title.title(
-                plugin.getMessages().getMessage(registered ? "title-login" : "title-register"),
-                plugin.getMessages().getMessage(registered ? "sub-title-login" : "sub-title-register"),
-                Title.Times.of(
-                        Duration.ofMillis(0),
-                        Duration.ofMillis(toRefresh > 0 ?
-                                (long) (toRefresh * 1.1) :
-                                10000
-                        ),
-                        Duration.ofMillis(0)
-                )
-        ));
+        promptBroadcaster.track(player, user.isRegistered(), audience);
     }
 
     public void stopTracking(P player) {
         unAuthorized.remove(player);
-    }
-
-    public void notifyUnauthorized() {
-        var wrong = new HashSet<P>();
-        unAuthorized.forEach((player, registered) -> {
-            var audience = platformHandle.getAudienceForPlayer(player);
-
-            if (audience == null) {
-                wrong.add(player);
-                return;
-            }
-
-            sendInfoMessage(registered, audience);
-
-        });
-
-        wrong.forEach(unAuthorized::remove);
+        promptBroadcaster.untrack(player);
     }
 
     public record EmailVerifyData(String email, String token, UUID uuid) {
@@ -0,0 +1,197 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.authorization;
+
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.title.Title;
+import org.jetbrains.annotations.Nullable;
+import xyz.kyngs.librelogin.api.PlatformHandle;
+import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
+import xyz.kyngs.librelogin.common.config.ConfigurationKeys;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the action bars, the titles and the reminders to the unauthorized players.<br>
+ * The players are spread over the slots of a second, so that a crowd in the limbo is served a slice every tick instead of all at once.
+ * The prompts are built once per second and shared by all the players, the configuration is read with them.
+ */
+public class PromptBroadcaster<P> {
+
+    public static final long TICK_MILLIS = 50;
+    private static final int SLOTS = (int) (1000 / TICK_MILLIS);
+
+    private final AuthenticLibreLogin<P, ?> plugin;
+    private final PlatformHandle<P, ?> platformHandle;
+    private final Map<P, Entry> entries;
+    private final Set<P>[] slots;
+    private final AtomicInteger nextSlot;
+    private final AtomicInteger tick;
+    private volatile Prompts login;
+    private volatile Prompts register;
+
+    @SuppressWarnings("unchecked")
+    public PromptBroadcaster(AuthenticLibreLogin<P, ?> plugin) {
+        this.plugin = plugin;
+        this.platformHandle = plugin.getPlatformHandle();
+        this.entries = new ConcurrentHashMap<>();
+        this.slots = new Set[SLOTS];
+        this.nextSlot = new AtomicInteger();
+        this.tick = new AtomicInteger();
+
+        for (int i = 0; i < SLOTS; i++) {
+            slots[i] = ConcurrentHashMap.newKeySet();
+        }
+
+        rebuild();
+    }
+
+    /**
+     * Sends the prompt to the player right away and keeps sending the action bar and the reminders until {@link #untrack(Object)} is called.
+     */
+    public void track(P player, boolean registered, Audience audience) {
+        var slot = Math.floorMod(nextSlot.getAndIncrement(), SLOTS);
+        var entry = new Entry(slot, registered);
+
+        var previous = entries.put(player, entry);
+        if (previous != null) slots[previous.slot].remove(player);
+        slots[slot].add(player);
+
+        prompt(entry, audience);
+    }
+
+    public void untrack(P player) {
+        var entry = entries.remove(player);
+        if (entry != null) slots[entry.slot].remove(player);
+    }
+
+    /**
+     * Sends the prompt to the player again, including the title, if it is tracked.
+     */
+    public void prompt(P player, Audience audience) {
+        var entry = entries.get(player);
+        if (entry == null) return;
+
+        // The title might have been cleared by a server switch
+        entry.titleShown = false;
+        prompt(entry, audience);
+    }
+
+    /**
+     * Serves the players of the current slot, should be called every {@link #TICK_MILLIS} milliseconds.
+     */
+    public void tick() {
+        var slot = Math.floorMod(tick.getAndIncrement(), SLOTS);
+
+        if (slot == 0) rebuild();
+
+        var now = System.currentTimeMillis();
+
+        for (P player : slots[slot]) {
+            var entry = entries.get(player);
+            if (entry == null) continue;
+
+            var audience = platformHandle.getAudienceForPlayer(player);
+
+            if (audience == null) {
+                // The player left without the exit being handled, the authorization provider must forget them as well
+                plugin.getAuthorizationProvider().stopTracking(player);
+                continue;
+            }
+
+            var prompts = prompts(entry.registered);
+
+            if (prompts.actionBar() != null) audience.sendActionBar(prompts.actionBar());
+
+            if (prompts.reminderMillis() > 0 && now - entry.lastPrompt >= prompts.reminderMillis()) {
+                prompt(entry, audience);
+            }
+        }
+    }
+
+    private void prompt(Entry entry, Audience audience) {
+        var prompts = prompts(entry.registered);
+
+        entry.lastPrompt = System.currentTimeMillis();
+        audience.sendMessage(prompts.message());
+
+        // A title lasting until the time limit only needs to be shown once
+        if (prompts.title() != null && (!entry.titleShown || !prompts.titleLastsUntilLimit())) {
+            audience.showTitle(prompts.title());
+            entry.titleShown = true;
+        }
+    }
+
+    private Prompts prompts(boolean registered) {
+        return registered ? login : register;
+    }
+
+    private void rebuild() {
+        login = build(true);
+        register = build(false);
+    }
+
+    private Prompts build(boolean registered) {
+        var configuration = plugin.getConfiguration();
+        var messages = plugin.getMessages();
+
+        var actionBar = configuration.get(ConfigurationKeys.USE_ACTION_BAR)
+                ? messages.getMessage(registered ? "action-bar-login" : "action-bar-register")
+                : null;
+
+        var toRefresh = configuration.get(ConfigurationKeys.MILLISECONDS_TO_REFRESH_NOTIFICATION);
+        var limit = configuration.get(ConfigurationKeys.SECONDS_TO_AUTHORIZE);
+        var titleLastsUntilLimit = limit > 0;
+
+        Title title = null;
+
+        if (configuration.get(ConfigurationKeys.USE_TITLES)) {
+            var stay = titleLastsUntilLimit
+                    ? Duration.ofSeconds(limit + 1)
+                    : Duration.ofMillis(toRefresh > 0 ? (long) (toRefresh * 1.1) : 10000);
+
+            //noinspection UnstableApiUsage
+            title = Title.title(
+                    messages.getMessage(registered ? "title-login" : "title-register"),
+                    messages.getMessage(registered ? "sub-title-login" : "sub-title-register"),
+                    Title.Times.of(Duration.ZERO, stay, Duration.ZERO)
+            );
+        }
+
+        return new Prompts(
+                messages.getMessage(registered ? "prompt-login" : "prompt-register"),
+                actionBar,
+                title,
+                titleLastsUntilLimit,
+                toRefresh
+        );
+    }
+
+    private static final class Entry {
+
+        private final int slot;
+        private final boolean registered;
+        private volatile long lastPrompt;
+        private volatile boolean titleShown;
+
+        private Entry(int slot, boolean registered) {
+            this.slot = slot;
+            this.registered = registered;
+        }
+
+    }
+
+    private record Prompts(Component message, @Nullable Component actionBar, @Nullable Title title,
+                           boolean titleLastsUntilLimit, long reminderMillis) {
+    }
+
+}
@@ -48,6 +48,7 @@ public class CommandProvider<P, S> extends AuthenticHandler<P, S> {
         super(plugin);
 
         limiter = new RateLimiter<>(1, TimeUnit.SECONDS);
+        plugin.registerCache("command-limiter", limiter.getCache());
 
         manager = plugin.provideManager();
 
@@ -98,7 +99,9 @@ public class CommandProvider<P, S> extends AuthenticHandler<P, S> {
 
         confirmCache = Caffeine.newBuilder()
                 .expireAfterWrite(5, TimeUnit.MINUTES)
+                .recordStats()
                 .build();
+        plugin.registerCache("command-confirmations", confirmCache);
 
         manager.registerCommand(new LoginCommand<>(plugin));
         manager.registerCommand(new RegisterCommand<>(plugin));
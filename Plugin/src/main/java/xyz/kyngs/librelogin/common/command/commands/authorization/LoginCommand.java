@@ -13,6 +13,7 @@ import xyz.kyngs.librelogin.api.event.events.WrongPasswordEvent.AuthenticationSo
 import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
 import xyz.kyngs.librelogin.common.command.InvalidCommandArgument;
 import xyz.kyngs.librelogin.common.event.events.AuthenticWrongPasswordEvent;
+import xyz.kyngs.librelogin.common.metrics.AuthenticMetrics;
 
 import java.util.concurrent.CompletionStage;
 
@@ -39,7 +40,12 @@ public class LoginCommand<P> extends AuthorizationCommand<P> {
 
             if (crypto == null) throw new InvalidCommandArgument(getMessage("error-password-corrupted"));
 
-            if (!crypto.matches(password, hashed)) {
+            var verification = System.nanoTime();
+            var matches = crypto.matches(password, hashed);
+
+            plugin.getMetrics().record(AuthenticMetrics.HASH_VERIFICATION, matches ? "MATCHED" : "MISMATCHED", verification);
+
+            if (!matches) {
                 plugin.getEventProvider()
                         .unsafeFire(plugin.getEventTypes().wrongPassword,
                                 new AuthenticWrongPasswordEvent<>(user, player, plugin, AuthenticationSource.LOGIN));
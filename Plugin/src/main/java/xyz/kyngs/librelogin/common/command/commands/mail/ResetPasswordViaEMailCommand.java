@@ -28,6 +28,7 @@ public class ResetPasswordViaEMailCommand<P> extends EMailCommand<P> {
 
     public ResetPasswordViaEMailCommand(AuthenticLibreLogin<P, ?> plugin) {
         super(plugin);
+        plugin.registerCache("reset-password-limiter", limiter.getCache());
     }
 
     @Default
@@ -28,6 +28,7 @@ public class SetEMailCommand<P> extends EMailCommand<P> {
 
     public SetEMailCommand(AuthenticLibreLogin<P, ?> premium) {
         super(premium);
+        plugin.registerCache("set-email-limiter", limiter.getCache());
     }
 
     @Default
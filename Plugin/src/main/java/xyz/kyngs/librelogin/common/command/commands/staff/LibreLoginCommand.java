@@ -7,8 +7,6 @@
 package xyz.kyngs.librelogin.common.command.commands.staff;
 
 import co.aikar.commands.annotation.*;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
 import net.kyori.adventure.audience.Audience;
 import xyz.kyngs.librelogin.api.configuration.CorruptedConfigurationException;
 import xyz.kyngs.librelogin.api.database.User;
@@ -16,22 +14,21 @@ import xyz.kyngs.librelogin.api.event.events.AuthenticatedEvent;
 import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
 import xyz.kyngs.librelogin.common.command.InvalidCommandArgument;
 import xyz.kyngs.librelogin.common.database.AuthenticUser;
+import xyz.kyngs.librelogin.common.dump.AuthenticDump;
 import xyz.kyngs.librelogin.common.event.events.AuthenticPasswordChangeEvent;
 import xyz.kyngs.librelogin.common.event.events.AuthenticPremiumLoginSwitchEvent;
 import xyz.kyngs.librelogin.common.util.GeneralUtil;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.management.ManagementFactory;
-import java.lang.management.ThreadInfo;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.concurrent.CompletionStage;
 
 import static xyz.kyngs.librelogin.common.AuthenticLibreLogin.DATE_TIME_FORMATTER;
-import static xyz.kyngs.librelogin.common.AuthenticLibreLogin.GSON;
 
 @CommandAlias("librelogin")
 public class LibreLoginCommand<P> extends StaffCommand<P> {
@@ -87,63 +84,8 @@ public class LibreLoginCommand<P> extends StaffCommand<P> {
                 throw new InvalidCommandArgument(getMessage("error-unknown"));
             }
 
-            var dump = new JsonObject();
-
-            dump.addProperty("version", plugin.getVersion());
-            dump.addProperty("date", DATE_TIME_FORMATTER.format(LocalDateTime.now()));
-
-            var server = new JsonObject();
-
-            var proxyData = plugin.getPlatformHandle().getProxyData();
-
-            server.addProperty("name", proxyData.name());
-            server.add("plugins", GSON.toJsonTree(proxyData.plugins()));
-            server.add("servers", GSON.toJsonTree(proxyData.servers()));
-            server.add("limbos", GSON.toJsonTree(proxyData.limbos()));
-            server.add("lobbies", GSON.toJsonTree(proxyData.lobbies()));
-
-            var threads = new JsonObject();
-
-            var mxBean = ManagementFactory.getThreadMXBean();
-
-            for (ThreadInfo info : mxBean.dumpAllThreads(true, true)) {
-                var thread = new JsonObject();
-
-                thread.addProperty("id", info.getThreadId());
-                thread.addProperty("name", info.getThreadName());
-                thread.addProperty("state", info.getThreadState().name());
-                thread.addProperty("priority", info.getPriority());
-                thread.addProperty("isDaemon", info.isDaemon());
-                thread.addProperty("isInNative", info.isInNative());
-                thread.addProperty("isSuspended", info.isSuspended());
-
-                var lock = new JsonObject();
-
-                if (info.getLockName() != null) {
-                    lock.addProperty("name", info.getLockName());
-                    lock.addProperty("ownerId", info.getLockOwnerId());
-                    lock.addProperty("ownerName", info.getLockOwnerName());
-                }
-
-                thread.add("lock", lock);
-
-                var stackTrace = new JsonArray();
-
-                for (StackTraceElement element : info.getStackTrace()) {
-                    stackTrace.add(element.getClassName() + "#" + element.getMethodName() + "#" + element.getLineNumber());
-                }
-
-                thread.add("stackTrace", stackTrace);
-
-                threads.add(info.getThreadName(), thread);
-            }
-
-            server.add("threads", threads);
-
-            dump.add("server", server);
-
-            try (var writer = new FileWriter(dumpFile)) {
-                writer.write(GSON.toJson(dump));
+            try (var writer = new BufferedWriter(new FileWriter(dumpFile))) {
+                new AuthenticDump<>(plugin).write(writer);
             } catch (IOException e) {
                 e.printStackTrace();
                 throw new InvalidCommandArgument(getMessage("error-unknown"));
@@ -41,7 +41,7 @@ public class TwoFactorAuthCommand<P> extends Command<P> {
 
             if (plugin.getImageProjector() != null && plugin.getImageProjector().canProject(player)) {
                 plugin.cancelOnExit(plugin.delay(() -> {
-                    plugin.getImageProjector().project(data.qr(), player);
+                    plugin.getImageProjector().projectMap(plugin.getTOTPProvider().getMap(data), player);
 
                     sender.sendMessage(getMessage("totp-show-info"));
                 }, plugin.getConfiguration().get(ConfigurationKeys.TOTP_DELAY)), player);
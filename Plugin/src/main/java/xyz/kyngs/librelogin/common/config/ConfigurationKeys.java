@@ -101,14 +101,14 @@ public class ConfigurationKeys {
     public static final ConfigurationKey<Integer> MAX_LOGIN_ATTEMPTS = new ConfigurationKey<>(
             "max-login-attempts",
             -1,
-            "Kick the player, if the password was incorrect more or equal times. -1 means disabled",
+            "Kick the player, if the password of their account was incorrect more or equal times within the window. -1 means disabled",
             ConfigurateHelper::getInt
     );
 
     public static final ConfigurationKey<Integer> MILLISECONDS_TO_EXPIRE_LOGIN_ATTEMPTS = new ConfigurationKey<>(
             "milliseconds-to-refresh-login-attempts",
             10000,
-            "Time to reset login attempts. The amount of time the player should have waited for their login attempts to expire. On every rejoin, login attempts are reset.",
+            "The length of the sliding window the failed login attempts are counted in. The attempts are no longer reset on rejoin, the player is locked out until enough of them leave the window.",
             ConfigurateHelper::getInt
     );
 
@@ -193,10 +193,85 @@ public class ConfigurationKeys {
                     librelogin-mysql - MySQL database, you must fill out the mysql section below.
                     librelogin-postgresql - PostgreSQL database, you must fill out the postgresql section below.
                     librelogin-sqlite - SQLite database, default file is "database.db", you can change it in the sqlite section below.
+                    librelogin-embedded - Embedded storage, which keeps all the users in memory and in a single file. The fastest option for a single proxy, cannot be shared by several proxies.
                     """,
             ConfigurateHelper::getString
     );
 
+    public static final ConfigurationKey<Integer> DATABASE_CONNECTION_TIMEOUT = new ConfigurationKey<>(
+            "database.connection-timeout",
+            5000,
+            "The maximum time in milliseconds to wait for a connection to the database. Keep this low, the query is retried anyway.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Integer> DATABASE_RETRY_ATTEMPTS = new ConfigurationKey<>(
+            "database.retry-attempts",
+            3,
+            "How many times should we attempt a query, which failed because the database was unreachable.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Long> DATABASE_RETRY_DELAY = new ConfigurationKey<>(
+            "database.retry-delay",
+            250L,
+            "The base delay in milliseconds between the attempts. The delay doubles with every attempt and is randomized.",
+            ConfigurateHelper::getLong
+    );
+
+    public static final ConfigurationKey<Integer> DATABASE_CIRCUIT_BREAKER_THRESHOLD = new ConfigurationKey<>(
+            "database.circuit-breaker-threshold",
+            3,
+            """
+                    After how many consecutive failed queries should we enter the degraded mode.
+                    In the degraded mode, queries are not sent to the database at all. Players who are already connected can continue playing, changes to their data are written once the database is back.
+                    New players cannot join until the database is back.
+                    """,
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Long> DATABASE_CIRCUIT_BREAKER_DURATION = new ConfigurationKey<>(
+            "database.circuit-breaker-duration",
+            10000L,
+            "How long in milliseconds should we wait in the degraded mode before checking whether the database is back.",
+            ConfigurateHelper::getLong
+    );
+
+    public static final ConfigurationKey<Integer> DATABASE_POOL_SIZE = new ConfigurationKey<>(
+            "database.pool-size",
+            10,
+            "The maximum amount of connections to the database. With the adaptive pool size, this is the size the pool starts with.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Boolean> DATABASE_ADAPTIVE_POOL_SIZE = new ConfigurationKey<>(
+            "database.adaptive-pool-size",
+            false,
+            "Whether to grow the pool when queries wait for a connection, and shrink it back when they do not.",
+            ConfigurateHelper::getBoolean
+    );
+
+    public static final ConfigurationKey<Integer> DATABASE_ADAPTIVE_POOL_MAXIMUM_SIZE = new ConfigurationKey<>(
+            "database.adaptive-pool-maximum-size",
+            30,
+            "The maximum size the adaptive pool can grow to. Mind the connection limit of your database.",
+            ConfigurateHelper::getInt
+    );
+
+    public static final ConfigurationKey<Long> DATABASE_LEAK_DETECTION_THRESHOLD = new ConfigurationKey<>(
+            "database.leak-detection-threshold",
+            0L,
+            "Connections held for longer than this many milliseconds are reported as possible leaks. 0 to disable.",
+            ConfigurateHelper::getLong
+    );
+
+    public static final ConfigurationKey<Long> DATABASE_SLOW_QUERY_THRESHOLD = new ConfigurationKey<>(
+            "database.slow-query-threshold",
+            500L,
+            "Database operations slower than this many milliseconds are logged. 0 to disable.",
+            ConfigurateHelper::getLong
+    );
+
     public static final ConfigurationKey<?> MIGRATION = ConfigurationKey.getComment(
             "migration",
             """
@@ -378,6 +453,18 @@ public class ConfigurationKeys {
             "The email to use as a sender in the From field.",
             ConfigurateHelper::getString
     );
+    public static final ConfigurationKey<Integer> MAIL_QUEUE_CAPACITY = new ConfigurationKey<>(
+            "mail.queue-capacity",
+            1000,
+            "The maximum amount of the mails waiting to be sent. The players are told the mail could not be sent when the queue is full.",
+            ConfigurateHelper::getInt
+    );
+    public static final ConfigurationKey<Integer> MAIL_MAX_ATTEMPTS = new ConfigurationKey<>(
+            "mail.max-attempts",
+            3,
+            "How many times we should try to send a mail before giving up. The delay between the attempts doubles each time, starting at 5 seconds.",
+            ConfigurateHelper::getInt
+    );
 
     private static final ConfigurationKey<?> MAIL = ConfigurationKey.getComment(
             "mail",
@@ -385,6 +472,103 @@ public class ConfigurationKeys {
                     This section is used for configuring the email password recovery feature.
                     """
     );
+    private static final ConfigurationKey<?> ADMISSION = ConfigurationKey.getComment(
+            "admission",
+            """
+                    This section is used for throttling connections before they are processed.
+                    Every connection takes a token from the bucket of its IP address, its subnet (/24 for IPv4, /64 for IPv6) and from the global bucket.
+                    If any of the buckets is empty, the connection is denied before any database or Mojang API request is made.
+                    """
+    );
+    public static final ConfigurationKey<Boolean> ADMISSION_ENABLED = new ConfigurationKey<>(
+            "admission.enabled",
+            false,
+            "Should we throttle connections? Disabled by default, enable it if the server is targeted by join floods.",
+            ConfigurateHelper::getBoolean
+    );
+    public static final ConfigurationKey<Integer> ADMISSION_ADDRESS_BURST = new ConfigurationKey<>(
+            "admission.address-burst",
+            5,
+            "How many connections can a single IP address make in a quick succession. Set to 0 or lower to disable the per-address limit.",
+            ConfigurateHelper::getInt
+    );
+    public static final ConfigurationKey<Integer> ADMISSION_ADDRESS_PER_MINUTE = new ConfigurationKey<>(
+            "admission.address-per-minute",
+            15,
+            "How many connections per minute can a single IP address make in the long run. Set to 0 or lower to disable the per-address limit.",
+            ConfigurateHelper::getInt
+    );
+    public static final ConfigurationKey<Integer> ADMISSION_SUBNET_BURST = new ConfigurationKey<>(
+            "admission.subnet-burst",
+            20,
+            "How many connections can a single subnet make in a quick succession. Set to 0 or lower to disable the per-subnet limit.",
+            ConfigurateHelper::getInt
+    );
+    public static final ConfigurationKey<Integer> ADMISSION_SUBNET_PER_MINUTE = new ConfigurationKey<>(
+            "admission.subnet-per-minute",
+            60,
+            "How many connections per minute can a single subnet make in the long run. Set to 0 or lower to disable the per-subnet limit.",
+            ConfigurateHelper::getInt
+    );
+    public static final ConfigurationKey<Integer> ADMISSION_GLOBAL_PER_SECOND = new ConfigurationKey<>(
+            "admission.global-per-second",
+            50,
+            "How many connections per second are accepted in total. Set to 0 or lower to disable the global limit.",
+            ConfigurateHelper::getInt
+    );
+    private static final ConfigurationKey<?> LOGIN_ATTEMPTS = ConfigurationKey.getComment(
+            "login-attempts",
+            """
+                    This section is used for locking out brute-force attempts, in addition to max-login-attempts, which is counted per account.
+                    The failed attempts are counted within milliseconds-to-refresh-login-attempts, per IP address and per subnet (/24 for IPv4, /64 for IPv6).
+                    While locked out, connections from the address or the subnet are denied before any database or Mojang API request is made.
+                    """
+    );
+    public static final ConfigurationKey<Integer> LOGIN_ATTEMPTS_ADDRESS_LIMIT = new ConfigurationKey<>(
+            "login-attempts.address-limit",
+            -1,
+            "How many failed attempts can a single IP address make within the window. -1 means disabled",
+            ConfigurateHelper::getInt
+    );
+    public static final ConfigurationKey<Integer> LOGIN_ATTEMPTS_SUBNET_LIMIT = new ConfigurationKey<>(
+            "login-attempts.subnet-limit",
+            -1,
+            "How many failed attempts can a single subnet make within the window. -1 means disabled",
+            ConfigurateHelper::getInt
+    );
+    public static final ConfigurationKey<Integer> LOGIN_ATTEMPTS_SYNC_MILLIS = new ConfigurationKey<>(
+            "login-attempts.sync-millis",
+            0,
+            """
+                    How often should the failed attempts be shared with the other proxies through the database. 0 means disabled.
+                    Only the SQL databases are supported. All the proxies must use the same milliseconds-to-refresh-login-attempts.""",
+            ConfigurateHelper::getInt
+    );
+    private static final ConfigurationKey<?> METRICS = ConfigurationKey.getComment(
+            "metrics",
+            """
+                    This section is used for exporting the metrics of the plugin, e.g. the latency of the login phases and of the database.
+                    The metrics are always included in /librelogin dump.
+                    """
+    );
+    public static final ConfigurationKey<Boolean> METRICS_PROMETHEUS_ENABLED = new ConfigurationKey<>(
+            "metrics.prometheus.enabled",
+            false,
+            "Should we serve the metrics in the Prometheus format on http://<address>:<port>/metrics?",
+            ConfigurateHelper::getBoolean
+    );
+    public static final ConfigurationKey<String> METRICS_PROMETHEUS_ADDRESS = new ConfigurationKey<>(
+            "metrics.prometheus.address",
+            "127.0.0.1",
+            "The address to listen on. Do not expose the endpoint to the internet.",
+            ConfigurateHelper::getString
+    );
+    public static final ConfigurationKey<Integer> METRICS_PROMETHEUS_PORT = new ConfigurationKey<>(
+            "metrics.prometheus.port",
+            9225,
+            "The port to listen on.",
+            ConfigurateHelper::getInt
+    );
     public static final ConfigurationKey<Boolean> ALLOW_PROXY_CONNECTIONS = new ConfigurationKey<>(
             "allow-proxy-connections",
             true,
@@ -79,6 +79,45 @@ public class MessageKeys {
             ConfigurateHelper::getString
     );
 
+    /*
+    Kicks related to connection throttling
+     */
+
+    public static final ConfigurationKey<String> KICK_ADMISSION_ADDRESS = new ConfigurationKey<>(
+            "kick-admission-address",
+            "You are connecting too fast, please wait a moment before trying again!",
+            "This message is displayed when the player's IP address has made too many connections in a short time.",
+            ConfigurateHelper::getString
+    );
+
+    public static final ConfigurationKey<String> KICK_ADMISSION_SUBNET = new ConfigurationKey<>(
+            "kick-admission-subnet",
+            "Too many connections from your network, please wait a moment before trying again!",
+            "This message is displayed when the player's subnet has made too many connections in a short time.",
+            ConfigurateHelper::getString
+    );
+
+    public static final ConfigurationKey<String> KICK_ADMISSION_GLOBAL = new ConfigurationKey<>(
+            "kick-admission-global",
+            "The server is receiving too many connections right now, please try again in a moment!",
+            "This message is displayed when the server as a whole is receiving too many connections.",
+            ConfigurateHelper::getString
+    );
+
+    public static final ConfigurationKey<String> KICK_LOGIN_ATTEMPTS_LOCKED = new ConfigurationKey<>(
+            "kick-login-attempts-locked",
+            "Too many failed login attempts, please wait a while before trying again!",
+            "This message is displayed when the player's account, IP address or subnet has failed to log in too many times.",
+            ConfigurateHelper::getString
+    );
+
+    public static final ConfigurationKey<String> KICK_DATABASE_UNAVAILABLE = new ConfigurationKey<>(
+            "kick-database-unavailable",
+            "We are experiencing database issues, please try joining again in a while!",
+            "This message is displayed when the database is unavailable and the player cannot be loaded from the cache.",
+            ConfigurateHelper::getString
+    );
+
     public static final ConfigurationKey<String> KICK_NAME_MISMATCH = new ConfigurationKey<>(
             "kick-name-mismatch",
             "Oh no! It looks like an premium user with activated auto login changed their nickname to %nickname%, therefore there are 2 colliding accounts. Please contact support immediately.",
@@ -0,0 +1,57 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.crypto;
+
+import org.jetbrains.annotations.Nullable;
+import xyz.kyngs.librelogin.api.crypto.CryptoProvider;
+import xyz.kyngs.librelogin.api.crypto.HashedPassword;
+import xyz.kyngs.librelogin.common.jfr.CryptoEvent;
+
+/**
+ * Emits a {@link CryptoEvent} for every call of the wrapped provider, so that the third-party providers are recorded too.
+ */
+public class RecordingCryptoProvider implements CryptoProvider {
+
+    private final CryptoProvider provider;
+
+    public RecordingCryptoProvider(CryptoProvider provider) {
+        this.provider = provider;
+    }
+
+    @Nullable
+    @Override
+    public HashedPassword createHash(String password) {
+        var event = new CryptoEvent();
+
+        event.begin();
+        var hash = provider.createHash(password);
+        event.complete(provider.getIdentifier(), CryptoEvent.CREATE_HASH, hash != null);
+
+        return hash;
+    }
+
+    @Override
+    public boolean matches(String input, HashedPassword password) {
+        var event = new CryptoEvent();
+
+        event.begin();
+        var matches = provider.matches(input, password);
+        event.complete(provider.getIdentifier(), CryptoEvent.MATCHES, matches);
+
+        return matches;
+    }
+
+    @Override
+    public String getIdentifier() {
+        return provider.getIdentifier();
+    }
+
+    public CryptoProvider getProvider() {
+        return provider;
+    }
+
+}
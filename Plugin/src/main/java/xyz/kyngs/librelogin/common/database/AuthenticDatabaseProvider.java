@@ -9,18 +9,40 @@ package xyz.kyngs.librelogin.common.database;
 import xyz.kyngs.librelogin.api.database.ReadWriteDatabaseProvider;
 import xyz.kyngs.librelogin.api.database.connector.DatabaseConnector;
 import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
+import xyz.kyngs.librelogin.common.metrics.OperationMetrics;
+
+import java.util.concurrent.Executor;
+
+import static xyz.kyngs.librelogin.common.config.ConfigurationKeys.DATABASE_SLOW_QUERY_THRESHOLD;
 
 public abstract class AuthenticDatabaseProvider<C extends DatabaseConnector<?, ?>> implements ReadWriteDatabaseProvider {
 
     protected final C connector;
     protected final AuthenticLibreLogin<?, ?> plugin;
+    protected final OperationMetrics metrics;
 
     protected AuthenticDatabaseProvider(C connector, AuthenticLibreLogin<?, ?> plugin) {
         this.connector = connector;
         this.plugin = plugin;
+        this.metrics = new OperationMetrics(plugin.getLogger(), plugin.getConfiguration().get(DATABASE_SLOW_QUERY_THRESHOLD));
+    }
+
+    public OperationMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public Executor getExecutor() {
+        return AuthenticLibreLogin.EXECUTOR;
     }
 
     public void validateSchema() {
     }
 
+    /**
+     * Prepares the provider to be read from as the source of a migration. Unlike {@link #validateSchema()}, this never writes to the database.
+     */
+    public void prepareForReading() {
+    }
+
 }
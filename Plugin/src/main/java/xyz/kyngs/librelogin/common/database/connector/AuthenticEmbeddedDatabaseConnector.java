@@ -0,0 +1,93 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.database.connector;
+
+import xyz.kyngs.librelogin.api.util.ThrowableFunction;
+import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
+import xyz.kyngs.librelogin.common.config.ConfigurateHelper;
+import xyz.kyngs.librelogin.common.config.key.ConfigurationKey;
+import xyz.kyngs.librelogin.common.database.embedded.EmbeddedUserStore;
+import xyz.kyngs.librelogin.common.util.CancellableTask;
+
+import java.io.IOException;
+
+/**
+ * Connects to the embedded user store, a single file in the plugin's data folder, which does not need any external database.
+ */
+public class AuthenticEmbeddedDatabaseConnector extends AuthenticDatabaseConnector<IOException, EmbeddedUserStore> {
+
+    private EmbeddedUserStore store;
+    private CancellableTask compaction;
+
+    public AuthenticEmbeddedDatabaseConnector(AuthenticLibreLogin<?, ?> plugin, String prefix) {
+        super(plugin, prefix);
+    }
+
+    @Override
+    public void connect() throws IOException {
+        store = EmbeddedUserStore.open(plugin.getDataFolder().toPath().resolve(get(Configuration.PATH)), plugin.getLogger());
+        connected = true;
+
+        var interval = get(Configuration.COMPACTION_INTERVAL);
+        compaction = plugin.repeat(this::compactIfNeeded, interval, interval);
+    }
+
+    @Override
+    public void disconnect() throws IOException {
+        connected = false;
+        if (compaction != null) compaction.cancel();
+        store.close();
+    }
+
+    @Override
+    public EmbeddedUserStore obtainInterface() throws IllegalStateException {
+        if (!connected()) throw new IllegalStateException("Not connected to the database!");
+        return store;
+    }
+
+    @Override
+    public <V> V runQuery(ThrowableFunction<EmbeddedUserStore, V, IOException> function) throws IllegalStateException {
+        try {
+            return function.apply(obtainInterface());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (!connected()) return;
+
+        try {
+            if (store.shouldCompact(get(Configuration.COMPACTION_MINIMUM_GARBAGE))) store.compact();
+        } catch (IOException e) {
+            plugin.getLogger().error("Failed to compact the user log, it will be retried later", e);
+        }
+    }
+
+    public static final class Configuration {
+        public static final ConfigurationKey<String> PATH = new ConfigurationKey<>(
+                "path",
+                "user-data.log",
+                "Path to the user log. Relative to plugin datafolder.",
+                ConfigurateHelper::getString
+        );
+
+        public static final ConfigurationKey<Long> COMPACTION_INTERVAL = new ConfigurationKey<>(
+                "compaction-interval",
+                600000L,
+                "How often in milliseconds should we check, whether the user log needs to be compacted.",
+                ConfigurateHelper::getLong
+        );
+
+        public static final ConfigurationKey<Long> COMPACTION_MINIMUM_GARBAGE = new ConfigurationKey<>(
+                "compaction-minimum-garbage",
+                8388608L,
+                "The log is compacted once it contains more outdated data than live data, and at least this many bytes of outdated data.",
+                ConfigurateHelper::getLong
+        );
+    }
+}
@@ -0,0 +1,455 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.database.connector;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.jetbrains.annotations.Nullable;
+import xyz.kyngs.librelogin.api.util.ThrowableFunction;
+import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
+import xyz.kyngs.librelogin.common.database.DatabaseUnavailableException;
+import xyz.kyngs.librelogin.common.util.CancellableTask;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static xyz.kyngs.librelogin.common.config.ConfigurationKeys.*;
+
+/**
+ * Base for all the connectors backed by a Hikari pool.<br>
+ * Transient failures are retried with a jittered exponential backoff. When the failures do not stop, the circuit breaker opens
+ * and the connector enters a degraded mode, in which queries fail fast with {@link DatabaseUnavailableException} until a probe succeeds.
+ */
+public abstract class AuthenticHikariDatabaseConnector extends AuthenticDatabaseConnector<SQLException, Connection> {
+
+    private static final long ADAPTIVE_SIZING_INTERVAL = 15000;
+    private static final long ADAPTIVE_GROW_WAIT_NANOS = 5_000_000;
+    private static final long ADAPTIVE_SHRINK_WAIT_NANOS = 500_000;
+
+    protected final HikariConfig hikariConfig;
+    private final CircuitBreaker circuitBreaker;
+    /**
+     * Opens after a single failure, while open, the reads skip the replicas instead of waiting for the connection timeout.
+     */
+    private final CircuitBreaker replicaBreaker;
+    private final List<Runnable> recoveryListeners;
+    private final int retryAttempts;
+    private final long retryDelay;
+    private HikariDataSource dataSource;
+    @Nullable
+    private HikariConfig replicaConfig;
+    @Nullable
+    private HikariDataSource replicaSource;
+    private long replicaConsistencyWindow;
+    private final List<HikariPoolMetrics> poolMetrics;
+    private final int poolSize;
+    private final int adaptiveMaximumSize;
+    @Nullable
+    private CancellableTask adaptiveSizing;
+
+    public AuthenticHikariDatabaseConnector(AuthenticLibreLogin<?, ?> plugin, String prefix) {
+        super(plugin, prefix);
+
+        var configuration = plugin.getConfiguration();
+
+        this.hikariConfig = new HikariConfig();
+        this.circuitBreaker = new CircuitBreaker(configuration.get(DATABASE_CIRCUIT_BREAKER_THRESHOLD), configuration.get(DATABASE_CIRCUIT_BREAKER_DURATION));
+        this.replicaBreaker = new CircuitBreaker(1, configuration.get(DATABASE_CIRCUIT_BREAKER_DURATION));
+        this.recoveryListeners = new CopyOnWriteArrayList<>();
+        this.retryAttempts = Math.max(1, configuration.get(DATABASE_RETRY_ATTEMPTS));
+        this.retryDelay = configuration.get(DATABASE_RETRY_DELAY);
+        this.poolMetrics = new CopyOnWriteArrayList<>();
+        this.poolSize = Math.max(1, configuration.get(DATABASE_POOL_SIZE));
+        this.adaptiveMaximumSize = configuration.get(DATABASE_ADAPTIVE_POOL_SIZE) ? Math.max(poolSize, configuration.get(DATABASE_ADAPTIVE_POOL_MAXIMUM_SIZE)) : poolSize;
+
+        hikariConfig.setConnectionTimeout(configuration.get(DATABASE_CONNECTION_TIMEOUT));
+        hikariConfig.setMaximumPoolSize(poolSize);
+        hikariConfig.setLeakDetectionThreshold(configuration.get(DATABASE_LEAK_DETECTION_THRESHOLD));
+        // Copied to the replica pool as well, every pool gets its own metrics
+        hikariConfig.setMetricsTrackerFactory((poolName, poolStats) -> {
+            var metrics = new HikariPoolMetrics(poolName, poolStats, hikariConfig.getMaximumPoolSize());
+            poolMetrics.add(metrics);
+            return metrics;
+        });
+        hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
+        hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
+        hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+    }
+
+    /**
+     * Configures a second, read-only pool for the replicas. Must be called after the primary pool has been configured, as the settings are copied from it.
+     *
+     * @param hosts             The replicas in the host:port format, if empty, no replica pool is created
+     * @param jdbcUrl           The JDBC URL of the replicas, %hosts% is replaced with the comma separated hosts
+     * @param consistencyWindow For how long in milliseconds after a write should the written data be read from the primary
+     */
+    protected void setupReplicas(List<String> hosts, String jdbcUrl, long consistencyWindow) {
+        if (hosts.isEmpty()) return;
+
+        replicaConfig = new HikariConfig();
+        hikariConfig.copyStateTo(replicaConfig);
+
+        replicaConfig.setPoolName(hikariConfig.getPoolName() + " (Replicas)");
+        replicaConfig.setJdbcUrl(jdbcUrl.replace("%hosts%", String.join(",", hosts)));
+        replicaConfig.setReadOnly(true);
+
+        replicaConsistencyWindow = consistencyWindow;
+    }
+
+    @Override
+    public void connect() throws SQLException {
+        poolMetrics.clear();
+        dataSource = new HikariDataSource(hikariConfig);
+        obtainInterface().close(); //Verify connection
+        connected = true;
+
+        if (adaptiveMaximumSize > hikariConfig.getMaximumPoolSize()) {
+            adaptiveSizing = plugin.repeat(this::adjustPoolSize, ADAPTIVE_SIZING_INTERVAL, ADAPTIVE_SIZING_INTERVAL);
+        }
+
+        if (replicaConfig != null) {
+            try {
+                replicaSource = new HikariDataSource(replicaConfig);
+                replicaSource.getConnection().close();
+            } catch (Exception e) {
+                plugin.getLogger().warn("Failed to connect to the read replicas, all queries will go to the primary database", e);
+                if (replicaSource != null) replicaSource.close();
+                replicaSource = null;
+            }
+        }
+    }
+
+    @Override
+    public void disconnect() throws SQLException {
+        connected = false;
+        if (adaptiveSizing != null) adaptiveSizing.cancel();
+        dataSource.close();
+        if (replicaSource != null) replicaSource.close();
+    }
+
+    @Override
+    public Connection obtainInterface() throws SQLException, IllegalStateException {
+        if (!connected()) throw new IllegalStateException("Not connected to the database!");
+        return dataSource.getConnection();
+    }
+
+    /**
+     * Runs the query, retrying it only when it certainly had no effect. Use {@link #runIdempotentQuery(ThrowableFunction)} for queries, which may run twice.
+     */
+    @Override
+    public <V> V runQuery(ThrowableFunction<Connection, V, SQLException> function) throws IllegalStateException {
+        return run(function, false);
+    }
+
+    /**
+     * Runs a query, which has the same effect no matter how many times it runs, e.g. a read.
+     * Unlike {@link #runQuery(ThrowableFunction)}, it is retried also after a transient failure with an unknown outcome, such as a timeout.
+     *
+     * @param function The function to run
+     * @param <V>      The return type of the function
+     * @return The result of the function
+     */
+    public <V> V runIdempotentQuery(ThrowableFunction<Connection, V, SQLException> function) {
+        return run(function, true);
+    }
+
+    private <V> V run(ThrowableFunction<Connection, V, SQLException> function, boolean idempotent) {
+        if (!circuitBreaker.allow()) {
+            throw new DatabaseUnavailableException("The database is unavailable, LibreLogin is running in degraded mode");
+        }
+
+        return execute(function, idempotent);
+    }
+
+    /**
+     * Runs the query without asking the circuit breaker, which the caller has done already.
+     */
+    private <V> V execute(ThrowableFunction<Connection, V, SQLException> function, boolean idempotent) {
+        SQLException last = null;
+
+        for (int attempt = 0; attempt < retryAttempts; attempt++) {
+            if (attempt > 0) backoff(attempt);
+
+            var started = false;
+
+            try {
+                V result;
+                try (var connection = obtainInterface()) {
+                    started = true;
+                    result = function.apply(connection);
+                }
+                onSuccess();
+                return result;
+            } catch (SQLException e) {
+                last = e;
+
+                if (isRetryable(e, started, idempotent)) continue;
+
+                // The database could not be reached, or the outcome is unknown, e.g. the statement timed out or the connection dropped after a commit
+                if (e instanceof SQLTransientException || isConnectionFailure(e)) break;
+
+                // The database answered, it is just the query which is wrong
+                onSuccess();
+                throw new RuntimeException(e);
+            } catch (RuntimeException e) {
+                onSuccess();
+                throw e;
+            }
+        }
+
+        if (circuitBreaker.onFailure()) {
+            plugin.getLogger().error("!! LOST CONNECTION TO THE DATABASE, LIBRELOGIN IS RUNNING IN DEGRADED MODE !!");
+            plugin.getLogger().error("Players who are already connected can continue playing, however, new players cannot join until the connection is restored.");
+        }
+
+        if (circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+            plugin.delay(this::probe, circuitBreaker.getOpenDuration());
+        }
+
+        throw new DatabaseUnavailableException("Failed to reach the database", last);
+    }
+
+    /**
+     * A transient exception alone does not mean, that the operation had no effect. A timeout or a dropped connection may come right after the commit,
+     * and repeating a non-idempotent write, e.g. an insert, would apply it twice.
+     *
+     * @param started Whether the connection has been obtained, and therefore the operation might have reached the database
+     * @return true, if the operation may be run again
+     */
+    private static boolean isRetryable(SQLException exception, boolean started, boolean idempotent) {
+        // Not retried even if nothing ran, the database is down and the retries would only delay the degraded mode
+        if (isConnectionFailure(exception)) return false;
+
+        if (!started || idempotent) return exception instanceof SQLTransientException;
+
+        return isRolledBack(exception);
+    }
+
+    /**
+     * @return true, if the database reported, that it rolled the transaction back, e.g. because of a deadlock or a serialization failure
+     */
+    private static boolean isRolledBack(SQLException exception) {
+        if (exception instanceof SQLTransactionRollbackException) return true;
+
+        var state = exception.getSQLState();
+
+        return state != null && state.startsWith("40");
+    }
+
+    /**
+     * Not every driver reports a lost connection as a transient exception, e.g. PostgreSQL uses a plain exception with the 08 SQLState class,
+     * and MariaDB uses {@link SQLNonTransientConnectionException}.
+     *
+     * @return true, if the exception, or any of its causes, means that the database could not be reached
+     */
+    static boolean isConnectionFailure(SQLException exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLNonTransientConnectionException || cause instanceof SQLRecoverableException) return true;
+            if (cause instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("08")) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Runs a query, which writes using single statements only and does not manage the transaction itself.
+     * Connectors may group several such queries into a single transaction.
+     *
+     * @param function The function to run
+     * @param <V>      The return type of the function
+     * @return The result of the function, once it is committed
+     */
+    public <V> V runWriteQuery(ThrowableFunction<Connection, V, SQLException> function) {
+        return runQuery(function);
+    }
+
+    /**
+     * Runs a query, which may manage its own transaction, e.g. by disabling auto-commit.
+     *
+     * @param function The function to run
+     * @param <V>      The return type of the function
+     * @return The result of the function
+     */
+    public <V> V runTransaction(ThrowableFunction<Connection, V, SQLException> function) {
+        return runQuery(function);
+    }
+
+    /**
+     * Runs a read-only query on one of the replicas. If there are no replicas, or the replica fails, the query is run on the primary instead.
+     * Once the replicas cannot be reached, they are skipped until a background probe succeeds.
+     * The replicas may lag behind the primary, callers must not use this for data they have just written.
+     *
+     * @param function The function to run, must not modify anything
+     * @param <V>      The return type of the function
+     * @return The result of the function
+     */
+    public <V> V runReadQuery(ThrowableFunction<Connection, V, SQLException> function) {
+        var replicas = replicaSource;
+
+        // Not allow(), the probe is left to probeReplicas, so that no player waits for it
+        if (replicas == null || replicaBreaker.getState() != CircuitBreaker.State.CLOSED) return runIdempotentQuery(function);
+
+        try (var connection = replicas.getConnection()) {
+            return function.apply(connection);
+        } catch (SQLException e) {
+            if (e instanceof SQLTransientException || isConnectionFailure(e)) {
+                onReplicaFailure(e);
+            } else {
+                plugin.getLogger().debug("Read replica failed, falling back to the primary database", e);
+            }
+            return runIdempotentQuery(function);
+        }
+    }
+
+    private void onReplicaFailure(SQLException exception) {
+        if (replicaBreaker.onFailure()) {
+            plugin.getLogger().warn("Lost connection to the read replicas, all queries will go to the primary database until they are back", exception);
+        }
+
+        if (replicaBreaker.getState() == CircuitBreaker.State.OPEN) {
+            plugin.delay(this::probeReplicas, replicaBreaker.getOpenDuration());
+        }
+    }
+
+    private void probeReplicas() {
+        var replicas = replicaSource;
+
+        if (replicas == null || replicaBreaker.getState() == CircuitBreaker.State.CLOSED) return;
+
+        if (!replicaBreaker.allow()) {
+            // Fired too early, the delay is rounded to ticks on some platforms. Nothing else calls allow(), so without this the replicas would stay skipped.
+            // If half-open, another probe is running and schedules the next one itself
+            if (replicaBreaker.getState() == CircuitBreaker.State.OPEN) {
+                plugin.delay(this::probeReplicas, Math.max(1, replicaBreaker.getRemainingOpenTime()));
+            }
+            return;
+        }
+
+        try (var connection = replicas.getConnection()) {
+            if (!connection.isValid(1)) throw new SQLException("The replica connection is not valid");
+        } catch (SQLException e) {
+            onReplicaFailure(e);
+            return;
+        }
+
+        if (replicaBreaker.onSuccess()) {
+            plugin.getLogger().info("Connection to the read replicas has been restored");
+        }
+    }
+
+    /**
+     * @return The metrics of the primary pool, followed by the replica pool, if any
+     */
+    public List<HikariPoolMetrics> getPoolMetrics() {
+        return poolMetrics;
+    }
+
+    /**
+     * Grows the primary pool when the queries waited for a connection since the last adjustment, and shrinks it back towards the configured size when the pool is mostly idle.
+     */
+    private void adjustPoolSize() {
+        if (!connected() || poolMetrics.isEmpty()) return;
+
+        var metrics = poolMetrics.get(0);
+        var wait = metrics.getRecentConnectionWait();
+        var p95 = wait.quantile(0.95);
+        wait.reset();
+
+        var pool = dataSource.getHikariConfigMXBean();
+        var current = pool.getMaximumPoolSize();
+        var stats = metrics.getStats();
+        int updated;
+
+        if (p95 > ADAPTIVE_GROW_WAIT_NANOS && current < adaptiveMaximumSize) {
+            updated = Math.min(adaptiveMaximumSize, current + Math.max(1, current / 4));
+        } else if (p95 < ADAPTIVE_SHRINK_WAIT_NANOS && stats.getPendingThreads() == 0 && stats.getActiveConnections() < current / 2 && current > poolSize) {
+            updated = current - 1;
+        } else {
+            return;
+        }
+
+        pool.setMaximumPoolSize(updated);
+        metrics.setMaximumSize(updated);
+
+        plugin.getLogger().debug("Resized the database pool from %s to %s connections, 95th percentile of the connection wait was %s ms".formatted(current, updated, p95 / 1_000_000d));
+    }
+
+    /**
+     * @return true, if reads are routed to replicas
+     */
+    public boolean hasReplicas() {
+        return replicaSource != null;
+    }
+
+    /**
+     * @return For how long in milliseconds after a write should the written data be read from the primary
+     */
+    public long getReplicaConsistencyWindow() {
+        return replicaConsistencyWindow;
+    }
+
+    /**
+     * @return true, if the circuit breaker is not closed, and therefore the queries are being rejected
+     */
+    public boolean isDegraded() {
+        return circuitBreaker.getState() != CircuitBreaker.State.CLOSED;
+    }
+
+    /**
+     * Registers a listener, which is called asynchronously every time the connection is restored after a failure.
+     *
+     * @param listener The listener
+     */
+    public void onRecovery(Runnable listener) {
+        recoveryListeners.add(listener);
+    }
+
+    private void onSuccess() {
+        if (circuitBreaker.onSuccess()) {
+            plugin.getLogger().info("Connection to the database has been restored");
+            for (Runnable listener : recoveryListeners) {
+                AuthenticLibreLogin.EXECUTOR.execute(listener);
+            }
+        }
+    }
+
+    private void probe() {
+        if (circuitBreaker.getState() == CircuitBreaker.State.CLOSED) return;
+
+        if (!circuitBreaker.allow()) {
+            // Fired too early, or another query is probing right now. Rescheduled anyway, on an idle proxy nothing else would
+            var delay = circuitBreaker.getState() == CircuitBreaker.State.OPEN ? circuitBreaker.getRemainingOpenTime() : circuitBreaker.getOpenDuration();
+            plugin.delay(this::probe, Math.max(1, delay));
+            return;
+        }
+
+        try {
+            execute(connection -> connection.isValid(1), true);
+        } catch (DatabaseUnavailableException ignored) {
+            // Still down, execute has scheduled the next probe
+        }
+    }
+
+    private void backoff(int attempt) {
+        // Full jitter, spreads the retries of all the waiting threads so that they don't hit the recovering database at once
+        var delay = ThreadLocalRandom.current().nextLong(retryDelay * (1L << (attempt - 1)) + 1);
+
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -6,33 +6,20 @@
 
 package xyz.kyngs.librelogin.common.database.connector;
 
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
 import xyz.kyngs.librelogin.api.database.connector.PostgreSQLDatabaseConnector;
-import xyz.kyngs.librelogin.api.util.ThrowableFunction;
 import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
 import xyz.kyngs.librelogin.common.config.ConfigurateHelper;
 import xyz.kyngs.librelogin.common.config.key.ConfigurationKey;
 
-import java.sql.Connection;
-import java.sql.SQLException;
-import java.sql.SQLTransientConnectionException;
+import java.util.List;
 
-public class AuthenticPostgreSQLDatabaseConnector extends AuthenticDatabaseConnector<SQLException, Connection> implements PostgreSQLDatabaseConnector {
-
-    private final HikariConfig hikariConfig;
-    private HikariDataSource dataSource;
+public class AuthenticPostgreSQLDatabaseConnector extends AuthenticHikariDatabaseConnector implements PostgreSQLDatabaseConnector {
 
     public AuthenticPostgreSQLDatabaseConnector(AuthenticLibreLogin<?, ?> plugin, String prefix) {
         super(plugin, prefix);
 
-        this.hikariConfig = new HikariConfig();
-
         hikariConfig.setPoolName("LibreLogin PostgreSQL Pool");
         hikariConfig.setDriverClassName("org.postgresql.Driver");
-        hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
         hikariConfig.setUsername(get(Configuration.USER));
         hikariConfig.setPassword(get(Configuration.PASSWORD));
         hikariConfig.setJdbcUrl(get(Configuration.JDBC_URL)
@@ -41,42 +28,12 @@ public class AuthenticPostgreSQLDatabaseConnector extends AuthenticDatabaseConne
                 .replace("%database%", get(Configuration.NAME))
         );
         hikariConfig.setMaxLifetime(get(Configuration.MAX_LIFE_TIME));
-    }
-
-    @Override
-    public void connect() throws SQLException {
-        dataSource = new HikariDataSource(hikariConfig);
-        obtainInterface().close(); //Verify connection
-        connected = true;
-    }
-
-    @Override
-    public void disconnect() throws SQLException {
-        connected = false;
-        dataSource.close();
-    }
-
-    @Override
-    public Connection obtainInterface() throws SQLException, IllegalStateException {
-        if (!connected()) throw new IllegalStateException("Not connected to the database!");
-        return dataSource.getConnection();
-    }
 
-    @Override
-    public <V> V runQuery(ThrowableFunction<Connection, V, SQLException> function) throws IllegalStateException {
-        try {
-            try (var connection = obtainInterface()) {
-                return function.apply(connection);
-            }
-        } catch (SQLTransientConnectionException e) {
-            plugin.getLogger().error("!! LOST CONNECTION TO THE DATABASE, THE PROXY IS GOING TO SHUT DOWN TO PREVENT DAMAGE !!");
-            e.printStackTrace();
-            System.exit(1);
-            //Won't return anyway
-            return null;
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        setupReplicas(
+                get(Configuration.REPLICA_HOSTS),
+                get(Configuration.REPLICA_JDBC_URL).replace("%database%", get(Configuration.NAME)),
+                get(Configuration.REPLICA_CONSISTENCY_WINDOW)
+        );
     }
 
     public static final class Configuration {
@@ -129,5 +86,26 @@ public class AuthenticPostgreSQLDatabaseConnector extends AuthenticDatabaseConne
                 "The JDBC URL of the database. Don't touch this if you don't know what you're doing.",
                 ConfigurateHelper::getString
         );
+
+        public static final ConfigurationKey<List<String>> REPLICA_HOSTS = new ConfigurationKey<>(
+                "replica-hosts",
+                List.of(),
+                "The read replicas of the database in the host:port format. Lookups of players are load balanced across the replicas, everything else goes to the primary database. Leave empty to disable.",
+                ConfigurateHelper::getStringList
+        );
+
+        public static final ConfigurationKey<String> REPLICA_JDBC_URL = new ConfigurationKey<>(
+                "replica-jdbc-url",
+                "jdbc:postgresql://%hosts%/%database%?loadBalanceHosts=true&targetServerType=preferSecondary",
+                "The JDBC URL of the read replicas. Don't touch this if you don't know what you're doing.",
+                ConfigurateHelper::getString
+        );
+
+        public static final ConfigurationKey<Long> REPLICA_CONSISTENCY_WINDOW = new ConfigurationKey<>(
+                "replica-consistency-window",
+                5000L,
+                "For how long in milliseconds after a player is modified should the player be read from the primary database. Should be longer than the replication lag of your replicas.",
+                ConfigurateHelper::getLong
+        );
     }
 }
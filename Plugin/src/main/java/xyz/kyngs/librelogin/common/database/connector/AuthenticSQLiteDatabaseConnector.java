@@ -6,8 +6,6 @@
 
 package xyz.kyngs.librelogin.common.database.connector;
 
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
 import xyz.kyngs.librelogin.api.database.connector.SQLiteDatabaseConnector;
 import xyz.kyngs.librelogin.api.util.ThrowableFunction;
 import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
@@ -16,64 +14,221 @@ import xyz.kyngs.librelogin.common.config.key.ConfigurationKey;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
-public class AuthenticSQLiteDatabaseConnector extends AuthenticDatabaseConnector<SQLException, Connection> implements SQLiteDatabaseConnector {
+/**
+ * SQLite allows only a single writer at a time. Instead of letting the threads fight over the file lock, all the writes are handed over to a dedicated writer thread.
+ * The writer commits all the queued single-statement writes in a single transaction, which costs a single fsync instead of one per write.
+ * With WAL journaling, the reads are served by the pool concurrently with the writer.
+ */
+public class AuthenticSQLiteDatabaseConnector extends AuthenticHikariDatabaseConnector implements SQLiteDatabaseConnector {
 
-    private final HikariConfig hikariConfig;
-    private HikariDataSource dataSource;
+    private final boolean concurrent;
+    private final int groupCommitSize;
+    private final BlockingQueue<Write<?>> writes;
+    /**
+     * Guards the hand-over of the writes, so that no write is queued once the writer has been told to stop.
+     */
+    private final Object submission;
+    private volatile Thread writer;
 
     public AuthenticSQLiteDatabaseConnector(AuthenticLibreLogin<?, ?> plugin, String prefix) {
         super(plugin, prefix);
 
-        this.hikariConfig = new HikariConfig();
+        this.concurrent = get(Configuration.CONCURRENT_MODE);
+        this.groupCommitSize = Math.max(1, get(Configuration.GROUP_COMMIT_SIZE));
+        this.writes = new LinkedBlockingQueue<>();
+        this.submission = new Object();
 
         hikariConfig.setPoolName("LibreLogin SQLite Pool");
         hikariConfig.setDriverClassName("org.sqlite.JDBC");
         hikariConfig.setMaxLifetime(60000);
-        hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
 
         hikariConfig.setJdbcUrl("jdbc:sqlite:" + plugin.getDataFolder().getAbsolutePath() + "/" + get(Configuration.PATH));
+
+        if (concurrent) {
+            // The driver applies these as pragmas on every new connection
+            hikariConfig.addDataSourceProperty("journal_mode", "WAL");
+            hikariConfig.addDataSourceProperty("synchronous", "NORMAL");
+            hikariConfig.addDataSourceProperty("mmap_size", String.valueOf(get(Configuration.MMAP_SIZE)));
+            hikariConfig.addDataSourceProperty("busy_timeout", "5000");
+            // The readers, plus the connection of the writer
+            hikariConfig.setMaximumPoolSize(Math.max(1, get(Configuration.READ_POOL_SIZE)) + 1);
+        }
     }
 
     @Override
     public void connect() throws SQLException {
-        dataSource = new HikariDataSource(hikariConfig);
-        obtainInterface().close(); //Verify connection
-        connected = true;
+        super.connect();
+
+        if (concurrent) {
+            var thread = new Thread(this::runWriter, "LibreLogin SQLite Writer");
+            thread.setDaemon(true);
+            writer = thread;
+            thread.start();
+        }
     }
 
     @Override
     public void disconnect() throws SQLException {
-        connected = false;
-        dataSource.close();
+        Thread thread;
+
+        synchronized (submission) {
+            thread = writer;
+            writer = null;
+        }
+
+        if (thread != null) {
+            // The writer finishes the queued writes before it stops
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            // Left over, if the writer did not finish in time
+            Write<?> write;
+            while ((write = writes.poll()) != null) {
+                runExclusive(write);
+            }
+        }
+
+        super.disconnect();
     }
 
     @Override
-    public Connection obtainInterface() throws SQLException, IllegalStateException {
-        if (!connected()) throw new IllegalStateException("Not connected to the database!");
-        return dataSource.getConnection();
+    public <V> V runWriteQuery(ThrowableFunction<Connection, V, SQLException> function) {
+        return submit(function, true);
     }
 
     @Override
-    public <V> V runQuery(ThrowableFunction<Connection, V, SQLException> function) throws IllegalStateException {
+    public <V> V runTransaction(ThrowableFunction<Connection, V, SQLException> function) {
+        return submit(function, false);
+    }
+
+    private <V> V submit(ThrowableFunction<Connection, V, SQLException> function, boolean grouped) {
+        if (Thread.currentThread() == writer) return runQuery(function);
+
+        var write = new Write<>(function, grouped, new CompletableFuture<>());
+
+        synchronized (submission) {
+            if (writer == null) return runQuery(function);
+            writes.add(write);
+        }
+
+        try {
+            return write.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw e;
+        }
+    }
+
+    private void runWriter() {
+        while (writer != null || !writes.isEmpty()) {
+            Write<?> first;
+            try {
+                first = writes.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+
+            if (first == null) continue;
+
+            if (!first.grouped()) {
+                runExclusive(first);
+                continue;
+            }
+
+            var group = new ArrayList<Write<?>>();
+            group.add(first);
+
+            // This is the only consumer, so the peeked write is the one polled
+            while (group.size() < groupCommitSize) {
+                var next = writes.peek();
+                if (next == null || !next.grouped()) break;
+                group.add(writes.poll());
+            }
+
+            runGroup(group);
+        }
+    }
+
+    private <V> void runExclusive(Write<V> write) {
         try {
-            try (var connection = obtainInterface()) {
-                return function.apply(connection);
+            write.result().complete(runQuery(write.function()));
+        } catch (RuntimeException e) {
+            write.result().completeExceptionally(e);
+        }
+    }
+
+    private void runGroup(List<Write<?>> group) {
+        var results = new Object[group.size()];
+        var failures = new RuntimeException[group.size()];
+
+        try {
+            runQuery(connection -> {
+                var autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+
+                try {
+                    for (int i = 0; i < group.size(); i++) {
+                        // A failing write must not take the rest of the group down with it
+                        var savepoint = connection.setSavepoint();
+
+                        try {
+                            results[i] = group.get(i).function().apply(connection);
+                            failures[i] = null;
+                            connection.releaseSavepoint(savepoint);
+                        } catch (SQLException e) {
+                            connection.rollback(savepoint);
+                            failures[i] = new RuntimeException(e);
+                        } catch (RuntimeException e) {
+                            connection.rollback(savepoint);
+                            failures[i] = e;
+                        }
+                    }
+
+                    connection.commit();
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            });
+        } catch (RuntimeException e) {
+            for (Write<?> write : group) {
+                write.result().completeExceptionally(e);
             }
-        } catch (SQLTransientConnectionException e) {
-            plugin.getLogger().error("!! LOST CONNECTION TO THE DATABASE, THE PROXY IS GOING TO SHUT DOWN TO PREVENT DAMAGE !!");
-            e.printStackTrace();
-            System.exit(1);
-            //Won't return anyway
-            return null;
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+            return;
+        }
+
+        for (int i = 0; i < group.size(); i++) {
+            group.get(i).complete(results[i], failures[i]);
         }
     }
 
+    private record Write<V>(ThrowableFunction<Connection, V, SQLException> function, boolean grouped,
+                            CompletableFuture<V> result) {
+
+        @SuppressWarnings("unchecked")
+        private void complete(Object value, RuntimeException failure) {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete((V) value);
+            }
+        }
+
+    }
+
     public static final class Configuration {
         public static final ConfigurationKey<String> PATH = new ConfigurationKey<>(
                 "path",
@@ -81,5 +236,33 @@ public class AuthenticSQLiteDatabaseConnector extends AuthenticDatabaseConnector
                 "Path to SQLite database file. Relative to plugin datafolder.",
                 ConfigurateHelper::getString
         );
+
+        public static final ConfigurationKey<Boolean> CONCURRENT_MODE = new ConfigurationKey<>(
+                "concurrent-mode",
+                true,
+                "Whether to use WAL journaling, a pool of readers and a single writer thread, which commits the queued writes together. Greatly improves the throughput under load.",
+                ConfigurateHelper::getBoolean
+        );
+
+        public static final ConfigurationKey<Integer> READ_POOL_SIZE = new ConfigurationKey<>(
+                "read-pool-size",
+                4,
+                "The amount of connections used for reading in the concurrent mode.",
+                ConfigurateHelper::getInt
+        );
+
+        public static final ConfigurationKey<Integer> GROUP_COMMIT_SIZE = new ConfigurationKey<>(
+                "group-commit-size",
+                64,
+                "The maximum amount of writes committed together in the concurrent mode.",
+                ConfigurateHelper::getInt
+        );
+
+        public static final ConfigurationKey<Long> MMAP_SIZE = new ConfigurationKey<>(
+                "mmap-size",
+                268435456L,
+                "The maximum amount of bytes of the database file mapped into memory in the concurrent mode. Set to 0 to disable memory-mapped I/O.",
+                ConfigurateHelper::getLong
+        );
     }
 }
@@ -0,0 +1,102 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.database.connector;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Stops sending queries to a database, which keeps failing.<br>
+ * After a number of consecutive failures the breaker opens and all calls are rejected immediately. Once the open duration passes,
+ * a single probe call is let through. If it succeeds, the breaker closes again, otherwise it stays open for another period.<br>
+ * <b>This implementation is thread-safe.</b>
+ */
+public class CircuitBreaker {
+
+    private final int threshold;
+    private final long openDuration;
+    private final AtomicReference<State> state;
+    private final AtomicInteger failures;
+    /**
+     * In {@link System#nanoTime()}, which unlike the wall clock cannot jump.
+     */
+    private volatile long openedAt;
+
+    /**
+     * @param threshold    The amount of consecutive failures, after which the breaker opens
+     * @param openDuration The time in milliseconds the breaker stays open before letting a probe through
+     */
+    public CircuitBreaker(int threshold, long openDuration) {
+        this.threshold = threshold;
+        this.openDuration = openDuration;
+        this.state = new AtomicReference<>(State.CLOSED);
+        this.failures = new AtomicInteger();
+    }
+
+    /**
+     * @return true, if the call may proceed, false if it should be rejected
+     */
+    public boolean allow() {
+        return switch (state.get()) {
+            case CLOSED -> true;
+            case HALF_OPEN -> false;
+            case OPEN -> getRemainingOpenTime() == 0 && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+        };
+    }
+
+    /**
+     * @return true, if this success closed the breaker
+     */
+    public boolean onSuccess() {
+        failures.set(0);
+        return state.getAndSet(State.CLOSED) != State.CLOSED;
+    }
+
+    /**
+     * @return true, if this failure opened the breaker
+     */
+    public boolean onFailure() {
+        var current = state.get();
+
+        if (current == State.HALF_OPEN) {
+            openedAt = System.nanoTime();
+            state.set(State.OPEN);
+            return false;
+        }
+
+        if (current == State.CLOSED && failures.incrementAndGet() >= threshold) {
+            // Must be set before the state changes, otherwise a concurrent allow() could see a stale value
+            openedAt = System.nanoTime();
+            return state.compareAndSet(State.CLOSED, State.OPEN);
+        }
+
+        return false;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public long getOpenDuration() {
+        return openDuration;
+    }
+
+    /**
+     * @return The time in milliseconds until the open breaker lets a probe through, 0 if it would let it through now
+     */
+    public long getRemainingOpenTime() {
+        return Math.max(0, openDuration - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - openedAt));
+    }
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.database.connector;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+import xyz.kyngs.librelogin.api.metrics.PoolSnapshot;
+import xyz.kyngs.librelogin.common.metrics.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Receives the metrics of a single Hikari pool.
+ */
+public class HikariPoolMetrics implements IMetricsTracker {
+
+    private final String name;
+    private final PoolStats stats;
+    private final LatencyHistogram connectionWait;
+    private final LatencyHistogram connectionUsage;
+    /**
+     * The connection wait since the last adaptive sizing decision.
+     */
+    private final LatencyHistogram recentConnectionWait;
+    private final LongAdder timeouts;
+    private volatile int maximumSize;
+
+    public HikariPoolMetrics(String name, PoolStats stats, int maximumSize) {
+        this.name = name;
+        this.stats = stats;
+        this.maximumSize = maximumSize;
+        this.connectionWait = new LatencyHistogram();
+        this.connectionUsage = new LatencyHistogram();
+        this.recentConnectionWait = new LatencyHistogram();
+        this.timeouts = new LongAdder();
+    }
+
+    @Override
+    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+        connectionWait.record(elapsedAcquiredNanos);
+        recentConnectionWait.record(elapsedAcquiredNanos);
+    }
+
+    @Override
+    public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+        connectionUsage.record(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+    }
+
+    @Override
+    public void recordConnectionTimeout() {
+        timeouts.increment();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public PoolStats getStats() {
+        return stats;
+    }
+
+    public LatencyHistogram getConnectionWait() {
+        return connectionWait;
+    }
+
+    public LatencyHistogram getConnectionUsage() {
+        return connectionUsage;
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public LatencyHistogram getRecentConnectionWait() {
+        return recentConnectionWait;
+    }
+
+    void setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public PoolSnapshot snapshot() {
+        return new PoolSnapshot(
+                name,
+                stats.getActiveConnections(),
+                stats.getIdleConnections(),
+                stats.getPendingThreads(),
+                stats.getTotalConnections(),
+                maximumSize,
+                timeouts.sum(),
+                connectionWait.snapshot(),
+                connectionUsage.snapshot()
+        );
+    }
+
+}
@@ -0,0 +1,726 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.database.embedded;
+
+import org.jetbrains.annotations.Nullable;
+import xyz.kyngs.librelogin.api.Logger;
+import xyz.kyngs.librelogin.api.crypto.HashedPassword;
+import xyz.kyngs.librelogin.api.database.UnitOfWork;
+import xyz.kyngs.librelogin.api.database.User;
+import xyz.kyngs.librelogin.common.database.AuthenticUser;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * A storage of users, which keeps all the users in memory and persists them to an append-only log.
+ * <p>
+ * Every change appends a record to the log, the log is replayed on startup. Each record carries its length and a CRC32 checksum,
+ * so a record torn by a crash is detected and cut off during the replay. Overwritten and deleted records are garbage,
+ * once there is enough of it, {@link #compact()} rewrites the log with the live users only and atomically replaces the old one.
+ * <p>
+ * Reads never lock, they are served from hash indexes by UUID, premium UUID, lowercase nickname and IP. Writes are serialized.
+ * <p>
+ * The log is locked for the lifetime of the store through a lock file next to it, a second process cannot open it meanwhile.
+ */
+public class EmbeddedUserStore implements Closeable {
+
+    private static final int MAGIC = 0x4C4C4B56; // LLKV
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    private final Path path;
+    private final Logger logger;
+    private final Map<UUID, User> users;
+    private final Map<UUID, Integer> recordSizes;
+    private final Map<UUID, UUID> byPremiumUUID;
+    private final Map<String, UUID> byName;
+    private final Map<String, Set<UUID>> byIP;
+    private FileChannel channel;
+    private FileChannel lockChannel;
+    private long liveBytes;
+
+    private EmbeddedUserStore(Path path, Logger logger) {
+        this.path = path;
+        this.logger = logger;
+        this.users = new ConcurrentHashMap<>();
+        this.recordSizes = new ConcurrentHashMap<>();
+        this.byPremiumUUID = new ConcurrentHashMap<>();
+        this.byName = new ConcurrentHashMap<>();
+        this.byIP = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Opens the store, creating the log if it does not exist, and replays the log.
+     *
+     * @param path   The path of the log
+     * @param logger The logger
+     * @return The store
+     */
+    public static EmbeddedUserStore open(Path path, Logger logger) throws IOException {
+        var store = new EmbeddedUserStore(path, logger);
+        store.lock();
+
+        try {
+            store.recover();
+        } catch (IOException | RuntimeException e) {
+            store.unlock();
+            throw e;
+        }
+
+        return store;
+    }
+
+    @Nullable
+    public User getByUUID(UUID uuid) {
+        return copy(users.get(uuid));
+    }
+
+    @Nullable
+    public User getByPremiumUUID(UUID premiumUUID) {
+        var uuid = byPremiumUUID.get(premiumUUID);
+        if (uuid == null) return null;
+
+        var user = users.get(uuid);
+        // The indexes are updated after the users, the entry might be stale for a moment
+        return user != null && premiumUUID.equals(user.getPremiumUUID()) ? copy(user) : null;
+    }
+
+    @Nullable
+    public User getByName(String name) {
+        var uuid = byName.get(name.toLowerCase());
+        if (uuid == null) return null;
+
+        var user = users.get(uuid);
+        return user != null && user.getLastNickname().equalsIgnoreCase(name) ? copy(user) : null;
+    }
+
+    public Collection<User> getByIP(String ip) {
+        var uuids = byIP.get(ip);
+        if (uuids == null) return List.of();
+
+        var result = new ArrayList<User>(uuids.size());
+
+        for (UUID uuid : uuids) {
+            var user = users.get(uuid);
+            if (user != null && ip.equals(user.getIp())) result.add(copy(user));
+        }
+
+        return result;
+    }
+
+    public Collection<User> getAll() {
+        var result = new ArrayList<User>(users.size());
+
+        for (User user : users.values()) {
+            result.add(copy(user));
+        }
+
+        return result;
+    }
+
+    /**
+     * Inserts or replaces the users and persists them with a single write.
+     *
+     * @param batch      The users
+     * @param skipTaken  If true, users which exist, or whose nickname or premium UUID is taken, are skipped. Otherwise, an exception is thrown.
+     * @throws IllegalStateException If the nickname or the premium UUID of a user belongs to someone else
+     */
+    public synchronized void put(Collection<User> batch, boolean skipTaken) throws IOException {
+        var accepted = new ArrayList<User>(batch.size());
+        var buffer = new ByteArrayOutputStream();
+        var sizes = new ArrayList<Integer>(batch.size());
+        // The indexes are updated only once the batch is written, so the conflicts within the batch are tracked separately
+        var batchKeys = new HashSet<Object>();
+
+        for (User user : batch) {
+            if (skipTaken && users.containsKey(user.getUuid())) continue;
+
+            var conflict = findConflict(user);
+            if (conflict == null && !batchKeys.add(user.getLastNickname().toLowerCase()))
+                conflict = "The nickname %s is used twice".formatted(user.getLastNickname());
+            if (conflict == null && user.getPremiumUUID() != null && !batchKeys.add(user.getPremiumUUID()))
+                conflict = "The premium UUID %s is used twice".formatted(user.getPremiumUUID());
+
+            if (conflict != null) {
+                if (skipTaken) continue;
+                throw new IllegalStateException(conflict);
+            }
+
+            sizes.add(writeRecord(buffer, PUT, encode(user)));
+            accepted.add(copy(user));
+        }
+
+        if (accepted.isEmpty()) return;
+
+        append(buffer.toByteArray());
+
+        for (int i = 0; i < accepted.size(); i++) {
+            apply(accepted.get(i), sizes.get(i));
+        }
+    }
+
+    /**
+     * Applies the operations in their order with a single write, either all of them are persisted, or none.
+     * Like in SQL, an update or a delete of a user which does not exist does nothing.
+     *
+     * @throws IllegalStateException If an inserted user exists, or a nickname or a premium UUID belongs to someone else. Nothing is applied then.
+     */
+    public synchronized void commit(List<UnitOfWork.Operation> operations) throws IOException {
+        var buffer = new ByteArrayOutputStream();
+        var staged = new ArrayList<StagedRecord>(operations.size());
+        // The later operations must see the earlier ones, e.g. a deleted user frees the nickname for the next one.
+        // A null value means that the user, or the owner of the key, has been removed within the unit.
+        var stagedUsers = new HashMap<UUID, User>();
+        var stagedNames = new HashMap<String, UUID>();
+        var stagedPremiumUUIDs = new HashMap<UUID, UUID>();
+
+        for (UnitOfWork.Operation operation : operations) {
+            var user = operation.user();
+            var uuid = user.getUuid();
+            var current = stagedUsers.containsKey(uuid) ? stagedUsers.get(uuid) : users.get(uuid);
+
+            if (operation.action() == UnitOfWork.Action.INSERT && current != null) {
+                throw new IllegalStateException("The user %s already exists".formatted(uuid));
+            }
+            if (operation.action() != UnitOfWork.Action.INSERT && current == null) continue;
+
+            if (current != null) {
+                stagedNames.put(current.getLastNickname().toLowerCase(), null);
+                if (current.getPremiumUUID() != null) stagedPremiumUUIDs.put(current.getPremiumUUID(), null);
+            }
+
+            if (operation.action() == UnitOfWork.Action.DELETE) {
+                stagedUsers.put(uuid, null);
+                staged.add(new StagedRecord(uuid, null, writeRecord(buffer, DELETE, encodeUUID(uuid))));
+                continue;
+            }
+
+            var name = user.getLastNickname().toLowerCase();
+            var nameOwner = stagedNames.containsKey(name) ? stagedNames.get(name) : byName.get(name);
+            if (nameOwner != null && !nameOwner.equals(uuid))
+                throw new IllegalStateException("The nickname %s is already taken".formatted(user.getLastNickname()));
+
+            if (user.getPremiumUUID() != null) {
+                var premiumOwner = stagedPremiumUUIDs.containsKey(user.getPremiumUUID()) ? stagedPremiumUUIDs.get(user.getPremiumUUID()) : byPremiumUUID.get(user.getPremiumUUID());
+                if (premiumOwner != null && !premiumOwner.equals(uuid))
+                    throw new IllegalStateException("The premium UUID %s is already taken".formatted(user.getPremiumUUID()));
+
+                stagedPremiumUUIDs.put(user.getPremiumUUID(), uuid);
+            }
+
+            stagedNames.put(name, uuid);
+
+            var stored = copy(user);
+            stagedUsers.put(uuid, stored);
+            staged.add(new StagedRecord(uuid, stored, writeRecord(buffer, PUT, encode(stored))));
+        }
+
+        if (staged.isEmpty()) return;
+
+        append(buffer.toByteArray());
+
+        for (StagedRecord record : staged) {
+            if (record.user() == null) {
+                remove(record.uuid());
+            } else {
+                apply(record.user(), record.size());
+            }
+        }
+    }
+
+    /**
+     * Inserts the user.
+     *
+     * @throws IllegalStateException If the user exists, or the nickname or the premium UUID belongs to someone else
+     */
+    public synchronized void insert(User user) throws IOException {
+        if (users.containsKey(user.getUuid())) throw new IllegalStateException("The user %s already exists".formatted(user.getUuid()));
+        put(List.of(user), false);
+    }
+
+    /**
+     * Replaces the user, if it exists.
+     *
+     * @return true, if the user exists
+     * @throws IllegalStateException If the nickname or the premium UUID belongs to someone else
+     */
+    public synchronized boolean update(User user) throws IOException {
+        if (!users.containsKey(user.getUuid())) return false;
+        put(List.of(user), false);
+        return true;
+    }
+
+    /**
+     * Deletes the user.
+     *
+     * @param uuid The UUID of the user
+     */
+    public synchronized void delete(UUID uuid) throws IOException {
+        if (!users.containsKey(uuid)) return;
+
+        var buffer = new ByteArrayOutputStream();
+
+        writeRecord(buffer, DELETE, encodeUUID(uuid));
+        append(buffer.toByteArray());
+
+        remove(uuid);
+    }
+
+    /**
+     * @return true, if most of the log is garbage and the log is large enough for the compaction to be worth it
+     */
+    public synchronized boolean shouldCompact(long minimumGarbage) throws IOException {
+        var garbage = channel.size() - HEADER_SIZE - liveBytes;
+        return garbage > minimumGarbage && garbage > liveBytes;
+    }
+
+    /**
+     * Rewrites the log with the live users only. The new log is written next to the old one and then atomically moved over it,
+     * so a crash during the compaction leaves either the old or the new log intact.
+     */
+    public synchronized void compact() throws IOException {
+        var before = channel.size();
+        var temporary = temporaryPath();
+
+        try (var out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            var buffer = new ByteArrayOutputStream();
+            writeHeader(buffer);
+
+            for (User user : users.values()) {
+                writeRecord(buffer, PUT, encode(user));
+
+                if (buffer.size() > MAX_RECORD_SIZE) {
+                    writeFully(out, buffer.toByteArray());
+                    buffer.reset();
+                }
+            }
+
+            writeFully(out, buffer.toByteArray());
+            out.force(true);
+        }
+
+        channel.close();
+
+        try {
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        } finally {
+            // Either the new log, or the old one, if the move failed, must stay writable
+            openChannel();
+        }
+
+        // The rename is durable only once the directory is, otherwise a crash could bring the old log back without the appends made since
+        syncDirectory();
+
+        logger.debug("Compacted the user log from %s to %s bytes".formatted(before, channel.size()));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            unlock();
+        }
+    }
+
+    private void lock() throws IOException {
+        var lockPath = path.resolveSibling(path.getFileName() + ".lock");
+        lockChannel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by another store in this JVM
+            lock = null;
+        }
+
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("The user log %s is used by another process, two servers cannot share it".formatted(path));
+        }
+    }
+
+    private void unlock() throws IOException {
+        // Closing the channel releases the lock
+        if (lockChannel != null) lockChannel.close();
+    }
+
+    private void syncDirectory() throws IOException {
+        var directory = path.toAbsolutePath().getParent();
+
+        try (var dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (AccessDeniedException e) {
+            // Windows cannot open directories, its renames are durable on their own
+            logger.debug("Cannot sync the directory %s".formatted(directory), e);
+        }
+    }
+
+    private void recover() throws IOException {
+        Files.deleteIfExists(temporaryPath());
+
+        if (!Files.exists(path) || Files.size(path) == 0) {
+            var buffer = new ByteArrayOutputStream();
+            writeHeader(buffer);
+            Files.write(path, buffer.toByteArray());
+        }
+
+        long valid;
+
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) throw new IOException("%s is not a LibreLogin user log".formatted(path));
+
+            var version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported user log version %s".formatted(version));
+
+            valid = HEADER_SIZE;
+
+            while (true) {
+                var record = readRecord(in);
+                if (record == null) break;
+
+                replay(record, RECORD_HEADER_SIZE + record.length);
+                valid += RECORD_HEADER_SIZE + record.length;
+            }
+        }
+
+        var size = Files.size(path);
+
+        if (valid < size) {
+            if (hasValidRecordAfter(valid)) {
+                throw new IOException(("The user log %s is corrupted at byte %s, but valid records follow, so it is not a crash during a write. " +
+                        "Refusing to start, discarding the rest of the log would delete users. Restore the log from a backup.").formatted(path, valid));
+            }
+
+            logger.warn("The user log is damaged, most likely due to a crash. Discarding the last %s bytes, the changes made right before the crash might be lost.".formatted(size - valid));
+
+            try (var truncate = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                truncate.truncate(valid);
+                truncate.force(true);
+            }
+        }
+
+        openChannel();
+
+        logger.info("Loaded %s users from the user log".formatted(users.size()));
+    }
+
+    /**
+     * A crash tears only the last append, after which nothing valid can follow. Looks for a valid record at every offset after the damage.
+     *
+     * @param damaged The offset of the first invalid record
+     */
+    private boolean hasValidRecordAfter(long damaged) throws IOException {
+        try (var file = FileChannel.open(path, StandardOpenOption.READ)) {
+            var size = file.size();
+            var header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+
+            for (long offset = damaged + 1; offset + RECORD_HEADER_SIZE < size; offset++) {
+                header.clear();
+                if (file.read(header, offset) < RECORD_HEADER_SIZE) return false;
+                header.flip();
+
+                var length = header.getInt();
+                var checksum = header.getInt();
+
+                if (length < 1 || length > MAX_RECORD_SIZE || offset + RECORD_HEADER_SIZE + length > size) continue;
+
+                var record = ByteBuffer.allocate(length);
+                file.read(record, offset + RECORD_HEADER_SIZE);
+
+                var crc = new CRC32();
+                crc.update(record.array());
+
+                if ((int) crc.getValue() == checksum) return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return The type and the payload of the record, or null, if there are no more valid records
+     */
+    @Nullable
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            var length = in.readInt();
+            if (length < 1 || length > MAX_RECORD_SIZE) return null;
+
+            var checksum = in.readInt();
+            var record = new byte[length];
+            in.readFully(record);
+
+            var crc = new CRC32();
+            crc.update(record);
+
+            return (int) crc.getValue() == checksum ? record : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private void replay(byte[] record, int size) throws IOException {
+        var in = new DataInputStream(new ByteArrayInputStream(record, 1, record.length - 1));
+
+        switch (record[0]) {
+            case PUT -> apply(decode(in), size);
+            case DELETE -> remove(new UUID(in.readLong(), in.readLong()));
+            default -> throw new IOException("Unknown record type %s".formatted(record[0]));
+        }
+    }
+
+    @Nullable
+    private String findConflict(User user) {
+        var owner = byName.get(user.getLastNickname().toLowerCase());
+        if (owner != null && !owner.equals(user.getUuid()))
+            return "The nickname %s is already taken".formatted(user.getLastNickname());
+
+        if (user.getPremiumUUID() != null) {
+            owner = byPremiumUUID.get(user.getPremiumUUID());
+            if (owner != null && !owner.equals(user.getUuid()))
+                return "The premium UUID %s is already taken".formatted(user.getPremiumUUID());
+        }
+
+        return null;
+    }
+
+    private void apply(User user, int size) {
+        var previous = users.put(user.getUuid(), user);
+        var previousSize = recordSizes.put(user.getUuid(), size);
+
+        if (previousSize != null) liveBytes -= previousSize;
+        liveBytes += size;
+
+        if (previous != null) unindex(previous);
+        index(user);
+    }
+
+    private void remove(UUID uuid) {
+        var previous = users.remove(uuid);
+        var previousSize = recordSizes.remove(uuid);
+
+        if (previousSize != null) liveBytes -= previousSize;
+        if (previous != null) unindex(previous);
+    }
+
+    private void index(User user) {
+        byName.put(user.getLastNickname().toLowerCase(), user.getUuid());
+        if (user.getPremiumUUID() != null) byPremiumUUID.put(user.getPremiumUUID(), user.getUuid());
+        if (user.getIp() != null) byIP.computeIfAbsent(user.getIp(), ip -> ConcurrentHashMap.newKeySet()).add(user.getUuid());
+    }
+
+    private void unindex(User user) {
+        byName.remove(user.getLastNickname().toLowerCase(), user.getUuid());
+        if (user.getPremiumUUID() != null) byPremiumUUID.remove(user.getPremiumUUID(), user.getUuid());
+        if (user.getIp() != null) {
+            byIP.computeIfPresent(user.getIp(), (ip, uuids) -> {
+                uuids.remove(user.getUuid());
+                return uuids.isEmpty() ? null : uuids;
+            });
+        }
+    }
+
+    private void append(byte[] bytes) throws IOException {
+        var position = channel.size();
+
+        try {
+            writeFully(channel, bytes);
+            channel.force(false);
+        } catch (IOException e) {
+            // A torn record would stop the replay, dropping every record appended after it
+            try {
+                channel.truncate(position);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    private void openChannel() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path temporaryPath() {
+        return path.resolveSibling(path.getFileName() + ".compact");
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+        var buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void writeHeader(ByteArrayOutputStream buffer) throws IOException {
+        var out = new DataOutputStream(buffer);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    /**
+     * @return The size of the record in the log
+     */
+    private static int writeRecord(ByteArrayOutputStream buffer, byte type, byte[] payload) throws IOException {
+        var crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+
+        var out = new DataOutputStream(buffer);
+        out.writeInt(payload.length + 1);
+        out.writeInt((int) crc.getValue());
+        out.writeByte(type);
+        out.write(payload);
+
+        return RECORD_HEADER_SIZE + payload.length + 1;
+    }
+
+    private static byte[] encodeUUID(UUID uuid) throws IOException {
+        var payload = new ByteArrayOutputStream(16);
+        var data = new DataOutputStream(payload);
+        data.writeLong(uuid.getMostSignificantBits());
+        data.writeLong(uuid.getLeastSignificantBits());
+        return payload.toByteArray();
+    }
+
+    private static byte[] encode(User user) throws IOException {
+        var buffer = new ByteArrayOutputStream(256);
+        var out = new DataOutputStream(buffer);
+        var password = user.getHashedPassword();
+
+        out.writeLong(user.getUuid().getMostSignificantBits());
+        out.writeLong(user.getUuid().getLeastSignificantBits());
+        out.writeBoolean(user.getPremiumUUID() != null);
+        if (user.getPremiumUUID() != null) {
+            out.writeLong(user.getPremiumUUID().getMostSignificantBits());
+            out.writeLong(user.getPremiumUUID().getLeastSignificantBits());
+        }
+        out.writeBoolean(password != null);
+        if (password != null) {
+            writeString(out, password.hash());
+            writeString(out, password.salt());
+            writeString(out, password.algo());
+        }
+        out.writeUTF(user.getLastNickname());
+        writeTimestamp(out, user.getJoinDate());
+        writeTimestamp(out, user.getLastSeen());
+        writeString(out, user.getSecret());
+        writeString(out, user.getIp());
+        writeTimestamp(out, user.getLastAuthentication());
+        writeString(out, user.getLastServer());
+        writeString(out, user.getEmail());
+
+        return buffer.toByteArray();
+    }
+
+    private static User decode(DataInputStream in) throws IOException {
+        var uuid = new UUID(in.readLong(), in.readLong());
+        var premiumUUID = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+        var password = in.readBoolean() ? new HashedPassword(readString(in), readString(in), readString(in)) : null;
+
+        return new AuthenticUser(
+                uuid,
+                premiumUUID,
+                password,
+                in.readUTF(),
+                readTimestamp(in),
+                readTimestamp(in),
+                readString(in),
+                readString(in),
+                readTimestamp(in),
+                readString(in),
+                readString(in)
+        );
+    }
+
+    private static void writeString(DataOutputStream out, @Nullable String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    @Nullable
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeTimestamp(DataOutputStream out, @Nullable Timestamp value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeLong(value.getTime());
+    }
+
+    @Nullable
+    private static Timestamp readTimestamp(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new Timestamp(in.readLong()) : null;
+    }
+
+    /**
+     * A record of a unit of work, which is applied in memory once the whole unit is written.
+     *
+     * @param user The stored user, or null if the user is deleted
+     */
+    private record StagedRecord(UUID uuid, @Nullable User user, int size) {
+    }
+
+    /**
+     * The stored users are never handed out, callers modify the users they get before updating them.
+     */
+    @Nullable
+    private static User copy(@Nullable User user) {
+        if (user == null) return null;
+
+        return new AuthenticUser(
+                user.getUuid(),
+                user.getPremiumUUID(),
+                user.getHashedPassword(),
+                user.getLastNickname(),
+                user.getJoinDate(),
+                user.getLastSeen(),
+                user.getSecret(),
+                user.getIp(),
+                user.getLastAuthentication(),
+                user.getLastServer(),
+                user.getEmail()
+        );
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.database.provider;
+
+import org.jetbrains.annotations.Nullable;
+import xyz.kyngs.librelogin.common.database.query.SQLQuery;
+import xyz.kyngs.librelogin.common.database.query.SQLUpdate;
+import xyz.kyngs.librelogin.common.database.query.StatementBinder;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps the identifiers of crypto providers to the small numeric codes stored in the authentication table.
+ * The mapping lives in the librelogin_algorithms table, so that it is shared by all the proxies using the database.
+ */
+public class AlgorithmCodes {
+
+    private static final SQLQuery<Algorithm> SELECT = new SQLQuery<>("SELECT id, name FROM librelogin_algorithms", rs -> new Algorithm(rs.getShort(1), rs.getString(2)));
+    private static final SQLQuery<Short> SELECT_MAX = new SQLQuery<>("SELECT MAX(id) FROM librelogin_algorithms", rs -> rs.getShort(1));
+    private static final SQLUpdate INSERT = new SQLUpdate("INSERT INTO librelogin_algorithms(id, name) VALUES (?, ?)");
+    private static final int MAX_REGISTER_ATTEMPTS = 10;
+
+    private final Map<String, Short> codes;
+    private final Map<Short, String> names;
+
+    public AlgorithmCodes() {
+        this.codes = new ConcurrentHashMap<>();
+        this.names = new ConcurrentHashMap<>();
+    }
+
+    public static void createTable(Connection connection) throws SQLException {
+        LibreLoginSQLDatabaseProvider.execute(connection, "CREATE TABLE IF NOT EXISTS librelogin_algorithms(id SMALLINT NOT NULL PRIMARY KEY, name VARCHAR(255) NOT NULL UNIQUE)");
+    }
+
+    /**
+     * Returns the code of the algorithm, registering it if it is not known yet.
+     *
+     * @param connection The connection, used only when the algorithm is not cached
+     * @param name       The identifier of the crypto provider
+     * @return The code, or null if the name is null
+     */
+    @Nullable
+    public Short code(Connection connection, @Nullable String name) throws SQLException {
+        if (name == null) return null;
+
+        var code = codes.get(name);
+
+        return code == null ? register(connection, name) : code;
+    }
+
+    /**
+     * @param name The identifier of the crypto provider
+     * @return true, if the algorithm already has a code, and therefore {@link #code(Connection, String)} will not write anything
+     */
+    public boolean isKnown(@Nullable String name) {
+        return name == null || codes.containsKey(name);
+    }
+
+    /**
+     * Returns the identifier of the crypto provider for the given code.
+     *
+     * @param connection The connection, used only when the code is not cached, for example because another proxy has registered it
+     * @param code       The code
+     * @return The identifier
+     */
+    public String name(Connection connection, short code) throws SQLException {
+        var name = names.get(code);
+
+        if (name != null) return name;
+
+        load(connection);
+
+        name = names.get(code);
+
+        if (name == null) throw new SQLException("Unknown algorithm code %s".formatted(code));
+
+        return name;
+    }
+
+    public void load(Connection connection) throws SQLException {
+        for (Algorithm algorithm : SELECT.list(connection, StatementBinder.NONE)) {
+            codes.put(algorithm.name(), algorithm.id());
+            names.put(algorithm.id(), algorithm.name());
+        }
+    }
+
+    /**
+     * Registers the algorithm under the next free code. Another proxy may take the same code at the same time,
+     * then the insert fails on the primary key and the codes are read again.
+     */
+    private synchronized Short register(Connection connection, String name) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            load(connection);
+
+            var code = codes.get(name);
+            if (code != null) return code;
+
+            var max = SELECT_MAX.single(connection, StatementBinder.NONE);
+            var id = (short) (max == null ? 1 : max + 1);
+
+            // PostgreSQL aborts the whole transaction on a failed statement, unless it is rolled back to a savepoint
+            var savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+
+            try {
+                INSERT.execute(connection, ps -> {
+                    ps.setShort(1, id);
+                    ps.setString(2, name);
+                });
+            } catch (SQLException e) {
+                if (savepoint != null) connection.rollback(savepoint);
+                if (attempt >= MAX_REGISTER_ATTEMPTS) throw e;
+                continue;
+            }
+
+            if (savepoint != null) connection.releaseSavepoint(savepoint);
+
+            codes.put(name, id);
+            names.put(id, name);
+
+            return id;
+        }
+    }
+
+    private record Algorithm(short id, String name) {
+    }
+
+}
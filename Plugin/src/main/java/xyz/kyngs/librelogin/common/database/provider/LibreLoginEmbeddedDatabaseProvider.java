@@ -0,0 +1,103 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.database.provider;
+
+import xyz.kyngs.librelogin.api.database.UnitOfWork;
+import xyz.kyngs.librelogin.api.database.User;
+import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
+import xyz.kyngs.librelogin.common.database.AuthenticDatabaseProvider;
+import xyz.kyngs.librelogin.common.database.connector.AuthenticEmbeddedDatabaseConnector;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Stores the users in the embedded user store. All the lookups are served from memory, so they do not block for any meaningful time.
+ */
+public class LibreLoginEmbeddedDatabaseProvider extends AuthenticDatabaseProvider<AuthenticEmbeddedDatabaseConnector> {
+
+    public LibreLoginEmbeddedDatabaseProvider(AuthenticEmbeddedDatabaseConnector connector, AuthenticLibreLogin<?, ?> plugin) {
+        super(connector, plugin);
+    }
+
+    @Override
+    public User getByName(String name) {
+        return connector.runQuery(store -> {
+            return store.getByName(name);
+        });
+    }
+
+    @Override
+    public User getByUUID(UUID uuid) {
+        return connector.runQuery(store -> {
+            return store.getByUUID(uuid);
+        });
+    }
+
+    @Override
+    public User getByPremiumUUID(UUID uuid) {
+        return connector.runQuery(store -> {
+            return store.getByPremiumUUID(uuid);
+        });
+    }
+
+    @Override
+    public Collection<User> getAllUsers() {
+        return connector.runQuery(store -> {
+            return store.getAll();
+        });
+    }
+
+    @Override
+    public Collection<User> getByIP(String ip) {
+        return connector.runQuery(store -> {
+            return store.getByIP(ip);
+        });
+    }
+
+    @Override
+    public void insertUser(User user) {
+        plugin.reportMainThread();
+        connector.runQuery(store -> {
+            store.insert(user);
+        });
+    }
+
+    @Override
+    public void insertUsers(Collection<User> users) {
+        plugin.reportMainThread();
+        connector.runQuery(store -> {
+            store.put(users, true);
+        });
+    }
+
+    @Override
+    public void updateUser(User user) {
+        plugin.reportMainThread();
+        connector.runQuery(store -> {
+            // Mirrors an SQL UPDATE, which does nothing when the user does not exist
+            store.update(user);
+        });
+    }
+
+    @Override
+    public void deleteUser(User user) {
+        plugin.reportMainThread();
+        connector.runQuery(store -> {
+            store.delete(user.getUuid());
+        });
+    }
+
+    @Override
+    public void commit(UnitOfWork unit) {
+        plugin.reportMainThread();
+        connector.runQuery(store -> {
+            // The whole unit is appended with a single write, the log has no transactions
+            store.commit(unit.getOperations());
+        });
+    }
+}
@@ -6,13 +6,18 @@
 
 package xyz.kyngs.librelogin.common.database.provider;
 
+import xyz.kyngs.librelogin.api.database.User;
 import xyz.kyngs.librelogin.api.database.connector.MySQLDatabaseConnector;
 import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
 import xyz.kyngs.librelogin.common.database.connector.AuthenticMySQLDatabaseConnector;
+import xyz.kyngs.librelogin.common.database.query.BulkProgress;
+import xyz.kyngs.librelogin.common.database.query.SQLQuery;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 public class LibreLoginMySQLDatabaseProvider extends LibreLoginSQLDatabaseProvider {
@@ -21,25 +26,91 @@ public class LibreLoginMySQLDatabaseProvider extends LibreLoginSQLDatabaseProvid
     }
 
     @Override
-    protected List<String> getColumnNames(Connection connection) throws SQLException {
-        var resultSet = connection.prepareStatement("SELECT column_name FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME='authentication' and TABLE_SCHEMA='" + ((AuthenticMySQLDatabaseConnector) connector).get(AuthenticMySQLDatabaseConnector.Configuration.NAME) + "'")
-                .executeQuery();
+    protected List<String> getColumnNames(Connection connection, String table) throws SQLException {
+        var query = new SQLQuery<String>("SELECT column_name FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME=? and TABLE_SCHEMA=?", rs -> rs.getString(1));
 
-        var columns = new ArrayList<String>();
-        while (resultSet.next()) {
-            columns.add(resultSet.getString("column_name"));
+        return query.list(connection, ps -> {
+            ps.setString(1, table);
+            ps.setString(2, ((AuthenticMySQLDatabaseConnector) connector).get(AuthenticMySQLDatabaseConnector.Configuration.NAME));
+        });
+    }
+
+    @Override
+    protected String getUUIDType() {
+        return "BINARY(16)";
+    }
+
+    /**
+     * MySQL does not support DDL in transactions, RENAME TABLE swaps both tables atomically instead.
+     */
+    @Override
+    protected void swapTables(Connection connection) throws SQLException {
+        execute(connection, "RENAME TABLE authentication TO authentication_v1, authentication_v2 TO authentication");
+    }
+
+    /**
+     * Sends the users as multi-row inserts, the server parses and plans a single statement for the whole chunk.
+     * All chunks share the caller's transaction, so a failed import leaves no partial rows behind.
+     */
+    @Override
+    protected void bulkInsert(Connection connection, Collection<User> users, BulkProgress progress) throws SQLException {
+        var prefix = "INSERT IGNORE INTO authentication(" + USER_COLUMNS + ") VALUES ";
+        var iterator = users.iterator();
+
+        try (var full = connection.prepareStatement(prefix + valuesPlaceholder(BULK_CHUNK_SIZE))) {
+            while (iterator.hasNext()) {
+                var remaining = users.size() - progress.done();
+
+                if (remaining >= BULK_CHUNK_SIZE) {
+                    bindChunk(full, iterator, BULK_CHUNK_SIZE);
+                    full.executeUpdate();
+                    progress.advance(BULK_CHUNK_SIZE);
+                } else {
+                    try (var last = connection.prepareStatement(prefix + valuesPlaceholder(remaining))) {
+                        bindChunk(last, iterator, remaining);
+                        last.executeUpdate();
+                    }
+                    progress.advance(remaining);
+                }
+            }
+        }
+    }
+
+    private void bindChunk(PreparedStatement ps, Iterator<User> iterator, int rows) throws SQLException {
+        for (int i = 0; i < rows; i++) {
+            bindUser(ps, i * USER_COLUMN_COUNT, iterator.next());
         }
+    }
 
-        return columns;
+    /**
+     * Row locks would not do, RENAME TABLE commits implicitly before it runs, which releases them and lets the writes in right before the swap.
+     * Table locks survive the commit, and WRITE locked tables may be renamed since MySQL 8.0.13. The session may only touch the locked tables meanwhile.
+     */
+    @Override
+    protected void lockForMigration(Connection connection) throws SQLException {
+        execute(connection, "LOCK TABLES authentication WRITE, authentication_v2 WRITE, librelogin_algorithms WRITE");
     }
 
     @Override
-    protected String getIgnoreSyntax() {
-        return "IGNORE";
+    protected void unlockAfterMigration(Connection connection) throws SQLException {
+        execute(connection, "UNLOCK TABLES");
     }
 
+    /**
+     * MySQL has no IF NOT EXISTS for indexes. Its DDL is not transactional, so the failure does not affect the rest of the transaction.
+     */
     @Override
-    protected String addUnique(String column) {
-        return "CREATE UNIQUE INDEX %s_index ON authentication(%s)".formatted(column, column);
+    protected void createIndex(Connection connection, String index, String table, String column) throws SQLException {
+        try {
+            execute(connection, "CREATE INDEX %s ON %s(%s)".formatted(index, table, column));
+        } catch (SQLException e) {
+            // ER_DUP_KEYNAME, created already, possibly by another proxy starting at the same time
+            if (e.getErrorCode() != 1061) throw e;
+        }
+    }
+
+    @Override
+    protected String getIgnoreSyntax() {
+        return "IGNORE";
     }
 }
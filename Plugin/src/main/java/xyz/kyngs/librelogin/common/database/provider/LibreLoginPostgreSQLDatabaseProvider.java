@@ -6,13 +6,24 @@
 
 package xyz.kyngs.librelogin.common.database.provider;
 
+import org.jetbrains.annotations.Nullable;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import xyz.kyngs.librelogin.api.database.User;
 import xyz.kyngs.librelogin.api.database.connector.PostgreSQLDatabaseConnector;
 import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
+import xyz.kyngs.librelogin.common.database.query.BulkProgress;
+import xyz.kyngs.librelogin.common.database.query.SQLQuery;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.sql.Types;
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
 public class LibreLoginPostgreSQLDatabaseProvider extends LibreLoginSQLDatabaseProvider {
     public LibreLoginPostgreSQLDatabaseProvider(PostgreSQLDatabaseConnector connector, AuthenticLibreLogin<?, ?> plugin) {
@@ -20,25 +31,112 @@ public class LibreLoginPostgreSQLDatabaseProvider extends LibreLoginSQLDatabaseP
     }
 
     @Override
-    protected List<String> getColumnNames(Connection connection) throws SQLException {
-        var resultSet = connection.prepareStatement("SELECT column_name FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME='authentication' and TABLE_SCHEMA='public'")
-                .executeQuery();
+    protected List<String> getColumnNames(Connection connection, String table) throws SQLException {
+        var query = new SQLQuery<String>("SELECT column_name FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME=? and TABLE_SCHEMA='public'", rs -> rs.getString(1));
 
-        var columns = new ArrayList<String>();
-        while (resultSet.next()) {
-            columns.add(resultSet.getString("column_name"));
+        return query.list(connection, ps -> ps.setString(1, table));
+    }
+
+    @Override
+    protected String getUUIDType() {
+        return "UUID";
+    }
+
+    @Override
+    protected void setUUID(PreparedStatement ps, int index, @Nullable UUID uuid) throws SQLException {
+        if (uuid == null) {
+            ps.setNull(index, Types.OTHER);
+        } else {
+            ps.setObject(index, uuid);
         }
+    }
 
-        return columns;
+    @Nullable
+    @Override
+    protected UUID getUUID(ResultSet rs, int index) throws SQLException {
+        return rs.getObject(index, UUID.class);
     }
 
+    /**
+     * Streams the users into a temporary staging table with COPY, which skips the per-row statement overhead entirely,
+     * and then moves them into the real table with a single INSERT, which skips the existing ones.
+     */
     @Override
-    protected String getIgnoreSuffix() {
-        return " ON CONFLICT DO NOTHING";
+    protected void bulkInsert(Connection connection, Collection<User> users, BulkProgress progress) throws SQLException {
+        execute(connection, "CREATE TEMPORARY TABLE librelogin_import (LIKE authentication INCLUDING DEFAULTS) ON COMMIT DROP");
+
+        var copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn("COPY librelogin_import(" + USER_COLUMNS + ") FROM STDIN WITH (FORMAT csv)");
+
+        try {
+            var chunk = new StringBuilder();
+            var pending = 0;
+
+            for (User user : users) {
+                appendCsv(connection, chunk, user);
+
+                if (++pending == BULK_CHUNK_SIZE) {
+                    writeChunk(copy, chunk);
+                    progress.advance(pending);
+                    pending = 0;
+                }
+            }
+
+            if (pending > 0) {
+                writeChunk(copy, chunk);
+                progress.advance(pending);
+            }
+
+            copy.endCopy();
+        } finally {
+            if (copy.isActive()) copy.cancelCopy();
+        }
+
+        execute(connection, "INSERT INTO authentication(" + USER_COLUMNS + ") SELECT " + USER_COLUMNS + " FROM librelogin_import ON CONFLICT DO NOTHING");
+    }
+
+    private static void writeChunk(CopyIn copy, StringBuilder chunk) throws SQLException {
+        var bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        chunk.setLength(0);
+    }
+
+    /**
+     * Appends the user as a CSV line in the order of {@link #USER_COLUMNS}.
+     */
+    private void appendCsv(Connection connection, StringBuilder builder, User user) throws SQLException {
+        var password = user.getHashedPassword();
+
+        appendCsv(builder, user.getUuid(), false);
+        appendCsv(builder, user.getPremiumUUID(), false);
+        appendCsv(builder, password == null ? null : password.hash(), false);
+        appendCsv(builder, password == null ? null : password.salt(), false);
+        appendCsv(builder, password == null ? null : algorithmCode(connection, password.algo()), false);
+        appendCsv(builder, user.getLastNickname(), false);
+        appendCsv(builder, user.getJoinDate(), false);
+        appendCsv(builder, user.getLastSeen(), false);
+        appendCsv(builder, user.getSecret(), false);
+        appendCsv(builder, user.getIp(), false);
+        appendCsv(builder, user.getLastAuthentication(), false);
+        appendCsv(builder, user.getLastServer(), false);
+        appendCsv(builder, user.getEmail(), true);
+    }
+
+    private static void appendCsv(StringBuilder builder, Object value, boolean last) {
+        // An unquoted empty value is NULL, a quoted one is an empty string
+        if (value != null) {
+            builder.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+        }
+        builder.append(last ? '\n' : ',');
     }
 
     @Override
-    protected String addUnique(String column) {
-        return "CREATE UNIQUE INDEX %s_index ON authentication(%s)".formatted(column, column);
+    protected void lockForMigration(Connection connection) throws SQLException {
+        // Readers are not blocked, and as the DDL is transactional, the swap is atomic with the lock
+        execute(connection, "LOCK TABLE authentication IN EXCLUSIVE MODE");
+    }
+
+    @Override
+    protected String getIgnoreSuffix() {
+        return " ON CONFLICT DO NOTHING";
     }
 }
@@ -6,271 +6,1075 @@
 
 package xyz.kyngs.librelogin.common.database.provider;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.jetbrains.annotations.Nullable;
 import xyz.kyngs.librelogin.api.crypto.HashedPassword;
+import xyz.kyngs.librelogin.api.database.UnitOfWork;
 import xyz.kyngs.librelogin.api.database.User;
 import xyz.kyngs.librelogin.api.database.connector.SQLDatabaseConnector;
+import xyz.kyngs.librelogin.api.util.ThrowableConsumer;
+import xyz.kyngs.librelogin.api.util.ThrowableFunction;
 import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
 import xyz.kyngs.librelogin.common.database.AuthenticDatabaseProvider;
 import xyz.kyngs.librelogin.common.database.AuthenticUser;
+import xyz.kyngs.librelogin.common.database.DatabaseUnavailableException;
+import xyz.kyngs.librelogin.common.database.connector.AuthenticHikariDatabaseConnector;
+import xyz.kyngs.librelogin.common.database.query.BulkProgress;
+import xyz.kyngs.librelogin.common.database.query.SQLQuery;
+import xyz.kyngs.librelogin.common.database.query.SQLUpdate;
+import xyz.kyngs.librelogin.common.database.query.StatementBinder;
+import xyz.kyngs.librelogin.common.util.GeneralUtil;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 public abstract class LibreLoginSQLDatabaseProvider extends AuthenticDatabaseProvider<SQLDatabaseConnector> {
 
+    private static final int MAX_PENDING_UPDATES = 10000;
+    protected static final int BULK_CHUNK_SIZE = 1000;
+
+    /**
+     * The version of the schema created by this provider. Version 1 is the original schema, which stored everything as strings and had no version table.
+     */
+    protected static final int SCHEMA_VERSION = 2;
+
+    /**
+     * The columns of a user, the order must match {@link #mapUser(ResultSet)} and {@link #bindUser(PreparedStatement, int, User)}.
+     */
+    protected static final String USER_COLUMNS = "uuid, premium_uuid, hashed_password, salt, algo, last_nickname, joined, last_seen, secret, ip, last_authentication, last_server, email";
+    protected static final int USER_COLUMN_COUNT = 13;
+    private static final String SELECT_USERS = "SELECT " + USER_COLUMNS + " FROM authentication";
+
+    private static final SQLQuery<Integer> SELECT_SCHEMA_VERSION = new SQLQuery<>("SELECT MAX(version) FROM librelogin_schema", rs -> rs.getInt(1));
+    private static final SQLUpdate INSERT_SCHEMA_VERSION = new SQLUpdate("INSERT INTO librelogin_schema(version) VALUES (?)");
+    private static final SQLUpdate ACQUIRE_MIGRATION_LOCK = new SQLUpdate("INSERT INTO librelogin_migration_lock(id, owner, acquired) VALUES (1, ?, ?)");
+    private static final SQLUpdate RELEASE_MIGRATION_LOCK = new SQLUpdate("DELETE FROM librelogin_migration_lock WHERE id=1 AND owner=?");
+    private static final SQLQuery<String> SELECT_MIGRATION_LOCK = new SQLQuery<>("SELECT owner FROM librelogin_migration_lock WHERE id=1", rs -> rs.getString(1));
+    private static final long MIGRATION_LOCK_TIMEOUT = TimeUnit.MINUTES.toMillis(30);
+    private static final SQLUpdate INSERT = new SQLUpdate("INSERT INTO authentication(" + USER_COLUMNS + ") VALUES " + valuesPlaceholder(1));
+    private static final SQLUpdate UPDATE = new SQLUpdate("UPDATE authentication SET premium_uuid=?, hashed_password=?, salt=?, algo=?, last_nickname=?, joined=?, last_seen=?, secret=?, ip=?, last_authentication=?, last_server=?, email=? WHERE uuid=?");
+    private static final SQLUpdate DELETE = new SQLUpdate("DELETE FROM authentication WHERE uuid=?");
+
+    private final SQLQuery<User> selectAll;
+    private final SQLQuery<User> selectByIP;
+    private final SQLQuery<User> selectByName;
+    private final SQLQuery<User> selectByUUID;
+    private final SQLQuery<User> selectByPremiumUUID;
+    private final AlgorithmCodes algorithms;
+
+    /**
+     * Users recently read from the database, these are served when the database is unavailable.
+     */
+    private final Cache<UUID, User> lastKnown;
+    /**
+     * Updates which could not be written because the database was unavailable, only the latest state of every user is kept.
+     */
+    private final Map<UUID, User> pendingUpdates;
+    /**
+     * The connector, if it routes reads to replicas.
+     */
+    @Nullable
+    private final AuthenticHikariDatabaseConnector replicated;
+    /**
+     * Keys (UUIDs, lowercase nicknames and IPs) of recently written users. The replicas might not have these writes yet, so they are read from the primary.
+     */
+    @Nullable
+    private final Cache<Object, Boolean> recentWrites;
+    /**
+     * Reads the users of a version 1 schema, set if the provider is a migration source, which has not been upgraded.
+     */
+    @Nullable
+    private volatile SQLQuery<LegacyRow> legacySelectAll;
+
     public LibreLoginSQLDatabaseProvider(SQLDatabaseConnector connector, AuthenticLibreLogin<?, ?> plugin) {
         super(connector, plugin);
-    }
 
-    @Override
-    public Collection<User> getByIP(String ip) {
-        plugin.reportMainThread();
-        return connector.runQuery(connection -> {
-            var ps = connection.prepareStatement("SELECT * FROM authentication WHERE ip=?");
+        this.selectAll = new SQLQuery<>(SELECT_USERS, this::mapUser);
+        this.selectByIP = new SQLQuery<>(SELECT_USERS + " WHERE ip=?", this::mapUser);
+        this.selectByName = new SQLQuery<>(SELECT_USERS + " WHERE LOWER(last_nickname)=LOWER(?)", this::mapUser);
+        this.selectByUUID = new SQLQuery<>(SELECT_USERS + " WHERE uuid=?", this::mapUser);
+        this.selectByPremiumUUID = new SQLQuery<>(SELECT_USERS + " WHERE premium_uuid=?", this::mapUser);
+        this.algorithms = new AlgorithmCodes();
 
-            ps.setString(1, ip);
+        this.lastKnown = Caffeine.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(1, TimeUnit.HOURS)
+                .recordStats()
+                .build();
+        plugin.registerCache("database-last-known", lastKnown);
+        this.pendingUpdates = new ConcurrentHashMap<>();
 
-            var rs = ps.executeQuery();
+        if (connector instanceof AuthenticHikariDatabaseConnector hikari) {
+            hikari.onRecovery(this::flushPendingUpdates);
+        }
 
-            var users = new ArrayList<User>();
+        if (connector instanceof AuthenticHikariDatabaseConnector hikari && hikari.getReplicaConsistencyWindow() > 0) {
+            this.replicated = hikari;
+            this.recentWrites = Caffeine.newBuilder()
+                    .expireAfterWrite(hikari.getReplicaConsistencyWindow(), TimeUnit.MILLISECONDS)
+                    .recordStats()
+                    .build();
+            plugin.registerCache("database-recent-writes", recentWrites);
+        } else {
+            this.replicated = null;
+            this.recentWrites = null;
+        }
+    }
 
-            User user;
+    /**
+     * Reads a user from a replica, unless the user has been written recently.
+     *
+     * @param key      The key the user is looked up by
+     * @param function The query
+     */
+    private User readOne(Object key, ThrowableFunction<Connection, User, SQLException> function) {
+        if (replicated == null || !replicated.hasReplicas() || isRecentlyWritten(key)) return read(function);
 
-            while ((user = getUserFromResult(rs)) != null) {
-                users.add(user);
-            }
+        var user = replicated.runReadQuery(function);
 
-            return users;
-        });
+        // Looked up by a different key than it was written with, e.g. by the nickname after it changed
+        if (user != null && isRecentlyWritten(user.getUuid())) return read(function);
+
+        return user;
     }
 
-    @Override
-    public User getByName(String name) {
-        plugin.reportMainThread();
-        return connector.runQuery(connection -> {
-            var ps = connection.prepareStatement("SELECT * FROM authentication WHERE LOWER(last_nickname)=LOWER(?)");
+    /**
+     * Reads users from a replica, unless any of them has been written recently.
+     *
+     * @param keys     The keys the users are looked up by
+     * @param function The query
+     */
+    private Collection<User> readMany(Collection<?> keys, ThrowableFunction<Connection, Collection<User>, SQLException> function) {
+        if (replicated == null || !replicated.hasReplicas() || keys.stream().anyMatch(this::isRecentlyWritten)) return read(function);
 
-            ps.setString(1, name);
+        var users = replicated.runReadQuery(function);
 
-            var rs = ps.executeQuery();
+        for (User user : users) {
+            if (isRecentlyWritten(user.getUuid())) return read(function);
+        }
 
-            return getUserFromResult(rs);
+        return users;
+    }
 
-        });
+    /**
+     * Runs a read on the primary. Reads may run twice, so they are retried also when the outcome of an attempt is unknown.
+     */
+    private <V> V read(ThrowableFunction<Connection, V, SQLException> function) {
+        return connector instanceof AuthenticHikariDatabaseConnector hikari ? hikari.runIdempotentQuery(function) : connector.runQuery(function);
     }
 
-    @Override
-    public Collection<User> getAllUsers() {
-        plugin.reportMainThread();
-        return connector.runQuery(connection -> {
-            var ps = connection.prepareStatement("SELECT * FROM authentication");
+    /**
+     * Runs a write of a single user, which consists of single statements only, so the connector may group it with other writes.
+     * If the algorithm of the user does not have a code yet, the write is not grouped, so that the registration of the code cannot be rolled back with the group.
+     */
+    private void write(User user, ThrowableConsumer<Connection, SQLException> consumer) {
+        var password = user.getHashedPassword();
 
-            var rs = ps.executeQuery();
+        if (connector instanceof AuthenticHikariDatabaseConnector hikari && algorithms.isKnown(password == null ? null : password.algo())) {
+            hikari.runWriteQuery(connection -> {
+                consumer.accept(connection);
+                return null;
+            });
+        } else {
+            transaction(consumer);
+        }
+    }
 
-            var users = new ArrayList<User>();
+    /**
+     * Runs a query, which manages its own transaction.
+     */
+    private void transaction(ThrowableConsumer<Connection, SQLException> consumer) {
+        if (connector instanceof AuthenticHikariDatabaseConnector hikari) {
+            hikari.runTransaction(connection -> {
+                consumer.accept(connection);
+                return null;
+            });
+        } else {
+            connector.runQuery(consumer);
+        }
+    }
 
-            User user;
+    private boolean isRecentlyWritten(Object key) {
+        return recentWrites != null && key != null && recentWrites.getIfPresent(key) != null;
+    }
 
-            while ((user = getUserFromResult(rs)) != null) {
-                users.add(user);
-            }
+    private void markWritten(User user) {
+        if (recentWrites == null) return;
 
-            return users;
+        recentWrites.put(user.getUuid(), true);
+        if (user.getPremiumUUID() != null) recentWrites.put(user.getPremiumUUID(), true);
+        if (user.getLastNickname() != null) recentWrites.put(user.getLastNickname().toLowerCase(), true);
+        if (user.getIp() != null) recentWrites.put(user.getIp(), true);
+    }
+
+    @Override
+    public Collection<User> getByIP(String ip) {
+        plugin.reportMainThread();
+        return metrics.time("getByIP", () -> {
+            return readMany(Collections.singleton(ip), connection -> {
+                return selectByIP.list(connection, ps -> ps.setString(1, ip));
+            });
         });
     }
 
     @Override
-    public User getByUUID(UUID uuid) {
+    public User getByName(String name) {
         plugin.reportMainThread();
-        return connector.runQuery(connection -> {
-            var ps = connection.prepareStatement("SELECT * FROM authentication WHERE uuid=?");
+        return metrics.time("getByName", () -> {
+            return readUser(user -> user.getLastNickname().equalsIgnoreCase(name), () -> readOne(name.toLowerCase(), connection -> {
+                return selectByName.single(connection, ps -> ps.setString(1, name));
+            }));
+        });
+    }
 
-            ps.setString(1, uuid.toString());
+    @Override
+    public Collection<User> getAllUsers() {
+        plugin.reportMainThread();
+        return metrics.time("getAllUsers", () -> {
+            var legacy = legacySelectAll;
 
-            var rs = ps.executeQuery();
+            if (legacy != null) {
+                return toUsers(read(connection -> legacy.list(connection, StatementBinder.NONE)), true);
+            }
 
-            return getUserFromResult(rs);
+            return read(connection -> {
+                return selectAll.list(connection, StatementBinder.NONE);
+            });
+        });
+    }
 
+    @Override
+    public User getByUUID(UUID uuid) {
+        plugin.reportMainThread();
+        return metrics.time("getByUUID", () -> {
+            return readUser(user -> user.getUuid().equals(uuid), () -> readOne(uuid, connection -> {
+                return selectByUUID.single(connection, ps -> setUUID(ps, 1, uuid));
+            }));
         });
     }
 
     @Override
     public User getByPremiumUUID(UUID uuid) {
         plugin.reportMainThread();
-        return connector.runQuery(connection -> {
-            var ps = connection.prepareStatement("SELECT * FROM authentication WHERE premium_uuid=?");
+        return metrics.time("getByPremiumUUID", () -> {
+            return readUser(user -> uuid.equals(user.getPremiumUUID()), () -> readOne(uuid, connection -> {
+                return selectByPremiumUUID.single(connection, ps -> setUUID(ps, 1, uuid));
+            }));
+        });
+    }
+
+    @Override
+    public Map<UUID, User> getByUUIDs(Collection<UUID> uuids) {
+        plugin.reportMainThread();
+        return metrics.time("getByUUIDs", () -> {
+            var unique = List.copyOf(new HashSet<>(uuids));
+            var users = new HashMap<UUID, User>(unique.size());
 
-            ps.setString(1, uuid.toString());
+            for (int from = 0; from < unique.size(); from += BULK_CHUNK_SIZE) {
+                var chunk = unique.subList(from, Math.min(from + BULK_CHUNK_SIZE, unique.size()));
+                var query = new SQLQuery<User>(SELECT_USERS + " WHERE uuid IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")", this::mapUser);
 
-            var rs = ps.executeQuery();
+                var found = readMany(chunk, connection -> {
+                    return query.list(connection, ps -> {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            setUUID(ps, i + 1, chunk.get(i));
+                        }
+                    });
+                });
+
+                for (User user : found) {
+                    // The database may not contain the latest state yet
+                    users.put(user.getUuid(), pendingUpdates.getOrDefault(user.getUuid(), user));
+                }
+            }
 
-            return getUserFromResult(rs);
+            return users;
         });
     }
 
-    @Nullable
-    private User getUserFromResult(ResultSet rs) throws SQLException {
-        if (rs.next()) {
-            var id = UUID.fromString(rs.getString("uuid"));
-            var premiumUUID = rs.getString("premium_uuid");
-            var hashedPassword = rs.getString("hashed_password");
-            var salt = rs.getString("salt");
-            var algo = rs.getString("algo");
-            var lastNickname = rs.getString("last_nickname");
-            var joinDate = rs.getTimestamp("joined");
-            var lastSeen = rs.getTimestamp("last_seen");
+    /**
+     * Maps a row selected with {@link #USER_COLUMNS}.
+     */
+    private User mapUser(ResultSet rs) throws SQLException {
+        var hashedPassword = rs.getString(3);
 
-            return new AuthenticUser(
-                    id,
-                    premiumUUID == null ? null : UUID.fromString(premiumUUID),
-                    hashedPassword == null ? null : new HashedPassword(
-                            hashedPassword,
-                            salt,
-                            algo
-                    ),
-                    lastNickname,
-                    joinDate,
-                    lastSeen,
-                    rs.getString("secret"),
-                    rs.getString("ip"),
-                    rs.getTimestamp("last_authentication"),
-                    rs.getString("last_server"),
-                    rs.getString("email")
-            );
-        } else return null;
+        return new AuthenticUser(
+                getUUID(rs, 1),
+                getUUID(rs, 2),
+                hashedPassword == null ? null : new HashedPassword(
+                        hashedPassword,
+                        rs.getString(4),
+                        algorithms.name(rs.getStatement().getConnection(), rs.getShort(5))
+                ),
+                rs.getString(6),
+                rs.getTimestamp(7),
+                rs.getTimestamp(8),
+                rs.getString(9),
+                rs.getString(10),
+                rs.getTimestamp(11),
+                rs.getString(12),
+                rs.getString(13)
+        );
     }
 
     @Override
     public void insertUser(User user) {
         plugin.reportMainThread();
-        connector.runQuery(connection -> {
-            var ps = connection.prepareStatement("INSERT INTO authentication(uuid, premium_uuid, hashed_password, salt, algo, last_nickname, joined, last_seen, secret, ip, last_authentication, last_server, email) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
-
-            insertToStatement(ps, user);
-
-            ps.executeUpdate();
+        metrics.time("insertUser", () -> {
+            write(user, connection -> {
+                INSERT.execute(connection, ps -> bindUser(ps, 0, user));
+            });
+            markWritten(user);
         });
     }
 
     @Override
     public void insertUsers(Collection<User> users) {
         plugin.reportMainThread();
-        connector.runQuery(connection -> {
-            var ps = connection.prepareStatement("INSERT " + getIgnoreSyntax() + " INTO authentication(uuid, premium_uuid, hashed_password, salt, algo, last_nickname, joined, last_seen, secret, ip, last_authentication, last_server, email) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)" + getIgnoreSuffix());
+        metrics.time("insertUsers", () -> {
+            if (users.isEmpty()) return;
 
-            for (User user : users) {
-                insertToStatement(ps, user);
+            var progress = new BulkProgress(plugin.getLogger(), users.size());
+
+            transaction(connection -> {
+                progress.reset();
+
+                // Registered outside the transaction, so that a rollback cannot leave a cached code which does not exist
+                for (User user : users) {
+                    if (user.getHashedPassword() != null) algorithms.code(connection, user.getHashedPassword().algo());
+                }
+
+                var autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
 
+                try {
+                    bulkInsert(connection, users, progress);
+                    connection.commit();
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            });
+
+            users.forEach(this::markWritten);
+        });
+    }
+
+    /**
+     * Inserts the users, skipping the ones which already exist. Runs in a transaction, which is committed afterwards.
+     * By default, the users are sent in JDBC batches of {@link #BULK_CHUNK_SIZE} rows.
+     *
+     * @param connection The connection, auto-commit is disabled
+     * @param users      The users to insert
+     * @param progress   The progress, should be advanced after every chunk
+     */
+    protected void bulkInsert(Connection connection, Collection<User> users, BulkProgress progress) throws SQLException {
+        insertBatched(connection, "authentication", users, progress);
+    }
+
+    private void insertBatched(Connection connection, String table, Collection<User> users, BulkProgress progress) throws SQLException {
+        try (var ps = connection.prepareStatement("INSERT " + getIgnoreSyntax() + " INTO " + table + "(" + USER_COLUMNS + ") VALUES " + valuesPlaceholder(1) + getIgnoreSuffix())) {
+            var pending = 0;
+
+            for (User user : users) {
+                bindUser(ps, 0, user);
                 ps.addBatch();
+
+                if (++pending == BULK_CHUNK_SIZE) {
+                    ps.executeBatch();
+                    progress.advance(pending);
+                    pending = 0;
+                }
             }
 
-            ps.executeBatch();
-        });
+            if (pending > 0) {
+                ps.executeBatch();
+                progress.advance(pending);
+            }
+        }
+    }
+
+    /**
+     * @param rows The amount of rows
+     * @return The VALUES placeholders for the given amount of user rows
+     */
+    protected static String valuesPlaceholder(int rows) {
+        var row = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        var builder = new StringBuilder(rows * (row.length() + 2));
+
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) builder.append(", ");
+            builder.append(row);
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Binds the user in the order of {@link #USER_COLUMNS}.
+     *
+     * @param ps     The statement
+     * @param offset The amount of parameters before the user
+     * @param user   The user
+     */
+    protected void bindUser(PreparedStatement ps, int offset, User user) throws SQLException {
+        setUUID(ps, offset + 1, user.getUuid());
+        setUUID(ps, offset + 2, user.getPremiumUUID());
+        bindUserData(ps, offset + 2, user);
+    }
+
+    /**
+     * Binds the columns of the user after the premium UUID, shared by inserts and updates.
+     */
+    private void bindUserData(PreparedStatement ps, int offset, User user) throws SQLException {
+        var password = user.getHashedPassword();
+
+        ps.setString(offset + 1, password == null ? null : password.hash());
+        ps.setString(offset + 2, password == null ? null : password.salt());
+        setAlgorithm(ps, offset + 3, password == null ? null : password.algo());
+        ps.setString(offset + 4, user.getLastNickname());
+        ps.setTimestamp(offset + 5, user.getJoinDate());
+        ps.setTimestamp(offset + 6, user.getLastSeen());
+        ps.setString(offset + 7, user.getSecret());
+        ps.setString(offset + 8, user.getIp());
+        ps.setTimestamp(offset + 9, user.getLastAuthentication());
+        ps.setString(offset + 10, user.getLastServer());
+        ps.setString(offset + 11, user.getEmail());
+    }
+
+    private void setAlgorithm(PreparedStatement ps, int index, @Nullable String algo) throws SQLException {
+        var code = algorithms.code(ps.getConnection(), algo);
+
+        if (code == null) {
+            ps.setNull(index, Types.SMALLINT);
+        } else {
+            ps.setShort(index, code);
+        }
     }
 
-    private void insertToStatement(PreparedStatement ps, User user) throws SQLException {
-        ps.setString(1, user.getUuid().toString());
-        ps.setString(2, user.getPremiumUUID() == null ? null : user.getPremiumUUID().toString());
-        ps.setString(3, user.getHashedPassword() == null ? null : user.getHashedPassword().hash());
-        ps.setString(4, user.getHashedPassword() == null ? null : user.getHashedPassword().salt());
-        ps.setString(5, user.getHashedPassword() == null ? null : user.getHashedPassword().algo());
-        ps.setString(6, user.getLastNickname());
-        ps.setTimestamp(7, user.getJoinDate());
-        ps.setTimestamp(8, user.getLastSeen());
-        ps.setString(9, user.getSecret());
-        ps.setString(10, user.getIp());
-        ps.setTimestamp(11, user.getLastAuthentication());
-        ps.setString(12, user.getLastServer());
-        ps.setString(13, user.getEmail());
+    /**
+     * @return The code of the algorithm, the algorithm must have been used by this provider before
+     */
+    protected short algorithmCode(Connection connection, String algo) throws SQLException {
+        //noinspection ConstantConditions
+        return algorithms.code(connection, algo);
     }
 
+    /**
+     * Binds the UUID in the native format of the database, by default as 16 bytes.
+     */
+    protected void setUUID(PreparedStatement ps, int index, @Nullable UUID uuid) throws SQLException {
+        if (uuid == null) {
+            ps.setNull(index, Types.BINARY);
+        } else {
+            ps.setBytes(index, GeneralUtil.uuidToBytes(uuid));
+        }
+    }
+
+    /**
+     * Reads the UUID in the native format of the database, by default as 16 bytes.
+     */
+    @Nullable
+    protected UUID getUUID(ResultSet rs, int index) throws SQLException {
+        var bytes = rs.getBytes(index);
+        return bytes == null ? null : GeneralUtil.uuidFromBytes(bytes);
+    }
+
+    /**
+     * @return The column type used for UUIDs
+     */
+    protected abstract String getUUIDType();
+
     @Override
     public void updateUser(User user) {
         plugin.reportMainThread();
-        connector.runQuery(connection -> {
-            var ps = connection.prepareStatement("UPDATE authentication SET premium_uuid=?, hashed_password=?, salt=?, algo=?, last_nickname=?, joined=?, last_seen=?, secret=?, ip=?, last_authentication=?, last_server=?, email=? WHERE uuid=?");
-
-            ps.setString(1, user.getPremiumUUID() == null ? null : user.getPremiumUUID().toString());
-            ps.setString(2, user.getHashedPassword() == null ? null : user.getHashedPassword().hash());
-            ps.setString(3, user.getHashedPassword() == null ? null : user.getHashedPassword().salt());
-            ps.setString(4, user.getHashedPassword() == null ? null : user.getHashedPassword().algo());
-            ps.setString(5, user.getLastNickname());
-            ps.setTimestamp(6, user.getJoinDate());
-            ps.setTimestamp(7, user.getLastSeen());
-            ps.setString(8, user.getSecret());
-            ps.setString(9, user.getIp());
-            ps.setTimestamp(10, user.getLastAuthentication());
-            ps.setString(11, user.getLastServer());
-            ps.setString(12, user.getEmail());
-            ps.setString(13, user.getUuid().toString());
-            ps.executeUpdate();
+        metrics.time("updateUser", () -> {
+            // While a state is queued, only the flush writes the user, so that it cannot write the older state over this one.
+            // The flush removes the queued state after writing it, so once it is gone, it is in the database already.
+            if (pendingUpdates.computeIfPresent(user.getUuid(), (uuid, pending) -> user) == null) {
+                try {
+                    writeUpdate(user);
+                } catch (DatabaseUnavailableException e) {
+                    if (pendingUpdates.size() >= MAX_PENDING_UPDATES) throw e;
+                    pendingUpdates.put(user.getUuid(), user);
+                }
+            }
+            lastKnown.put(user.getUuid(), user);
         });
     }
 
+    private void writeUpdate(User user) {
+        write(user, connection -> {
+            UPDATE.execute(connection, ps -> bindUpdate(ps, user));
+        });
+        markWritten(user);
+    }
+
+    private void bindUpdate(PreparedStatement ps, User user) throws SQLException {
+        setUUID(ps, 1, user.getPremiumUUID());
+        bindUserData(ps, 1, user);
+        setUUID(ps, 13, user.getUuid());
+    }
+
+    @Override
+    public void commit(UnitOfWork unit) {
+        plugin.reportMainThread();
+        metrics.time("commit", () -> {
+            var operations = unit.getOperations();
+            if (operations.isEmpty()) return;
+
+            transaction(connection -> {
+                // Registered outside the transaction, so that a rollback cannot leave a cached code which does not exist
+                for (UnitOfWork.Operation operation : operations) {
+                    var password = operation.user().getHashedPassword();
+                    if (operation.action() != UnitOfWork.Action.DELETE && password != null) algorithms.code(connection, password.algo());
+                }
+
+                var autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+
+                try {
+                    applyOperations(connection, operations);
+                    connection.commit();
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            });
+
+            for (UnitOfWork.Operation operation : operations) {
+                var user = operation.user();
+
+                markWritten(user);
+                // The committed state is newer than anything queued while the database was unavailable
+                pendingUpdates.remove(user.getUuid());
+
+                if (operation.action() == UnitOfWork.Action.DELETE) {
+                    lastKnown.invalidate(user.getUuid());
+                } else {
+                    lastKnown.put(user.getUuid(), user);
+                }
+            }
+        });
+    }
+
+    /**
+     * Sends consecutive operations of the same kind as a single JDBC batch. The batch is flushed whenever the kind changes, which keeps the order of the operations.
+     */
+    private void applyOperations(Connection connection, List<UnitOfWork.Operation> operations) throws SQLException {
+        PreparedStatement statement = null;
+        UnitOfWork.Action current = null;
+
+        try {
+            for (UnitOfWork.Operation operation : operations) {
+                if (operation.action() != current) {
+                    if (statement != null) {
+                        statement.executeBatch();
+                        statement.close();
+                    }
+
+                    current = operation.action();
+                    statement = connection.prepareStatement(switch (current) {
+                        case INSERT -> INSERT.sql();
+                        case UPDATE -> UPDATE.sql();
+                        case DELETE -> DELETE.sql();
+                    });
+                }
+
+                switch (current) {
+                    case INSERT -> bindUser(statement, 0, operation.user());
+                    case UPDATE -> bindUpdate(statement, operation.user());
+                    case DELETE -> setUUID(statement, 1, operation.user().getUuid());
+                }
+
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        } finally {
+            if (statement != null) statement.close();
+        }
+    }
+
+    /**
+     * Writes the queued states. The writes happen outside the map, a state is removed only after it has been written.
+     * Synchronized, so that two flushes cannot write the states of a user out of order.
+     */
+    private synchronized void flushPendingUpdates() {
+        if (pendingUpdates.isEmpty()) return;
+
+        plugin.getLogger().info("Writing %s changes made while the database was unavailable...".formatted(pendingUpdates.size()));
+
+        for (UUID uuid : pendingUpdates.keySet()) {
+            User pending;
+
+            while ((pending = pendingUpdates.get(uuid)) != null) {
+                try {
+                    writeUpdate(pending);
+                } catch (DatabaseUnavailableException e) {
+                    // Lost the connection again, the rest stays queued
+                    return;
+                }
+
+                // Otherwise a newer state has been queued while writing, which is written next
+                if (pendingUpdates.remove(uuid, pending)) break;
+            }
+        }
+    }
+
+    private User readUser(Predicate<User> matcher, Supplier<User> query) {
+        User user;
+        try {
+            user = query.get();
+        } catch (DatabaseUnavailableException e) {
+            for (User known : lastKnown.asMap().values()) {
+                if (matcher.test(known)) return known;
+            }
+            throw e;
+        }
+
+        if (user == null) return null;
+
+        // The database may not contain the latest state yet
+        var pending = pendingUpdates.get(user.getUuid());
+        if (pending != null) return pending;
+
+        lastKnown.put(user.getUuid(), user);
+        return user;
+    }
+
     @Override
     public void deleteUser(User user) {
         plugin.reportMainThread();
-        connector.runQuery(connection -> {
-            var ps = connection.prepareStatement("DELETE FROM authentication WHERE uuid=?");
+        metrics.time("deleteUser", () -> {
+            write(user, connection -> {
+                DELETE.execute(connection, ps -> setUUID(ps, 1, user.getUuid()));
+            });
+            markWritten(user);
+            lastKnown.invalidate(user.getUuid());
+            pendingUpdates.remove(user.getUuid());
+        });
+    }
 
-            ps.setString(1, user.getUuid().toString());
+    /**
+     * Shares the failed login attempts with the other proxies, see {@link LoginAttemptTable#exchange(Connection, Collection, Collection, long)}.
+     */
+    public List<LoginAttemptTable.Attempts> exchangeLoginAttempts(Collection<LoginAttemptTable.Attempts> counted, Collection<LoginAttemptTable.Attempts> cleared, long oldest) {
+        return metrics.time("exchangeLoginAttempts", () -> {
+            ThrowableFunction<Connection, List<LoginAttemptTable.Attempts>, SQLException> exchange = connection -> LoginAttemptTable.exchange(connection, counted, cleared, oldest);
 
-            ps.executeUpdate();
+            return connector instanceof AuthenticHikariDatabaseConnector hikari ? hikari.runTransaction(exchange) : connector.runQuery(exchange);
         });
     }
 
     @Override
     public void validateSchema() {
+        transaction(connection -> {
+            execute(connection, "CREATE TABLE IF NOT EXISTS librelogin_schema(version INT NOT NULL)");
+            execute(connection, "CREATE TABLE IF NOT EXISTS librelogin_migration_lock(id INT NOT NULL PRIMARY KEY, owner VARCHAR(64) NOT NULL, acquired TIMESTAMP NOT NULL)");
+            AlgorithmCodes.createTable(connection);
+
+            LoginAttemptTable.createTable(this, connection);
+        });
+
+        // The migration manages its own transactions, the connection is only borrowed for it
+        transaction(connection -> {
+            var version = SELECT_SCHEMA_VERSION.single(connection, StatementBinder.NONE);
+
+            if (version == null || version == 0) {
+                var owner = acquireMigrationLock(connection);
+
+                try {
+                    migrateSchema(connection);
+                } finally {
+                    RELEASE_MIGRATION_LOCK.execute(connection, ps -> ps.setString(1, owner));
+                }
+            } else if (version > SCHEMA_VERSION) {
+                throw new IllegalStateException("The database schema version %s is newer than the supported version %s, please update LibreLogin".formatted(version, SCHEMA_VERSION));
+            }
+
+            algorithms.load(connection);
+        });
+    }
+
+    /**
+     * Reads the schema as it is. A version 1 schema is not upgraded, its rows are converted while reading instead.
+     */
+    @Override
+    public void prepareForReading() {
         connector.runQuery(connection -> {
-            connection.prepareStatement(
-                    "CREATE TABLE IF NOT EXISTS authentication(" +
-                            "uuid VARCHAR(255) NOT NULL PRIMARY KEY," +
-                            "premium_uuid VARCHAR(255) UNIQUE," +
-                            "hashed_password VARCHAR(255)," +
-                            "salt VARCHAR(255)," +
-                            "algo VARCHAR(255)," +
-                    "last_nickname VARCHAR(255) NOT NULL UNIQUE," +
-                            "joined TIMESTAMP NULL DEFAULT NULL," +
-                            "last_seen TIMESTAMP NULL DEFAULT NULL," +
-                            "last_server VARCHAR(255)" +
-                            ")"
-            ).executeUpdate();
-
-            var columns = getColumnNames(connection);
+            var version = getColumnNames(connection, "librelogin_schema").isEmpty() ? null : SELECT_SCHEMA_VERSION.single(connection, StatementBinder.NONE);
+
+            if (version != null && version > SCHEMA_VERSION) {
+                throw new IllegalStateException("The database schema version %s is newer than the supported version %s, please update LibreLogin".formatted(version, SCHEMA_VERSION));
+            }
+
+            // If authentication_v1 exists, an upgrade swapped the tables, but did not get to record the version
+            if ((version == null || version == 0) && getColumnNames(connection, "authentication_v1").isEmpty()) {
+                var columns = getColumnNames(connection, "authentication");
+                var select = new ArrayList<String>(USER_COLUMN_COUNT);
 
+                // A very old version 1 table may lack some of the columns
+                for (String column : USER_COLUMNS.split(", ")) {
+                    select.add(columns.contains(column) ? column : "NULL");
+                }
+
+                legacySelectAll = new SQLQuery<>("SELECT " + String.join(", ", select) + " FROM authentication", LibreLoginSQLDatabaseProvider::mapLegacyRow);
+            } else {
+                algorithms.load(connection);
+            }
+
+            return null;
+        });
+    }
+
+    /**
+     * Creates or upgrades the schema and records its version. Must be called while holding the migration lock.
+     */
+    private void migrateSchema(Connection connection) throws SQLException {
+        // Another proxy might have finished the migration while this one was waiting for the lock
+        var version = SELECT_SCHEMA_VERSION.single(connection, StatementBinder.NONE);
+        if (version != null && version != 0) return;
+
+        // If authentication_v1 exists, the previous upgrade swapped the tables, but did not get to record the version
+        if (getColumnNames(connection, "authentication_v1").isEmpty()) {
+            if (getColumnNames(connection, "authentication").isEmpty()) {
+                createTable(connection, "authentication");
+            } else {
+                upgradeLegacySchema(connection);
+                migrateToV2(connection);
+            }
+        }
+
+        INSERT_SCHEMA_VERSION.execute(connection, ps -> ps.setInt(1, SCHEMA_VERSION));
+    }
+
+    /**
+     * Makes sure, that only a single proxy creates or migrates the schema. The lock is a row, so it works the same with every database.
+     *
+     * @return The owner of the lock, used to release it
+     */
+    private String acquireMigrationLock(Connection connection) throws SQLException {
+        var owner = UUID.randomUUID().toString();
+        var deadline = System.currentTimeMillis() + MIGRATION_LOCK_TIMEOUT;
+        var logged = false;
+
+        while (true) {
             try {
-                connection.prepareStatement(addUnique("premium_uuid")).executeUpdate();
-            } catch (SQLException ignored) {
+                ACQUIRE_MIGRATION_LOCK.execute(connection, ps -> {
+                    ps.setString(1, owner);
+                    ps.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+                });
+                return owner;
+            } catch (SQLException e) {
+                // Anything else than the row being held already is a genuine error
+                if (SELECT_MIGRATION_LOCK.single(connection, StatementBinder.NONE) == null) throw e;
             }
 
-            if (!columns.contains("secret"))
-                connection.prepareStatement("ALTER TABLE authentication ADD COLUMN secret VARCHAR(255) NULL DEFAULT NULL").executeUpdate();
-            if (!columns.contains("ip"))
-                connection.prepareStatement("ALTER TABLE authentication ADD COLUMN ip VARCHAR(255) NULL DEFAULT NULL").executeUpdate();
-            if (!columns.contains("last_authentication"))
-                connection.prepareStatement("ALTER TABLE authentication ADD COLUMN last_authentication TIMESTAMP NULL DEFAULT NULL").executeUpdate();
-            if (!columns.contains("last_server")) {
-                connection.prepareStatement("ALTER TABLE authentication ADD COLUMN last_server VARCHAR(255) NULL DEFAULT NULL").executeUpdate();
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Another proxy has been migrating the database for too long. If no other proxy is running, delete the row from the librelogin_migration_lock table and restart");
             }
-            if (!columns.contains("email")) {
-                connection.prepareStatement("ALTER TABLE authentication ADD COLUMN email VARCHAR(255) NULL DEFAULT NULL").executeUpdate();
+
+            if (!logged) {
+                plugin.getLogger().info("Another proxy is migrating the database, waiting for it to finish...");
+                logged = true;
             }
 
             try {
-                connection.prepareStatement(addUnique("last_nickname")).executeUpdate();
-            } catch (SQLException ignored) {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the migration lock", e);
             }
-        });
+        }
     }
 
-    protected abstract List<String> getColumnNames(Connection connection) throws SQLException;
+    private void createTable(Connection connection, String name) throws SQLException {
+        var uuid = getUUIDType();
+
+        execute(connection,
+                "CREATE TABLE " + name + "(" +
+                        "uuid " + uuid + " NOT NULL PRIMARY KEY," +
+                        "premium_uuid " + uuid + " NULL UNIQUE," +
+                        "hashed_password VARCHAR(255) NULL DEFAULT NULL," +
+                        "salt VARCHAR(255) NULL DEFAULT NULL," +
+                        "algo SMALLINT NULL DEFAULT NULL," +
+                        "last_nickname VARCHAR(64) NOT NULL UNIQUE," +
+                        "joined TIMESTAMP NULL DEFAULT NULL," +
+                        "last_seen TIMESTAMP NULL DEFAULT NULL," +
+                        "secret VARCHAR(255) NULL DEFAULT NULL," +
+                        "ip VARCHAR(64) NULL DEFAULT NULL," +
+                        "last_authentication TIMESTAMP NULL DEFAULT NULL," +
+                        "last_server VARCHAR(255) NULL DEFAULT NULL," +
+                        "email VARCHAR(255) NULL DEFAULT NULL" +
+                        ")"
+        );
+
+        execute(connection, "CREATE INDEX authentication_ip_index ON " + name + "(ip)");
+    }
+
+    /**
+     * Brings a version 1 table up to date, the table might have been created by a very old version of LibreLogin.
+     */
+    private void upgradeLegacySchema(Connection connection) throws SQLException {
+        var columns = getColumnNames(connection, "authentication");
+
+        if (!columns.contains("secret"))
+            execute(connection, "ALTER TABLE authentication ADD COLUMN secret VARCHAR(255) NULL DEFAULT NULL");
+        if (!columns.contains("ip"))
+            execute(connection, "ALTER TABLE authentication ADD COLUMN ip VARCHAR(255) NULL DEFAULT NULL");
+        if (!columns.contains("last_authentication"))
+            execute(connection, "ALTER TABLE authentication ADD COLUMN last_authentication TIMESTAMP NULL DEFAULT NULL");
+        if (!columns.contains("last_server")) {
+            execute(connection, "ALTER TABLE authentication ADD COLUMN last_server VARCHAR(255) NULL DEFAULT NULL");
+        }
+        if (!columns.contains("email")) {
+            execute(connection, "ALTER TABLE authentication ADD COLUMN email VARCHAR(255) NULL DEFAULT NULL");
+        }
+    }
+
+    /**
+     * Copies the version 1 table into a new table with the version 2 schema and swaps them.
+     * The rows are copied in chunks, each in its own transaction, so the old table is never locked for long.
+     * Proxies still running the previous version may keep writing meanwhile, so before the swap, the writes are blocked with {@link #lockForMigration(Connection)}
+     * and every chunk, which has changed since it was copied, is copied again. After the swap, the previous version no longer works, the whole network must be updated.
+     * The old table is kept as authentication_v1.
+     */
+    private void migrateToV2(Connection connection) throws SQLException {
+        var logger = plugin.getLogger();
+
+        logger.info("Upgrading the database schema to version %s, this may take a while...".formatted(SCHEMA_VERSION));
+        logger.warn("Proxies running the previous version of LibreLogin will stop working once the upgrade finishes, update all the proxies sharing this database");
+
+        execute(connection, "DROP TABLE IF EXISTS authentication_v2");
+        createTable(connection, "authentication_v2");
+
+        for (String algo : new SQLQuery<String>("SELECT DISTINCT algo FROM authentication WHERE algo IS NOT NULL", rs -> rs.getString(1)).list(connection, StatementBinder.NONE)) {
+            algorithms.code(connection, algo);
+        }
+
+        var total = new SQLQuery<Integer>("SELECT COUNT(*) FROM authentication", rs -> rs.getInt(1)).single(connection, StatementBinder.NONE);
+        var progress = new BulkProgress(logger, total == null ? 0 : total);
+        var chunkQuery = new SQLQuery<>("SELECT " + USER_COLUMNS + " FROM authentication WHERE uuid > ? ORDER BY uuid LIMIT " + BULK_CHUNK_SIZE, LibreLoginSQLDatabaseProvider::mapLegacyRow);
+
+        var autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try {
+            var chunks = new ArrayList<CopiedChunk>();
+            var last = "";
+
+            while (true) {
+                var from = last;
+                var rows = chunkQuery.list(connection, ps -> ps.setString(1, from));
+
+                if (rows.isEmpty()) break;
+
+                var users = toUsers(rows, true);
+
+                insertBatched(connection, "authentication_v2", users, progress);
+                connection.commit();
+
+                last = rows.get(rows.size() - 1).uuid();
+                chunks.add(new CopiedChunk(from, last, fingerprint(rows), users.isEmpty() ? null : users.get(0).getUuid(), users.isEmpty() ? null : users.get(users.size() - 1).getUuid()));
+            }
+
+            lockForMigration(connection);
+
+            var changed = copyChangedChunks(connection, chunks, last);
+            if (changed > 0) logger.info("Copied %s chunks again, which changed during the upgrade".formatted(changed));
+
+            swapTables(connection);
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            unlockAfterMigration(connection);
+            connection.setAutoCommit(autoCommit);
+        }
+
+        logger.info("Database schema upgraded, the old data has been kept in the authentication_v1 table, you can drop it once you verify everything works");
+    }
+
+    /**
+     * Compares every copied chunk with its current content and copies it again, if it differs. Runs in the transaction holding the migration write lock.
+     *
+     * @param last The last UUID copied, the rows inserted after it are copied as well
+     * @return The amount of chunks copied again
+     */
+    private int copyChangedChunks(Connection connection, List<CopiedChunk> chunks, String last) throws SQLException {
+        var rangeQuery = new SQLQuery<>("SELECT " + USER_COLUMNS + " FROM authentication WHERE uuid > ? AND uuid <= ? ORDER BY uuid", LibreLoginSQLDatabaseProvider::mapLegacyRow);
+        var changed = 0;
+
+        for (CopiedChunk chunk : chunks) {
+            var rows = rangeQuery.list(connection, ps -> {
+                ps.setString(1, chunk.from());
+                ps.setString(2, chunk.to());
+            });
+
+            if (MessageDigest.isEqual(fingerprint(rows), chunk.fingerprint())) continue;
+
+            if (chunk.first() != null) {
+                // Removes also the rows deleted from the old table since the copy
+                new SQLUpdate("DELETE FROM authentication_v2 WHERE uuid >= ? AND uuid <= ?").execute(connection, ps -> {
+                    setUUID(ps, 1, chunk.first());
+                    setUUID(ps, 2, chunk.last());
+                });
+            }
+
+            replaceUsers(connection, toUsers(rows, false));
+            changed++;
+        }
+
+        var inserted = new SQLQuery<>("SELECT " + USER_COLUMNS + " FROM authentication WHERE uuid > ? ORDER BY uuid", LibreLoginSQLDatabaseProvider::mapLegacyRow)
+                .list(connection, ps -> ps.setString(1, last));
+
+        if (!inserted.isEmpty()) {
+            replaceUsers(connection, toUsers(inserted, true));
+            changed++;
+        }
+
+        return changed;
+    }
+
+    private void replaceUsers(Connection connection, List<User> users) throws SQLException {
+        try (var ps = connection.prepareStatement("DELETE FROM authentication_v2 WHERE uuid=?")) {
+            for (User user : users) {
+                setUUID(ps, 1, user.getUuid());
+                ps.addBatch();
+            }
+
+            ps.executeBatch();
+        }
+
+        insertBatched(connection, "authentication_v2", users, new BulkProgress(plugin.getLogger(), users.size()));
+    }
+
+    private List<User> toUsers(List<LegacyRow> rows, boolean warn) {
+        var users = new ArrayList<User>(rows.size());
+
+        for (LegacyRow row : rows) {
+            try {
+                users.add(row.toUser());
+            } catch (IllegalArgumentException e) {
+                if (warn) plugin.getLogger().warn("Skipping user with a malformed UUID %s, the row is kept in the authentication_v1 table".formatted(row.uuid()));
+            }
+        }
+
+        return users;
+    }
+
+    /**
+     * Blocks the writes to the authentication table until the transaction ends. By default, a row is written, which takes the write lock of the whole SQLite database.
+     */
+    protected void lockForMigration(Connection connection) throws SQLException {
+        execute(connection, "UPDATE librelogin_migration_lock SET acquired = acquired");
+    }
+
+    /**
+     * Releases a lock taken by {@link #lockForMigration(Connection)}, which does not end with the transaction. Called after the swap, also if the migration fails.
+     */
+    protected void unlockAfterMigration(Connection connection) throws SQLException {
+    }
+
+    /**
+     * Renames authentication to authentication_v1 and authentication_v2 to authentication. Runs in a transaction.
+     */
+    protected void swapTables(Connection connection) throws SQLException {
+        execute(connection, "ALTER TABLE authentication RENAME TO authentication_v1");
+        execute(connection, "ALTER TABLE authentication_v2 RENAME TO authentication");
+    }
+
+    /**
+     * Digests the rows with SHA-256. Every value is length-prefixed, so that no two different chunks serialize the same.
+     */
+    private static byte[] fingerprint(List<LegacyRow> rows) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+
+        for (LegacyRow row : rows) {
+            for (Object value : row.values()) {
+                if (value == null) {
+                    digest.update((byte) 0);
+                    continue;
+                }
+
+                var bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+
+                digest.update((byte) 1);
+                digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+                digest.update(bytes);
+            }
+        }
+
+        return digest.digest();
+    }
+
+    private static LegacyRow mapLegacyRow(ResultSet rs) throws SQLException {
+        return new LegacyRow(
+                rs.getString(1),
+                rs.getString(2),
+                rs.getString(3),
+                rs.getString(4),
+                rs.getString(5),
+                rs.getString(6),
+                rs.getTimestamp(7),
+                rs.getTimestamp(8),
+                rs.getString(9),
+                rs.getString(10),
+                rs.getTimestamp(11),
+                rs.getString(12),
+                rs.getString(13)
+        );
+    }
+
+    protected static void execute(Connection connection, String sql) throws SQLException {
+        try (var statement = connection.prepareStatement(sql)) {
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * @return The names of the columns of the table, empty if the table does not exist
+     */
+    protected abstract List<String> getColumnNames(Connection connection, String table) throws SQLException;
+
+    /**
+     * Creates the index, unless it exists. A failed statement would abort the surrounding transaction on PostgreSQL, so the existing index must not be an error.
+     */
+    protected void createIndex(Connection connection, String index, String table, String column) throws SQLException {
+        execute(connection, "CREATE INDEX IF NOT EXISTS %s ON %s(%s)".formatted(index, table, column));
+    }
 
     protected String getIgnoreSyntax() {
         return "";
@@ -280,5 +1084,44 @@ public abstract class LibreLoginSQLDatabaseProvider extends AuthenticDatabasePro
         return "";
     }
 
-    protected abstract String addUnique(String column);
+    /**
+     * A chunk of the version 1 table, which has been copied during the migration.
+     *
+     * @param from        The UUID after which the chunk starts
+     * @param to          The last UUID of the chunk
+     * @param fingerprint The SHA-256 digest of the copied rows, used to detect changes
+     * @param first       The first copied UUID, null if none of the rows was valid
+     * @param last        The last copied UUID, null if none of the rows was valid
+     */
+    private record CopiedChunk(String from, String to, byte[] fingerprint, @Nullable UUID first, @Nullable UUID last) {
+    }
+
+    /**
+     * A row of the version 1 schema, where everything was stored as a string.
+     */
+    private record LegacyRow(String uuid, String premiumUUID, String hashedPassword, String salt, String algo,
+                             String lastNickname, Timestamp joined, Timestamp lastSeen, String secret,
+                             String ip, Timestamp lastAuthentication, String lastServer, String email) {
+
+        private Object[] values() {
+            return new Object[]{uuid, premiumUUID, hashedPassword, salt, algo, lastNickname, joined, lastSeen, secret, ip, lastAuthentication, lastServer, email};
+        }
+
+        private User toUser() {
+            return new AuthenticUser(
+                    UUID.fromString(uuid),
+                    premiumUUID == null ? null : UUID.fromString(premiumUUID),
+                    hashedPassword == null ? null : new HashedPassword(hashedPassword, salt, algo),
+                    lastNickname,
+                    joined,
+                    lastSeen,
+                    secret,
+                    ip,
+                    lastAuthentication,
+                    lastServer,
+                    email
+            );
+        }
+
+    }
 }
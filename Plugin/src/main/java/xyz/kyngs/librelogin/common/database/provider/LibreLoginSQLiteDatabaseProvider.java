@@ -8,10 +8,11 @@ package xyz.kyngs.librelogin.common.database.provider;
 
 import xyz.kyngs.librelogin.api.database.connector.SQLiteDatabaseConnector;
 import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
+import xyz.kyngs.librelogin.common.database.query.SQLQuery;
+import xyz.kyngs.librelogin.common.database.query.StatementBinder;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.List;
 
 public class LibreLoginSQLiteDatabaseProvider extends LibreLoginSQLDatabaseProvider {
@@ -20,25 +21,19 @@ public class LibreLoginSQLiteDatabaseProvider extends LibreLoginSQLDatabaseProvi
     }
 
     @Override
-    protected List<String> getColumnNames(Connection connection) throws SQLException {
-        var columns = new ArrayList<String>();
+    protected List<String> getColumnNames(Connection connection, String table) throws SQLException {
+        var query = new SQLQuery<String>("PRAGMA table_info(%s)".formatted(table), rs -> rs.getString("name"));
 
-        var rs = connection.prepareStatement("PRAGMA table_info(authentication)").executeQuery();
-
-        while (rs.next()) {
-            columns.add(rs.getString("name"));
-        }
-
-        return columns;
+        return query.list(connection, StatementBinder.NONE);
     }
 
     @Override
-    protected String getIgnoreSyntax() {
-        return "OR IGNORE";
+    protected String getUUIDType() {
+        return "BLOB";
     }
 
     @Override
-    protected String addUnique(String column) {
-        return "CREATE UNIQUE INDEX %s_index ON authentication(%s);".formatted(column, column);
+    protected String getIgnoreSyntax() {
+        return "OR IGNORE";
     }
 }
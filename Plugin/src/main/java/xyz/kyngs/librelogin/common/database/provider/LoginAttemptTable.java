@@ -0,0 +1,90 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.database.provider;
+
+import xyz.kyngs.librelogin.common.database.query.SQLQuery;
+import xyz.kyngs.librelogin.common.database.query.SQLUpdate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Shares the failed login attempts between the proxies using the database.
+ * Every proxy only appends the attempts it has counted since the last exchange, so no dialect-specific upsert is needed, the counts are summed when read.
+ * A successful login clears the attempts of the account, the other proxies learn about it from a marker row with the {@link #CLEARED_PREFIX} prefix.
+ * Every row carries the time of its first attempt, so that the attempts made after a clear survive it, even within the same bucket.
+ */
+public class LoginAttemptTable {
+
+    public static final String CLEARED_PREFIX = "cleared:";
+
+    private static final SQLUpdate INSERT = new SQLUpdate("INSERT INTO librelogin_login_attempts(attempt_key, bucket, attempts, recorded) VALUES (?, ?, ?, ?)");
+    private static final SQLUpdate DELETE_CLEARED = new SQLUpdate("DELETE FROM librelogin_login_attempts WHERE attempt_key = ? AND recorded < ?");
+    private static final SQLUpdate DELETE_EXPIRED = new SQLUpdate("DELETE FROM librelogin_login_attempts WHERE bucket < ?");
+    private static final SQLQuery<Attempts> SELECT = new SQLQuery<>(
+            // Not summed here, the rows recorded before a clear must be told apart
+            "SELECT attempt_key, bucket, attempts, recorded FROM librelogin_login_attempts WHERE bucket >= ?",
+            rs -> new Attempts(rs.getString(1), rs.getLong(2), rs.getInt(3), rs.getLong(4))
+    );
+
+    public static void createTable(LibreLoginSQLDatabaseProvider provider, Connection connection) throws SQLException {
+        LibreLoginSQLDatabaseProvider.execute(connection, "CREATE TABLE IF NOT EXISTS librelogin_login_attempts(attempt_key VARCHAR(128) NOT NULL, bucket BIGINT NOT NULL, attempts INT NOT NULL, recorded BIGINT NOT NULL)");
+        provider.createIndex(connection, "librelogin_login_attempts_bucket_index", "librelogin_login_attempts", "bucket");
+    }
+
+    /**
+     * Writes the attempts counted by this proxy, drops the expired ones and reads the attempts counted by all the proxies.
+     *
+     * @param connection The connection
+     * @param counted    The attempts counted since the last exchange
+     * @param cleared    The keys cleared since the last exchange, with the bucket and the time they have been cleared at, the count is ignored
+     * @param oldest     The oldest bucket still within the window
+     * @return The attempts of all the proxies within the window, including the markers of the cleared keys
+     */
+    public static List<Attempts> exchange(Connection connection, Collection<Attempts> counted, Collection<Attempts> cleared, long oldest) throws SQLException {
+        DELETE_EXPIRED.execute(connection, ps -> ps.setLong(1, oldest));
+
+        var inserted = new ArrayList<>(counted);
+
+        for (Attempts clear : cleared) {
+            DELETE_CLEARED.execute(connection, ps -> {
+                ps.setString(1, clear.key());
+                ps.setLong(2, clear.recorded());
+            });
+            inserted.add(new Attempts(CLEARED_PREFIX + clear.key(), clear.bucket(), 0, clear.recorded()));
+        }
+
+        if (!inserted.isEmpty()) {
+            try (var statement = connection.prepareStatement(INSERT.sql())) {
+                for (Attempts attempts : inserted) {
+                    statement.setString(1, attempts.key());
+                    statement.setLong(2, attempts.bucket());
+                    statement.setInt(3, attempts.count());
+                    statement.setLong(4, attempts.recorded());
+                    statement.addBatch();
+                }
+
+                statement.executeBatch();
+            }
+        }
+
+        return SELECT.list(connection, ps -> ps.setLong(1, oldest));
+    }
+
+    /**
+     * @param key      The key of the counter, e.g. the UUID of the account
+     * @param bucket   The epoch of the bucket
+     * @param count    The amount of attempts
+     * @param recorded The time of the first attempt in milliseconds, or of the clear for the markers
+     */
+    public record Attempts(String key, long bucket, int count, long recorded) {
+    }
+
+}
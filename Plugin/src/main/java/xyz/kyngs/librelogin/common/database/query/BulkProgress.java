@@ -0,0 +1,48 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.database.query;
+
+import xyz.kyngs.librelogin.api.Logger;
+
+/**
+ * Reports the progress of a bulk operation. To keep the console readable, a line is logged only for every tenth of the work.
+ */
+public class BulkProgress {
+
+    private final Logger logger;
+    private final int total;
+    private final long start;
+    private int done;
+    private int reportedTenths;
+
+    public BulkProgress(Logger logger, int total) {
+        this.logger = logger;
+        this.total = total;
+        this.start = System.currentTimeMillis();
+    }
+
+    public void advance(int amount) {
+        done += amount;
+
+        var tenths = total == 0 ? 10 : (int) (done * 10L / total);
+
+        if (tenths > reportedTenths) {
+            reportedTenths = tenths;
+            logger.info("Inserted %s/%s users (%s%%) in %s ms".formatted(done, total, tenths * 10, System.currentTimeMillis() - start));
+        }
+    }
+
+    public int done() {
+        return done;
+    }
+
+    public void reset() {
+        done = 0;
+        reportedTenths = 0;
+    }
+
+}
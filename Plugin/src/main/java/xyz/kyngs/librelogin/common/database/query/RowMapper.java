@@ -0,0 +1,22 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.database.query;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a result set to an object. Columns should be read by their index, the order is defined by the query.
+ *
+ * @param <T> The type of the mapped object
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    T map(ResultSet row) throws SQLException;
+
+}
@@ -0,0 +1,61 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.database.query;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A prepared query definition. The statement and the result set are always closed, which also lets the driver reuse the prepared statement.
+ *
+ * @param sql    The query
+ * @param mapper The mapper for the rows of the result
+ * @param <T>    The type of the rows
+ */
+public record SQLQuery<T>(String sql, RowMapper<T> mapper) {
+
+    /**
+     * Runs the query and maps the first row.
+     *
+     * @return The first row, or null if the result is empty
+     */
+    @Nullable
+    public T single(Connection connection, StatementBinder binder) throws SQLException {
+        try (var statement = connection.prepareStatement(sql)) {
+            binder.bind(statement);
+            statement.setMaxRows(1);
+
+            try (var rs = statement.executeQuery()) {
+                return rs.next() ? mapper.map(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Runs the query and maps all the rows.
+     */
+    public List<T> list(Connection connection, StatementBinder binder) throws SQLException {
+        try (var statement = connection.prepareStatement(sql)) {
+            binder.bind(statement);
+
+            try (var rs = statement.executeQuery()) {
+                var result = new ArrayList<T>();
+
+                while (rs.next()) {
+                    result.add(mapper.map(rs));
+                }
+
+                return result;
+            }
+        }
+    }
+
+}
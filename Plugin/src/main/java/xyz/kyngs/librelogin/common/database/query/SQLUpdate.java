@@ -0,0 +1,31 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.database.query;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A prepared statement definition, which does not return rows. The statement is always closed.
+ *
+ * @param sql The statement
+ */
+public record SQLUpdate(String sql) {
+
+    /**
+     * Executes the statement once.
+     *
+     * @return The amount of affected rows
+     */
+    public int execute(Connection connection, StatementBinder binder) throws SQLException {
+        try (var statement = connection.prepareStatement(sql)) {
+            binder.bind(statement);
+            return statement.executeUpdate();
+        }
+    }
+
+}
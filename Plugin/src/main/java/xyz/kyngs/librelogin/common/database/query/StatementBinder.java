@@ -0,0 +1,23 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.database.query;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Sets the parameters of a prepared statement.
+ */
+@FunctionalInterface
+public interface StatementBinder {
+
+    StatementBinder NONE = statement -> {
+    };
+
+    void bind(PreparedStatement statement) throws SQLException;
+
+}
@@ -0,0 +1,242 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.dump;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.google.gson.stream.JsonWriter;
+import xyz.kyngs.librelogin.api.metrics.LatencySnapshot;
+import xyz.kyngs.librelogin.api.metrics.PoolSnapshot;
+import xyz.kyngs.librelogin.common.AuthenticHandler;
+import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
+import xyz.kyngs.librelogin.common.database.AuthenticDatabaseProvider;
+import xyz.kyngs.librelogin.common.metrics.JsonMetricsWriter;
+import xyz.kyngs.librelogin.common.metrics.OperationMetrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static xyz.kyngs.librelogin.common.AuthenticLibreLogin.DATE_TIME_FORMATTER;
+import static xyz.kyngs.librelogin.common.AuthenticLibreLogin.GSON;
+
+/**
+ * Writes the diagnostic dump of the plugin. The dump is streamed, so even a thread dump of a large proxy is never held in memory as a whole.
+ */
+public class AuthenticDump<P, S> extends AuthenticHandler<P, S> {
+
+    public AuthenticDump(AuthenticLibreLogin<P, S> plugin) {
+        super(plugin);
+    }
+
+    public void write(Writer out) throws IOException {
+        var writer = GSON.newJsonWriter(out);
+
+        writer.beginObject();
+
+        writer.name("version").value(plugin.getVersion());
+        writer.name("date").value(DATE_TIME_FORMATTER.format(LocalDateTime.now()));
+
+        writeDatabase(writer);
+        writeMetrics(writer);
+        writePerformance(writer);
+        writeServer(writer);
+
+        writer.endObject();
+        writer.flush();
+    }
+
+    private void writeDatabase(JsonWriter writer) throws IOException {
+        var metrics = plugin.getDatabaseMetrics();
+
+        writer.name("database").beginObject();
+
+        writer.name("pools").beginArray();
+        for (PoolSnapshot snapshot : metrics.getPools()) {
+            writer.beginObject();
+            writer.name("name").value(snapshot.name());
+            writer.name("active").value(snapshot.active());
+            writer.name("idle").value(snapshot.idle());
+            writer.name("pending").value(snapshot.pending());
+            writer.name("total").value(snapshot.total());
+            writer.name("maximumSize").value(snapshot.maximumSize());
+            writer.name("timeouts").value(snapshot.timeouts());
+            writeLatency(writer.name("connectionWait"), snapshot.connectionWait());
+            writeLatency(writer.name("connectionUsage"), snapshot.connectionUsage());
+            writer.endObject();
+        }
+        writer.endArray();
+
+        writer.name("operations").beginObject();
+        for (Map.Entry<String, LatencySnapshot> operation : metrics.getOperations().entrySet()) {
+            writeLatency(writer.name(operation.getKey()), operation.getValue());
+        }
+        writer.endObject();
+
+        writer.name("slowOperations").value(metrics.getSlowOperations());
+
+        writer.endObject();
+    }
+
+    private void writeMetrics(JsonWriter writer) throws IOException {
+        writer.name("metrics").beginArray();
+
+        try {
+            plugin.getMetrics().write(new JsonMetricsWriter(writer));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.endArray();
+    }
+
+    private void writePerformance(JsonWriter writer) throws IOException {
+        writer.name("performance").beginObject();
+
+        writer.name("caches").beginObject();
+        for (Map.Entry<String, Cache<?, ?>> entry : new TreeMap<>(plugin.getCaches()).entrySet()) {
+            var cache = entry.getValue();
+            var stats = cache.stats();
+
+            writer.name(entry.getKey()).beginObject();
+            writer.name("size").value(cache.estimatedSize());
+            writer.name("hits").value(stats.hitCount());
+            writer.name("misses").value(stats.missCount());
+            writer.name("hitRate").value(stats.hitRate());
+            writer.name("evictions").value(stats.evictionCount());
+            writer.name("loadFailures").value(stats.loadFailureCount());
+            writer.name("averageLoadMillis").value(stats.averageLoadPenalty() / 1_000_000);
+            writer.endObject();
+        }
+        writer.endObject();
+
+        writer.name("executor").beginObject();
+        if (AuthenticLibreLogin.EXECUTOR instanceof ForkJoinPool pool) {
+            writer.name("parallelism").value(pool.getParallelism());
+            writer.name("poolSize").value(pool.getPoolSize());
+            writer.name("active").value(pool.getActiveThreadCount());
+            writer.name("running").value(pool.getRunningThreadCount());
+            writer.name("queuedSubmissions").value(pool.getQueuedSubmissionCount());
+            writer.name("queuedTasks").value(pool.getQueuedTaskCount());
+            writer.name("steals").value(pool.getStealCount());
+        }
+        writer.endObject();
+
+        writer.name("playerTasks").value(plugin.getPlayerTaskCount());
+
+        var mail = plugin.getEmailHandler();
+
+        if (mail != null) {
+            var outbox = mail.getOutbox();
+
+            writer.name("mail").beginObject();
+            writer.name("queued").value(outbox.getQueueSize());
+            writer.name("sent").value(outbox.getSent());
+            writer.name("retried").value(outbox.getRetried());
+            writer.name("failed").value(outbox.getFailed());
+            writer.name("rejected").value(outbox.getRejected());
+            writeLatency(writer.name("delivery"), outbox.getDelivery().snapshot());
+            writer.endObject();
+        }
+
+        var authorization = plugin.getAuthorizationProvider();
+
+        writer.name("players").beginObject();
+        if (authorization != null) {
+            writer.name("unauthorized").value(authorization.getUnauthorizedCount());
+            writer.name("awaiting2FA").value(authorization.getAwaiting2FACount());
+        }
+        writer.endObject();
+
+        List<OperationMetrics.SlowOperation> slowOperations = plugin.getDatabaseProvider() instanceof AuthenticDatabaseProvider<?> provider
+                ? provider.getMetrics().getRecentSlowOperations()
+                : List.of();
+
+        writer.name("recentSlowOperations").beginArray();
+        for (OperationMetrics.SlowOperation operation : slowOperations) {
+            writer.beginObject();
+            writer.name("operation").value(operation.operation());
+            writer.name("millis").value(operation.millis());
+            writer.name("date").value(DATE_TIME_FORMATTER.format(new Timestamp(operation.timestamp()).toLocalDateTime()));
+            writer.endObject();
+        }
+        writer.endArray();
+
+        writer.endObject();
+    }
+
+    private void writeServer(JsonWriter writer) throws IOException {
+        var proxyData = platformHandle.getProxyData();
+
+        writer.name("server").beginObject();
+
+        writer.name("name").value(proxyData.name());
+        writeStrings(writer.name("plugins"), proxyData.plugins());
+        writeStrings(writer.name("servers"), proxyData.servers());
+        writeStrings(writer.name("limbos"), proxyData.limbos());
+        writeStrings(writer.name("lobbies"), proxyData.lobbies());
+
+        // Keyed by the id, the names of the threads are not unique
+        writer.name("threads").beginObject();
+        for (ThreadInfo info : ManagementFactory.getThreadMXBean().dumpAllThreads(true, true)) {
+            writer.name(String.valueOf(info.getThreadId())).beginObject();
+            writer.name("id").value(info.getThreadId());
+            writer.name("name").value(info.getThreadName());
+            writer.name("state").value(info.getThreadState().name());
+            writer.name("priority").value(info.getPriority());
+            writer.name("isDaemon").value(info.isDaemon());
+            writer.name("isInNative").value(info.isInNative());
+            writer.name("isSuspended").value(info.isSuspended());
+
+            writer.name("lock").beginObject();
+            if (info.getLockName() != null) {
+                writer.name("name").value(info.getLockName());
+                writer.name("ownerId").value(info.getLockOwnerId());
+                writer.name("ownerName").value(info.getLockOwnerName());
+            }
+            writer.endObject();
+
+            writer.name("stackTrace").beginArray();
+            for (StackTraceElement element : info.getStackTrace()) {
+                writer.value(element.getClassName() + "#" + element.getMethodName() + "#" + element.getLineNumber());
+            }
+            writer.endArray();
+
+            writer.endObject();
+        }
+        writer.endObject();
+
+        writer.endObject();
+    }
+
+    private static void writeStrings(JsonWriter writer, List<String> values) throws IOException {
+        writer.beginArray();
+        for (String value : values) {
+            writer.value(value);
+        }
+        writer.endArray();
+    }
+
+    private static void writeLatency(JsonWriter writer, LatencySnapshot snapshot) throws IOException {
+        writer.beginObject();
+        writer.name("count").value(snapshot.count());
+        writer.name("mean").value(snapshot.meanMillis());
+        writer.name("p50").value(snapshot.p50Millis());
+        writer.name("p95").value(snapshot.p95Millis());
+        writer.name("p99").value(snapshot.p99Millis());
+        writer.name("max").value(snapshot.maxMillis());
+        writer.endObject();
+    }
+
+}
@@ -7,20 +7,29 @@
 package xyz.kyngs.librelogin.common.event;
 
 import xyz.kyngs.librelogin.api.event.Event;
+import xyz.kyngs.librelogin.api.event.EventPriority;
 import xyz.kyngs.librelogin.api.event.EventProvider;
 import xyz.kyngs.librelogin.api.event.EventType;
 import xyz.kyngs.librelogin.common.AuthenticHandler;
 import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
+import xyz.kyngs.librelogin.common.jfr.EventFireEvent;
 
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 public class AuthenticEventProvider<P, S> extends AuthenticHandler<P, S> implements EventProvider<P, S> {
 
-    private final Map<EventType<P, S, ?>, Set<Consumer<Event<P, S>>>> listeners;
+    private static final Listener[] EMPTY = new Listener[0];
+    private static final long SLOW_LISTENER_NANOS = 50_000_000;
+
+    /**
+     * Listeners are stored as immutable arrays sorted by priority. Every change replaces the array,
+     * so firing an event only needs to read a single reference and never observes a half-applied change.
+     */
+    private final Map<EventType<?, ?, ?>, Listener[]> listeners;
 
     public AuthenticEventProvider(AuthenticLibreLogin<P, S> plugin) {
         super(plugin);
@@ -28,34 +37,85 @@ public class AuthenticEventProvider<P, S> extends AuthenticHandler<P, S> impleme
     }
 
     @Override
-    public <E extends Event<P, S>> Consumer<E> subscribe(EventType<P, S, E> type, Consumer<E> handler) {
-        listeners.computeIfAbsent(type, x -> new HashSet<>()).add((Consumer<Event<P, S>>) handler);
+    public <E extends Event<P, S>> Consumer<E> subscribe(EventType<P, S, E> type, Consumer<E> handler, EventPriority priority) {
+        register(type, new Listener(handler, priority, false));
+        return handler;
+    }
+
+    @Override
+    public <E extends Event<P, S>> Consumer<E> subscribeAsync(EventType<P, S, E> type, Consumer<E> handler) {
+        register(type, new Listener(handler, EventPriority.NORMAL, true));
         return handler;
     }
 
     @Override
     public void unsubscribe(Consumer<? extends Event<P, S>> handler) {
-        listeners.values().forEach(x -> x.remove(handler));
+        for (EventType<?, ?, ?> type : listeners.keySet()) {
+            listeners.computeIfPresent(type, (key, current) -> {
+                var updated = Arrays.stream(current)
+                        .filter(listener -> !listener.handler().equals(handler))
+                        .toArray(Listener[]::new);
+
+                return updated.length == 0 ? null : updated;
+            });
+        }
     }
 
     @Override
     public <E extends Event<P, S>> void fire(EventType<P, S, E> type, E event) {
-        var set = listeners.get(type);
+        unsafeFire(type, event);
+    }
+
+    public void unsafeFire(EventType<?, ?, ?> type, Event<?, ?> event) {
+        var snapshot = listeners.getOrDefault(type, EMPTY);
+        var recording = new EventFireEvent();
 
-        if (set == null || set.isEmpty()) return;
+        recording.begin();
 
-        for (Consumer<Event<P, S>> consumer : set) {
-            consumer.accept(event);
+        for (Listener listener : snapshot) {
+            if (listener.async()) {
+                AuthenticLibreLogin.EXECUTOR.execute(() -> dispatch(type, listener, event));
+            } else {
+                dispatch(type, listener, event);
+            }
         }
+
+        recording.complete(type.getClazz().getSimpleName(), snapshot.length);
     }
 
-    public void unsafeFire(EventType<?, ?, ?> type, Event<?, ?> event) {
-        var set = listeners.get(type);
+    /**
+     * A handler is subscribed to a type at most once, like in a set. Subscribing it again replaces its priority and mode.
+     */
+    private void register(EventType<?, ?, ?> type, Listener listener) {
+        listeners.merge(type, new Listener[]{listener}, (current, added) -> {
+            var kept = Arrays.stream(current)
+                    .filter(existing -> !existing.handler().equals(listener.handler()))
+                    .toArray(Listener[]::new);
+            var updated = Arrays.copyOf(kept, kept.length + 1);
+            updated[kept.length] = listener;
+            // The sort is stable, so listeners with the same priority keep their subscription order
+            Arrays.sort(updated, Comparator.comparing(Listener::priority));
+            return updated;
+        });
+    }
 
-        if (set == null || set.isEmpty()) return;
+    @SuppressWarnings("unchecked")
+    private void dispatch(EventType<?, ?, ?> type, Listener listener, Event<?, ?> event) {
+        var start = System.nanoTime();
 
-        for (Consumer<Event<P, S>> consumer : set) {
-            consumer.accept((Event<P, S>) event);
+        try {
+            ((Consumer<Event<?, ?>>) listener.handler()).accept(event);
+        } catch (Exception e) {
+            plugin.getLogger().error("Listener %s failed to handle event %s".formatted(listener.handler().getClass().getName(), type.getClazz().getSimpleName()), e);
         }
+
+        var took = System.nanoTime() - start;
+
+        if (!listener.async() && took > SLOW_LISTENER_NANOS) {
+            plugin.getLogger().warn("Listener %s took %s ms to handle event %s, consider subscribing it asynchronously".formatted(listener.handler().getClass().getName(), took / 1_000_000, type.getClazz().getSimpleName()));
+        }
+    }
+
+    private record Listener(Consumer<?> handler, EventPriority priority, boolean async) {
     }
 }
@@ -18,4 +18,13 @@ public abstract class AuthenticImageProjector<P, S> extends AuthenticHandler<P,
 
     public abstract void enable();
 
+    /**
+     * Projects an image already rendered by the {@link MapRenderer}.
+     *
+     * @param map The {@value MapRenderer#SIZE}x{@value MapRenderer#SIZE} colour indexes of the map
+     */
+    public void projectMap(byte[] map, P player) {
+        project(MapRenderer.toImage(map), player);
+    }
+
 }
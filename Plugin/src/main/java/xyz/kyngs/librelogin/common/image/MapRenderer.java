@@ -0,0 +1,96 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.image;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Renders two-colour images, such as QR codes, into the colour indexes of a Minecraft map.
+ */
+public final class MapRenderer {
+
+    public static final int SIZE = 128;
+
+    private static final byte DARK = 116;
+    private static final byte LIGHT = 56;
+    private static final int OPAQUE_BLACK = 0xFF000000;
+
+    private MapRenderer() {
+    }
+
+    /**
+     * Renders the matrix straight into the map, scaled by the nearest neighbour and centered.
+     *
+     * @return The {@value #SIZE}x{@value #SIZE} colour indexes, row by row
+     */
+    public static byte[] render(BitMatrix matrix) {
+        var width = matrix.getWidth();
+        var height = matrix.getHeight();
+
+        // Whole pixels per module keep the code sharp, only a code larger than the map gets shrunk
+        var scale = Math.max(1, Math.min(SIZE / width, SIZE / height));
+        var renderedWidth = Math.min(SIZE, width * scale);
+        var renderedHeight = Math.min(SIZE, height * scale);
+        var offsetX = (SIZE - renderedWidth) / 2;
+        var offsetY = (SIZE - renderedHeight) / 2;
+
+        var data = new byte[SIZE * SIZE];
+        Arrays.fill(data, LIGHT);
+
+        for (int y = 0; y < renderedHeight; y++) {
+            var row = (offsetY + y) * SIZE + offsetX;
+            var moduleY = y * height / renderedHeight;
+
+            for (int x = 0; x < renderedWidth; x++) {
+                if (matrix.get(x * width / renderedWidth, moduleY)) data[row + x] = DARK;
+            }
+        }
+
+        return data;
+    }
+
+    /**
+     * Renders an arbitrary image, only pure black is rendered as dark.
+     *
+     * @return The {@value #SIZE}x{@value #SIZE} colour indexes, row by row
+     */
+    public static byte[] render(BufferedImage image) {
+        var width = image.getWidth();
+        var height = image.getHeight();
+        var data = new byte[SIZE * SIZE];
+
+        for (int y = 0; y < SIZE; y++) {
+            var sourceY = y * height / SIZE;
+
+            for (int x = 0; x < SIZE; x++) {
+                data[y * SIZE + x] = image.getRGB(x * width / SIZE, sourceY) == OPAQUE_BLACK ? DARK : LIGHT;
+            }
+        }
+
+        return data;
+    }
+
+    /**
+     * Converts the rendered map back into a black and white image, for the API consumers which expect one.
+     */
+    public static BufferedImage toImage(byte[] data) {
+        var image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_BYTE_BINARY);
+        var raster = image.getRaster();
+
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                raster.setSample(x, y, 0, data[y * SIZE + x] == DARK ? 0 : 1);
+            }
+        }
+
+        return image;
+    }
+
+}
@@ -16,6 +16,7 @@ import dev.simplix.protocolize.data.packets.SetSlot;
 import xyz.kyngs.librelogin.api.image.ImageProjector;
 import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
 import xyz.kyngs.librelogin.common.image.AuthenticImageProjector;
+import xyz.kyngs.librelogin.common.image.MapRenderer;
 import xyz.kyngs.librelogin.common.image.protocolize.packet.MapDataPacket;
 
 import java.awt.image.BufferedImage;
@@ -43,6 +44,11 @@ public class ProtocolizeImageProjector<P, S> extends AuthenticImageProjector<P,
      */
     @Override
     public void project(BufferedImage image, P player) {
+        projectMap(MapRenderer.render(image), player);
+    }
+
+    @Override
+    public void projectMap(byte[] map, P player) {
         var id = platformHandle.getUUIDForPlayer(player);
 
         var protocolize = Protocolize.playerProvider().player(id);
@@ -74,24 +80,8 @@ public class ProtocolizeImageProjector<P, S> extends AuthenticImageProjector<P,
                         .newSlot((short) 0)
         );
 
-        if (image.getWidth() != 128 && image.getHeight() != 128) {
-            var resized = new BufferedImage(128, 128, image.getType());
-
-            var graphics = resized.createGraphics();
-            graphics.drawImage(image, 0, 0, 128, 128, 0, 0, image.getWidth(), image.getHeight(), null);
-            graphics.dispose();
-
-            image = resized;
-        }
-
-        int[] pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
-        byte[] data = new byte[pixels.length];
-
-        for (int i = 0; i < pixels.length; i++) {
-            data[i] = (byte) (pixels[i] == -16777216 ? 116 : 56);
-        }
-
-        protocolize.sendPacket(new MapDataPacket(0, (byte) 0, new MapData(128, 128, 0, 0, data)));
+        // The map is only read when the packet is written, so the cached one is sent as-is
+        protocolize.sendPacket(new MapDataPacket(0, (byte) 0, new MapData(MapRenderer.SIZE, MapRenderer.SIZE, 0, 0, map)));
     }
 
     @Override
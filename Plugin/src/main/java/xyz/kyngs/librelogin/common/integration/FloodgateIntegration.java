@@ -9,29 +9,87 @@ package xyz.kyngs.librelogin.common.integration;
 import org.geysermc.floodgate.api.FloodgateApi;
 import org.geysermc.floodgate.api.player.FloodgatePlayer;
 
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class FloodgateIntegration {
 
     private final FloodgateApi api;
+    private final Map<String, FloodgatePlayer> byName;
+    private final Map<UUID, FloodgatePlayer> byUUID;
 
     public FloodgateIntegration() {
         api = FloodgateApi.getInstance();
+        byName = new ConcurrentHashMap<>();
+        byUUID = new ConcurrentHashMap<>();
+
+        // The players which joined before we were loaded
+        api.getPlayers().forEach(this::onJoin);
     }
 
     public boolean isFloodgateId(UUID uuid) {
         return api.isFloodgatePlayer(uuid);
     }
 
-    public FloodgatePlayer getPlayer(String username) {
-        for (FloodgatePlayer floodgatePlayer : api.getPlayers()) {
-            if (floodgatePlayer.getCorrectUsername().equals(username)) {
-                return floodgatePlayer;
-            }
+    /**
+     * Looks the player up by the name, the index is checked first and Floodgate itself on a miss.
+     *
+     * @param username The name of the player
+     * @param uuid     The UUID of the player, or null if it is not known yet
+     * @return The Floodgate player, or null if the player does not come from Floodgate
+     */
+    public FloodgatePlayer getPlayer(String username, UUID uuid) {
+        var prefix = api.getPlayerPrefix();
+
+        // Java players cannot have the bedrock prefix in their names, no need to look any further
+        if (!prefix.isEmpty() && !username.startsWith(prefix)) return null;
+
+        var player = byName.get(username);
+
+        if (player != null) {
+            if (api.getPlayer(player.getJavaUniqueId()) != null) return player;
+
+            onQuit(player.getJavaUniqueId());
         }
 
-        return null;
+        // The platforms index the players as they join, but a miss must never be trusted alone, it would let a Bedrock player in as a Java one
+        player = uuid == null ? scan(username) : api.getPlayer(uuid);
+
+        if (player == null || !player.getCorrectUsername().equals(username)) return null;
+
+        onJoin(player);
+
+        return player;
     }
 
+    /**
+     * Adds the player to the index, should be called once the platform sees the player joining through Floodgate.
+     *
+     * @param player The Floodgate player
+     */
+    public void onJoin(FloodgatePlayer player) {
+        byUUID.put(player.getJavaUniqueId(), player);
+        byName.put(player.getCorrectUsername(), player);
+    }
+
+    /**
+     * Removes the player from the index, should be called once the player leaves.
+     *
+     * @param uuid The UUID of the player
+     */
+    public void onQuit(UUID uuid) {
+        var player = byUUID.remove(uuid);
+
+        if (player != null) byName.remove(player.getCorrectUsername(), player);
+    }
+
+    private FloodgatePlayer scan(String username) {
+        for (FloodgatePlayer player : api.getPlayers()) {
+            if (player.getCorrectUsername().equals(username)) return player;
+        }
+
+        return null;
+    }
 
 }
@@ -0,0 +1,44 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted for every hash created or verified by a crypto provider.
+ */
+@Name("xyz.kyngs.librelogin.Crypto")
+@Label("Password Hashing")
+@Category({"LibreLogin", "Crypto"})
+public class CryptoEvent extends Event {
+
+    public static final String CREATE_HASH = "createHash";
+    public static final String MATCHES = "matches";
+
+    @Label("Algorithm")
+    private String algorithm;
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Success")
+    private boolean success;
+
+    /**
+     * @param success Whether the password matched, or the hash was created
+     */
+    public void complete(String algorithm, String operation, boolean success) {
+        this.algorithm = algorithm;
+        this.operation = operation;
+        this.success = success;
+        commit();
+    }
+
+}
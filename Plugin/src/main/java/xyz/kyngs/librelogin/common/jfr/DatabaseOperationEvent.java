@@ -0,0 +1,38 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.Collection;
+
+/**
+ * Emitted for every operation of the database provider.
+ */
+@Name("xyz.kyngs.librelogin.DatabaseOperation")
+@Label("Database Operation")
+@Category({"LibreLogin", "Database"})
+public class DatabaseOperationEvent extends Event {
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Rows")
+    @Description("The amount of rows returned, 0 for the writes")
+    private int rows;
+
+    public void complete(String operation, Object result) {
+        this.operation = operation;
+        this.rows = result instanceof Collection<?> collection ? collection.size() : result == null ? 0 : 1;
+        commit();
+    }
+
+}
@@ -0,0 +1,38 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Emitted when a LibreLogin event is fired. Covers the synchronous listeners only, the asynchronous ones run on the executor.
+ */
+@Name("xyz.kyngs.librelogin.EventFire")
+@Label("Event Fire")
+@Category({"LibreLogin", "Events"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class EventFireEvent extends Event {
+
+    @Label("Event Type")
+    private String eventType;
+
+    @Label("Listeners")
+    private int listeners;
+
+    public void complete(String eventType, int listeners) {
+        this.eventType = eventType;
+        this.listeners = listeners;
+        commit();
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted for every call of a premium data fetcher, the cached lookups do not call any.
+ */
+@Name("xyz.kyngs.librelogin.PremiumFetch")
+@Label("Premium Fetch")
+@Category({"LibreLogin", "Premium"})
+public class PremiumFetchEvent extends Event {
+
+    @Label("Provider")
+    private String provider;
+
+    @Label("Username")
+    private String username;
+
+    @Label("Status")
+    @Description("FOUND, NOT_FOUND, or the issue of the failed fetch")
+    private String status;
+
+    public void complete(String provider, String username, String status) {
+        this.provider = provider;
+        this.username = username;
+        this.status = status;
+        commit();
+    }
+
+}
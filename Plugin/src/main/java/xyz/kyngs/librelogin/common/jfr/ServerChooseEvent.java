@@ -0,0 +1,39 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted for every choice of a lobby or limbo server, including the listeners of the choose events.
+ */
+@Name("xyz.kyngs.librelogin.ServerChoose")
+@Label("Server Choice")
+@Category({"LibreLogin", "Server"})
+public class ServerChooseEvent extends Event {
+
+    public static final String LOBBY = "LOBBY";
+    public static final String LIMBO = "LIMBO";
+
+    @Label("Kind")
+    private String kind;
+
+    @Label("Server")
+    @Description("Null if no server is available")
+    private String server;
+
+    public void complete(String kind, String server) {
+        this.kind = kind;
+        this.server = server;
+        commit();
+    }
+
+}
@@ -0,0 +1,36 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted for every ping of a lobby or limbo server.
+ */
+@Name("xyz.kyngs.librelogin.ServerPing")
+@Label("Server Ping")
+@Category({"LibreLogin", "Server"})
+public class ServerPingEvent extends Event {
+
+    @Label("Server")
+    private String server;
+
+    @Label("Max Players")
+    @Description("-1 if the server did not respond")
+    private int maxPlayers;
+
+    public void complete(String server, int maxPlayers) {
+        this.server = server;
+        this.maxPlayers = maxPlayers;
+        commit();
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.listener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.jetbrains.annotations.Nullable;
+import xyz.kyngs.librelogin.common.config.HoconPluginConfiguration;
+import xyz.kyngs.librelogin.common.util.Subnet;
+import xyz.kyngs.librelogin.common.util.TokenBucket;
+
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static xyz.kyngs.librelogin.common.config.ConfigurationKeys.*;
+
+/**
+ * Throttles connections before they reach the pre-login, which talks to the database and the Mojang API.
+ * Every connection must take a token from the bucket of its address, of its subnet (/24 for IPv4, /64 for IPv6) and from the global bucket.
+ */
+public class AdmissionControl {
+
+    private final boolean enabled;
+    @Nullable
+    private final Buckets<InetAddress> addresses;
+    @Nullable
+    private final Buckets<Subnet> subnets;
+    @Nullable
+    private final TokenBucket global;
+
+    public AdmissionControl(HoconPluginConfiguration configuration) {
+        enabled = configuration.get(ADMISSION_ENABLED);
+        addresses = Buckets.create(configuration.get(ADMISSION_ADDRESS_BURST), configuration.get(ADMISSION_ADDRESS_PER_MINUTE));
+        subnets = Buckets.create(configuration.get(ADMISSION_SUBNET_BURST), configuration.get(ADMISSION_SUBNET_PER_MINUTE));
+
+        var perSecond = configuration.get(ADMISSION_GLOBAL_PER_SECOND);
+        global = perSecond > 0 ? new TokenBucket(perSecond, TimeUnit.SECONDS.toNanos(1) / perSecond) : null;
+    }
+
+    /**
+     * @return The token buckets of the addresses and the subnets, keyed by a name
+     */
+    public Map<String, Cache<?, ?>> getCaches() {
+        var caches = new HashMap<String, Cache<?, ?>>();
+
+        if (addresses != null) caches.put("admission-addresses", addresses.buckets());
+        if (subnets != null) caches.put("admission-subnets", subnets.buckets());
+
+        return caches;
+    }
+
+    /**
+     * Decides whether the connection may continue to the pre-login.
+     *
+     * @param address The address of the connection
+     * @return null, if the connection is admitted, the message key of the kick message otherwise
+     */
+    @Nullable
+    public String admit(InetAddress address) {
+        if (!enabled) return null;
+
+        if (addresses != null && !addresses.tryAcquire(address)) return "kick-admission-address";
+        if (subnets != null && !subnets.tryAcquire(Subnet.of(address))) return "kick-admission-subnet";
+        if (global != null && !global.tryAcquire()) return "kick-admission-global";
+
+        return null;
+    }
+
+    private record Buckets<K>(Cache<K, TokenBucket> buckets, int burst, long interval) {
+
+        @Nullable
+        private static <K> Buckets<K> create(int burst, int perMinute) {
+            if (burst <= 0 || perMinute <= 0) return null;
+
+            var interval = TimeUnit.MINUTES.toNanos(1) / perMinute;
+
+            // Once a bucket has not been touched for this long it is full again, which is the same as a fresh bucket
+            Cache<K, TokenBucket> cache = Caffeine.newBuilder()
+                    .expireAfterAccess(interval * burst, TimeUnit.NANOSECONDS)
+                    .recordStats()
+                    .build();
+
+            return new Buckets<>(cache, burst, interval);
+        }
+
+        private boolean tryAcquire(K key) {
+            return buckets.get(key, x -> new TokenBucket(burst, interval)).tryAcquire();
+        }
+
+    }
+
+}
@@ -9,6 +9,7 @@ package xyz.kyngs.librelogin.common.listener;
 import org.jetbrains.annotations.Nullable;
 import xyz.kyngs.librelogin.api.BiHolder;
 import xyz.kyngs.librelogin.api.PlatformHandle;
+import xyz.kyngs.librelogin.api.database.UnitOfWork;
 import xyz.kyngs.librelogin.api.database.User;
 import xyz.kyngs.librelogin.api.event.events.AuthenticatedEvent;
 import xyz.kyngs.librelogin.api.premium.PremiumException;
@@ -18,7 +19,9 @@ import xyz.kyngs.librelogin.common.authorization.ProfileConflictResolutionStrate
 import xyz.kyngs.librelogin.common.command.InvalidCommandArgument;
 import xyz.kyngs.librelogin.common.config.ConfigurationKeys;
 import xyz.kyngs.librelogin.common.database.AuthenticUser;
+import xyz.kyngs.librelogin.common.database.DatabaseUnavailableException;
 import xyz.kyngs.librelogin.common.event.events.AuthenticAuthenticatedEvent;
+import xyz.kyngs.librelogin.common.metrics.AuthenticMetrics;
 
 import java.net.InetAddress;
 import java.sql.Timestamp;
@@ -55,6 +58,9 @@ public class AuthenticListeners<Plugin extends AuthenticLibreLogin<P, S>, P, S>
         } else if (sessionTime != null && user.getLastAuthentication() != null && ip.equals(user.getIp()) && user.getLastAuthentication().toLocalDateTime().plus(sessionTime).isAfter(LocalDateTime.now())) {
             plugin.delay(() -> plugin.getPlatformHandle().getAudienceForPlayer(player).sendMessage(plugin.getMessages().getMessage("info-session-logged-in")), 500);
             plugin.getEventProvider().fire(plugin.getEventTypes().authenticated, new AuthenticAuthenticatedEvent<>(user, player, plugin, AuthenticatedEvent.AuthenticationReason.SESSION));
+        } else if (plugin.getLoginTryListener().getTracker().isLocked(user.getUuid())) {
+            platformHandle.kick(player, plugin.getMessages().getMessage("kick-login-attempts-locked"));
+            return;
         } else {
             plugin.getAuthorizationProvider().startTracking(user, player);
         }
@@ -72,15 +78,47 @@ public class AuthenticListeners<Plugin extends AuthenticLibreLogin<P, S>, P, S>
     }
 
     protected PreLoginResult onPreLogin(String username, InetAddress address) {
+        var start = System.nanoTime();
+        var result = admitPreLogin(username, address);
+
+        plugin.getMetrics().record(AuthenticMetrics.PRE_LOGIN, result.state().name(), start);
+
+        return result;
+    }
+
+    private PreLoginResult admitPreLogin(String username, InetAddress address) {
+        var denial = plugin.getAdmissionControl().admit(address);
+
+        if (denial != null) {
+            return new PreLoginResult(PreLoginState.DENIED, plugin.getMessages().getMessage(denial), null);
+        }
+
+        // Bots reconnecting after being kicked are turned away before the database is touched
+        if (plugin.getLoginTryListener().getTracker().isLocked(address)) {
+            return new PreLoginResult(PreLoginState.DENIED, plugin.getMessages().getMessage("kick-login-attempts-locked"), null);
+        }
+
+        try {
+            return resolvePreLogin(username, address);
+        } catch (DatabaseUnavailableException e) {
+            return new PreLoginResult(PreLoginState.DENIED, plugin.getMessages().getMessage("kick-database-unavailable"), null);
+        }
+    }
+
+    private PreLoginResult resolvePreLogin(String username, InetAddress address) {
         if (username.length() > 16 || !NAME_PATTERN.matcher(username).matches()) {
             return new PreLoginResult(PreLoginState.DENIED, plugin.getMessages().getMessage("kick-illegal-username"), null);
         }
 
         PremiumUser mojangData;
+        var lookup = System.nanoTime();
 
         try {
             mojangData = plugin.getPremiumProvider().getUserForName(username);
+            plugin.getMetrics().record(AuthenticMetrics.PREMIUM_LOOKUP, mojangData == null ? "NOT_FOUND" : "FOUND", lookup);
         } catch (PremiumException e) {
+            plugin.getMetrics().record(AuthenticMetrics.PREMIUM_LOOKUP, e.getIssue().name(), lookup);
+
             var message = switch (e.getIssue()) {
                 case THROTTLED -> plugin.getMessages().getMessage("kick-premium-error-throttled");
                 default -> {
@@ -164,9 +202,12 @@ public class AuthenticListeners<Plugin extends AuthenticLibreLogin<P, S>, P, S>
             ), null);
             case USE_OFFLINE -> new PreLoginResult(PreLoginState.FORCE_OFFLINE, null, null);
             case OVERWRITE -> {
-                plugin.getDatabaseProvider().deleteUser(conflicted);
                 conflicting.setLastNickname(conflicted.getLastNickname());
-                plugin.getDatabaseProvider().updateUser(conflicting);
+                // Both at once, the nickname must never end up without an owner, or with two
+                plugin.getDatabaseProvider().commit(new UnitOfWork()
+                        .delete(conflicted)
+                        .update(conflicting)
+                );
                 yield new PreLoginResult(PreLoginState.FORCE_ONLINE, null, conflicting);
             }
         };
@@ -271,6 +312,16 @@ public class AuthenticListeners<Plugin extends AuthenticLibreLogin<P, S>, P, S>
     }
 
     protected BiHolder<Boolean, S> chooseServer(P player, @Nullable String ip, @Nullable User user) {
+        var start = System.nanoTime();
+        var result = selectServer(player, ip, user);
+
+        var outcome = result.value() == null ? "NONE" : result.key() ? "LOBBY" : "LIMBO";
+        plugin.getMetrics().record(AuthenticMetrics.CHOOSE_SERVER, outcome, start);
+
+        return result;
+    }
+
+    private BiHolder<Boolean, S> selectServer(P player, @Nullable String ip, @Nullable User user) {
         var id = platformHandle.getUUIDForPlayer(player);
         var fromFloodgate = plugin.fromFloodgate(id);
 
@@ -0,0 +1,278 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.listener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.jetbrains.annotations.Nullable;
+import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
+import xyz.kyngs.librelogin.common.database.provider.LibreLoginSQLDatabaseProvider;
+import xyz.kyngs.librelogin.common.database.provider.LoginAttemptTable;
+import xyz.kyngs.librelogin.common.util.CancellableTask;
+import xyz.kyngs.librelogin.common.util.SlidingWindowCounter;
+import xyz.kyngs.librelogin.common.util.Subnet;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static xyz.kyngs.librelogin.common.config.ConfigurationKeys.*;
+
+/**
+ * Counts the failed login attempts in sliding windows, per account, per IP address and per subnet.
+ * The counts survive reconnects, so a bot cannot reset them by joining again.
+ * If enabled, the attempts are periodically exchanged through the database, so that all the proxies see the same lockouts.
+ */
+public class LoginAttemptTracker {
+
+    private final AuthenticLibreLogin<?, ?> plugin;
+    private final int accountLimit;
+    private final int addressLimit;
+    private final int subnetLimit;
+    private final long bucketMillis;
+    private final Cache<String, SlidingWindowCounter> counters;
+    /**
+     * The time in milliseconds, at which the counter of a key has been cleared. The older attempts of other proxies are ignored for it.
+     * The proxies compare their clocks here, so they should be synchronized.
+     */
+    private final Cache<String, Long> cleared;
+    /**
+     * The attempts counted since the last exchange.
+     */
+    @Nullable
+    private final Map<Bucket, LoginAttemptTable.Attempts> unshared;
+    /**
+     * The keys cleared since the last exchange, with the time they have been cleared at.
+     */
+    @Nullable
+    private final Map<String, Long> unsharedClears;
+    @Nullable
+    private final LibreLoginSQLDatabaseProvider database;
+    @Nullable
+    private final CancellableTask sync;
+
+    public LoginAttemptTracker(AuthenticLibreLogin<?, ?> plugin) {
+        this.plugin = plugin;
+
+        var configuration = plugin.getConfiguration();
+        var window = Math.max(SlidingWindowCounter.BUCKETS, configuration.get(MILLISECONDS_TO_EXPIRE_LOGIN_ATTEMPTS));
+
+        this.accountLimit = configuration.get(MAX_LOGIN_ATTEMPTS);
+        this.addressLimit = configuration.get(LOGIN_ATTEMPTS_ADDRESS_LIMIT);
+        this.subnetLimit = configuration.get(LOGIN_ATTEMPTS_SUBNET_LIMIT);
+        this.bucketMillis = window / SlidingWindowCounter.BUCKETS;
+
+        // Once a counter has not been touched for the whole window, it is empty
+        this.counters = Caffeine.newBuilder()
+                .expireAfterAccess(window, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        // Outlives the markers of the other proxies, which stay in the database for the window, so that a marker is never applied twice
+        this.cleared = Caffeine.newBuilder()
+                .expireAfterWrite(window * 2L, TimeUnit.MILLISECONDS)
+                .build();
+        plugin.registerCache("login-attempts", counters);
+
+        var syncMillis = configuration.get(LOGIN_ATTEMPTS_SYNC_MILLIS);
+
+        if (syncMillis > 0 && plugin.getDatabaseProvider() instanceof LibreLoginSQLDatabaseProvider provider) {
+            this.unshared = new ConcurrentHashMap<>();
+            this.unsharedClears = new ConcurrentHashMap<>();
+            this.database = provider;
+            this.sync = plugin.repeat(this::exchange, syncMillis, syncMillis);
+        } else {
+            if (syncMillis > 0) plugin.getLogger().warn("Sharing the login attempts is only supported with the SQL databases, the attempts will be counted on this proxy only");
+
+            this.unshared = null;
+            this.unsharedClears = null;
+            this.database = null;
+            this.sync = null;
+        }
+    }
+
+    /**
+     * Counts a failed attempt.
+     *
+     * @param account The UUID of the account
+     * @param address The IP address of the player
+     * @return true, if the account, the address or the subnet has reached its limit
+     */
+    public boolean recordFailure(UUID account, String address) {
+        var now = System.currentTimeMillis();
+        var locked = record(accountKey(account), accountLimit, now);
+
+        locked |= record(addressKey(address), addressLimit, now);
+
+        var subnet = subnetKey(address);
+        if (subnet != null) locked |= record(subnet, subnetLimit, now);
+
+        return locked;
+    }
+
+    /**
+     * @return true, if the account has reached its limit
+     */
+    public boolean isLocked(UUID account) {
+        return isLocked(accountKey(account), accountLimit);
+    }
+
+    /**
+     * @return true, if the address or its subnet has reached its limit
+     */
+    public boolean isLocked(InetAddress address) {
+        return isLocked(addressKey(address.getHostAddress()), addressLimit)
+                || isLocked("subnet:" + Subnet.of(address), subnetLimit);
+    }
+
+    /**
+     * Forgets the failed attempts of the account, e.g. after a successful login. If the attempts are shared, the other proxies forget them as well.
+     */
+    public void clear(UUID account) {
+        var key = accountKey(account);
+
+        counters.invalidate(key);
+
+        if (unshared == null || unsharedClears == null) return;
+
+        var now = System.currentTimeMillis();
+
+        cleared.put(key, now);
+        unshared.keySet().removeIf(bucket -> bucket.key().equals(key));
+        unsharedClears.merge(key, now, Math::max);
+
+        // The player might be switching to another proxy right away
+        plugin.delay(this::exchange, 0);
+    }
+
+    /**
+     * Stops the exchange, the attempts counted since the last one are shared first.
+     */
+    public void shutdown() {
+        if (sync == null) return;
+
+        sync.cancel();
+        exchange();
+    }
+
+    private boolean record(String key, int limit, long now) {
+        if (limit <= 0) return false;
+
+        var epoch = now / bucketMillis;
+        var count = counters.get(key, x -> new SlidingWindowCounter()).add(epoch, 1);
+
+        if (unshared != null) unshared.merge(new Bucket(key, epoch), new LoginAttemptTable.Attempts(key, epoch, 1, now), LoginAttemptTracker::combine);
+
+        return count >= limit;
+    }
+
+    private boolean isLocked(String key, int limit) {
+        if (limit <= 0) return false;
+
+        var counter = counters.getIfPresent(key);
+
+        return counter != null && counter.count(epoch()) >= limit;
+    }
+
+    private void exchange() {
+        if (unshared == null || unsharedClears == null || database == null) return;
+
+        var counted = new ArrayList<LoginAttemptTable.Attempts>();
+        var clears = new ArrayList<LoginAttemptTable.Attempts>();
+
+        for (Bucket bucket : unshared.keySet()) {
+            var attempts = unshared.remove(bucket);
+            if (attempts != null) counted.add(attempts);
+        }
+
+        for (String key : unsharedClears.keySet()) {
+            var clearedAt = unsharedClears.remove(key);
+            if (clearedAt != null) clears.add(new LoginAttemptTable.Attempts(key, clearedAt / bucketMillis, 0, clearedAt));
+        }
+
+        var epoch = epoch();
+        var oldest = epoch - SlidingWindowCounter.BUCKETS + 1;
+        List<LoginAttemptTable.Attempts> shared;
+
+        try {
+            shared = database.exchangeLoginAttempts(counted, clears, oldest);
+        } catch (RuntimeException e) {
+            plugin.getLogger().debug("Failed to exchange the login attempts: " + e.getMessage());
+
+            // Shared with the next exchange instead
+            for (LoginAttemptTable.Attempts attempts : counted) {
+                unshared.merge(new Bucket(attempts.key(), attempts.bucket()), attempts, LoginAttemptTracker::combine);
+            }
+            for (LoginAttemptTable.Attempts clear : clears) {
+                unsharedClears.merge(clear.key(), clear.recorded(), Math::max);
+            }
+            return;
+        }
+
+        // The clears first, so that they do not wipe the attempts made after them
+        for (LoginAttemptTable.Attempts attempts : shared) {
+            if (!attempts.key().startsWith(LoginAttemptTable.CLEARED_PREFIX)) continue;
+
+            var key = attempts.key().substring(LoginAttemptTable.CLEARED_PREFIX.length());
+            var clearedAt = cleared.getIfPresent(key);
+
+            if (clearedAt == null || clearedAt < attempts.recorded()) {
+                cleared.put(key, attempts.recorded());
+                counters.invalidate(key);
+            }
+        }
+
+        // The rows of all the proxies are summed per bucket, only the attempts made after the last clear count
+        var sums = new HashMap<Bucket, Integer>();
+
+        for (LoginAttemptTable.Attempts attempts : shared) {
+            if (attempts.key().startsWith(LoginAttemptTable.CLEARED_PREFIX)) continue;
+
+            var clearedAt = cleared.getIfPresent(attempts.key());
+            if (clearedAt != null && attempts.recorded() < clearedAt) continue;
+
+            sums.merge(new Bucket(attempts.key(), attempts.bucket()), attempts.count(), Integer::sum);
+        }
+
+        sums.forEach((bucket, count) -> counters.get(bucket.key(), x -> new SlidingWindowCounter()).merge(bucket.epoch(), count));
+    }
+
+    private static LoginAttemptTable.Attempts combine(LoginAttemptTable.Attempts first, LoginAttemptTable.Attempts second) {
+        return new LoginAttemptTable.Attempts(first.key(), first.bucket(), first.count() + second.count(), Math.min(first.recorded(), second.recorded()));
+    }
+
+    private long epoch() {
+        return System.currentTimeMillis() / bucketMillis;
+    }
+
+    private static String accountKey(UUID account) {
+        return "account:" + account;
+    }
+
+    private static String addressKey(String address) {
+        return "address:" + address;
+    }
+
+    @Nullable
+    private static String subnetKey(String address) {
+        try {
+            // The address is a literal, so this does not resolve anything
+            return "subnet:" + Subnet.of(InetAddress.getByName(address));
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private record Bucket(String key, long epoch) {
+    }
+
+}
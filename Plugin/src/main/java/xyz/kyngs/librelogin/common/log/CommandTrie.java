@@ -0,0 +1,86 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.log;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable prefix trie of commands. Looking a command up walks its characters once and allocates nothing.
+ */
+final class CommandTrie {
+
+    private final Node root;
+
+    CommandTrie(Collection<String> prefixes) {
+        var builder = new Builder();
+
+        for (String prefix : prefixes) {
+            var node = builder;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), key -> new Builder());
+            }
+            node.terminal = true;
+        }
+
+        root = builder.build();
+    }
+
+    /**
+     * @param input The input
+     * @param start The index the command starts at in the input
+     * @return Whether the input starts with any of the prefixes, from the start index on
+     */
+    boolean matches(String input, int start) {
+        var node = root;
+
+        for (int i = start; i < input.length(); i++) {
+            node = node.child(input.charAt(i));
+
+            if (node == null) return false;
+            if (node.terminal) return true;
+        }
+
+        return false;
+    }
+
+    private record Node(char[] keys, Node[] children, boolean terminal) {
+
+        private Node child(char key) {
+            // Only a handful of children per node, a linear scan beats any lookup structure
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) return children[i];
+            }
+
+            return null;
+        }
+
+    }
+
+    private static final class Builder {
+
+        private final Map<Character, Builder> children = new TreeMap<>();
+        private boolean terminal;
+
+        private Node build() {
+            var keys = new char[children.size()];
+            var nodes = new Node[children.size()];
+            var i = 0;
+
+            for (Map.Entry<Character, Builder> child : children.entrySet()) {
+                keys[i] = child.getKey();
+                nodes[i] = child.getValue().build();
+                i++;
+            }
+
+            return new Node(keys, nodes, terminal);
+        }
+
+    }
+
+}
@@ -42,6 +42,32 @@ public class Log4JFilter extends LogFilter implements Filter {
         return checkMessage(message, parameters) ? Result.NEUTRAL : Result.DENY;
     }
 
+    /**
+     * Converts the result of message checking into a Log4J {@link Result}, without allocating an array for the parameters.
+     *
+     * @param message The message pattern to be checked
+     * @param command The second parameter of the message
+     * @return {@link Result#NEUTRAL} if the message should be logged, {@link Result#DENY} if it should be filtered out
+     */
+    private Result checkMessageResult(String message, Object command) {
+        return checkMessage(message, command) ? Result.NEUTRAL : Result.DENY;
+    }
+
+    /**
+     * Converts the result of message checking into a Log4J {@link Result}.
+     * The parameters are only requested for the command logs, as the reusable messages copy them.
+     *
+     * @param message The message to be checked
+     * @return {@link Result#NEUTRAL} if the message should be logged, {@link Result#DENY} if it should be filtered out
+     */
+    private Result checkMessageResult(Message message) {
+        var format = message.getFormat();
+
+        if (!mayBeCommandLog(format)) return Result.NEUTRAL;
+
+        return checkMessageResult(format, message.getParameters());
+    }
+
     @Override
     public Result getOnMatch() {
         return Result.NEUTRAL;
@@ -59,68 +85,69 @@ public class Log4JFilter extends LogFilter implements Filter {
 
     @Override
     public Result filter(Logger logger, Level level, Marker marker, String message, Object p0) {
-        return checkMessageResult(message, new Object[]{p0});
+        // The command log formats always have two parameters
+        return Result.NEUTRAL;
     }
 
     @Override
     public Result filter(Logger logger, Level level, Marker marker, String message, Object p0, Object p1) {
-        return checkMessageResult(message, new Object[]{p0, p1});
+        return checkMessageResult(message, p1);
     }
 
     @Override
     public Result filter(Logger logger, Level level, Marker marker, String message, Object p0, Object p1, Object p2) {
-        return checkMessageResult(message, new Object[]{p0, p1, p2});
+        return checkMessageResult(message, p1);
     }
 
     @Override
     public Result filter(Logger logger, Level level, Marker marker, String message, Object p0, Object p1, Object p2, Object p3) {
-        return checkMessageResult(message, new Object[]{p0, p1, p2, p3});
+        return checkMessageResult(message, p1);
     }
 
     @Override
     public Result filter(Logger logger, Level level, Marker marker, String message, Object p0, Object p1, Object p2, Object p3, Object p4) {
-        return checkMessageResult(message, new Object[]{p0, p1, p2, p3, p4});
+        return checkMessageResult(message, p1);
     }
 
     @Override
     public Result filter(Logger logger, Level level, Marker marker, String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5) {
-        return checkMessageResult(message, new Object[]{p0, p1, p2, p3, p4, p5});
+        return checkMessageResult(message, p1);
     }
 
     @Override
     public Result filter(Logger logger, Level level, Marker marker, String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5, Object p6) {
-        return checkMessageResult(message, new Object[]{p0, p1, p2, p3, p4, p5, p6});
+        return checkMessageResult(message, p1);
     }
 
     @Override
     public Result filter(Logger logger, Level level, Marker marker, String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7) {
-        return checkMessageResult(message, new Object[]{p0, p1, p2, p3, p4, p5, p6, p7});
+        return checkMessageResult(message, p1);
     }
 
     @Override
     public Result filter(Logger logger, Level level, Marker marker, String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7, Object p8) {
-        return checkMessageResult(message, new Object[]{p0, p1, p2, p3, p4, p5, p6, p7, p8});
+        return checkMessageResult(message, p1);
     }
 
     @Override
     public Result filter(Logger logger, Level level, Marker marker, String message, Object p0, Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7, Object p8, Object p9) {
-        return checkMessageResult(message, new Object[]{p0, p1, p2, p3, p4, p5, p6, p7, p8, p9});
+        return checkMessageResult(message, p1);
     }
 
     @Override
     public Result filter(Logger logger, Level level, Marker marker, Object msg, Throwable t) {
-        return checkMessageResult(msg.toString(), null);
+        // A message without parameters is never a command log, and converting it to a string might be costly
+        return Result.NEUTRAL;
     }
 
     @Override
     public Result filter(Logger logger, Level level, Marker marker, Message msg, Throwable t) {
-        return checkMessageResult(msg.getFormat(), msg.getParameters());
+        return checkMessageResult(msg);
     }
 
     @Override
     public Result filter(LogEvent event) {
-        var message = event.getMessage();
-        return checkMessageResult(message.getFormat(), message.getParameters());
+        return checkMessageResult(event.getMessage());
     }
 
     @Override
@@ -16,29 +16,34 @@ import java.util.Set;
 public abstract class LogFilter {
 
     /**
-     * A set of command prefixes that should be protected from logging.
+     * A set of command prefixes that should be protected from logging, without the leading slash.
      * <p>
      * These commands typically contain sensitive information like passwords.
      */
     private static final Set<String> PROTECTED_COMMANDS = Set.of(
-        "/login ",
-        "/l ",
-        "/log ",
-        "/register ",
-        "/reg ",
-        "/premium ",
-        "/autologin ",
-        "/2faconfirm ",
-        "/changepassword ",
-        "/changepass ",
-        "/passch ",
-        "/passwd ",
-        "/confirmpasswordreset ",
-        "/setemail ",
-        "/librelogin user register ",
-        "/librelogin user pass-change "
+        "login ",
+        "l ",
+        "log ",
+        "register ",
+        "reg ",
+        "premium ",
+        "autologin ",
+        "2faconfirm ",
+        "changepassword ",
+        "changepass ",
+        "passch ",
+        "passwd ",
+        "confirmpasswordreset ",
+        "setemail ",
+        "librelogin user register ",
+        "librelogin user pass-change "
     );
 
+    /**
+     * The {@link #PROTECTED_COMMANDS} compiled into a trie, so that checking a command does not test every prefix.
+     */
+    private static final CommandTrie PROTECTED_TRIE = new CommandTrie(PROTECTED_COMMANDS);
+
     /**
      * Checks if a log message containing a command should be filtered out.
      *
@@ -47,21 +52,38 @@ public abstract class LogFilter {
      * @return {@code true} if the message should be logged, {@code false} if it should be filtered out
      */
     protected boolean checkMessage(String message, Object[] parameters) {
-        if (parameters == null || parameters.length <= 1 || !(parameters[1] instanceof String parameter)) return true;
+        if (parameters == null || parameters.length <= 1) return true;
 
-        parameter = switch (message) {
-            case "{} issued server command: {}" -> parameter;
-            case "{0} executed command: /{1}", "{} -> executed command /{}" -> '/' + parameter;
-            default -> "";
-        };
+        return checkMessage(message, parameters[1]);
+    }
 
-        if (parameter.isEmpty()) return true;
+    /**
+     * Checks if a log message containing a command should be filtered out. Allocates nothing, as it runs for every message logged.
+     *
+     * @param message The message pattern being logged
+     * @param command The second parameter of the message, which is the command in the command log formats
+     * @return {@code true} if the message should be logged, {@code false} if it should be filtered out
+     */
+    protected boolean checkMessage(String message, Object command) {
+        if (!mayBeCommandLog(message)) return true;
+        if (!(command instanceof String parameter) || parameter.isEmpty()) return true;
 
-        for (String command : PROTECTED_COMMANDS) {
-            if (parameter.startsWith(command)) return false;
-        }
+        return switch (message) {
+            case "{} issued server command: {}" -> parameter.charAt(0) != '/' || !PROTECTED_TRIE.matches(parameter, 1);
+            case "{0} executed command: /{1}", "{} -> executed command /{}" -> !PROTECTED_TRIE.matches(parameter, 0);
+            default -> true;
+        };
+    }
 
-        return true;
+    /**
+     * A cheap check to skip the messages which are certainly not command logs.
+     * All the command log formats start with a placeholder, so this skips hashing nearly every other message.
+     *
+     * @param message The message pattern being logged
+     * @return {@code false} if the message is not a command log, {@code true} if it might be
+     */
+    protected static boolean mayBeCommandLog(String message) {
+        return message != null && !message.isEmpty() && message.charAt(0) == '{';
     }
 
     /**
@@ -13,29 +13,49 @@ import xyz.kyngs.librelogin.api.mail.EmailHandler;
 import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
 import xyz.kyngs.librelogin.common.config.ConfigurationKeys;
 
+import java.util.concurrent.CompletionException;
+
 public class AuthenticEMailHandler implements EmailHandler {
 
     private final AuthenticLibreLogin<?, ?> plugin;
+    private final String host;
+    private final int port;
+    private final String smtpUsername;
+    private final String smtpPassword;
+    private final String fromEmail;
+    private final String sender;
+    private final MailOutbox outbox;
 
     public AuthenticEMailHandler(AuthenticLibreLogin<?, ?> plugin) {
         this.plugin = plugin;
-    }
 
-    @Override
-    public void sendEmail(String email, String subject, String content) {
+        var config = plugin.getConfiguration();
+
+        host = config.get(ConfigurationKeys.MAIL_HOST);
+        port = config.get(ConfigurationKeys.MAIL_PORT);
+        smtpUsername = config.get(ConfigurationKeys.MAIL_USERNAME);
+        smtpPassword = config.get(ConfigurationKeys.MAIL_PASSWORD);
+        fromEmail = config.get(ConfigurationKeys.MAIL_EMAIL);
+        sender = config.get(ConfigurationKeys.MAIL_SENDER);
+
         try {
-            var config = plugin.getConfiguration();
-            var port = config.get(ConfigurationKeys.MAIL_PORT);
+            outbox = new MailOutbox(plugin, this::createMail, config.get(ConfigurationKeys.MAIL_QUEUE_CAPACITY), config.get(ConfigurationKeys.MAIL_MAX_ATTEMPTS));
+        } catch (EmailException e) {
+            throw new RuntimeException(e);
+        }
 
+        outbox.start();
+    }
+
+    private HtmlEmail createMail() {
+        try {
             var mail = new HtmlEmail();
 
             mail.setCharset(EmailConstants.UTF_8);
-            mail.setHostName(config.get(ConfigurationKeys.MAIL_HOST));
+            mail.setHostName(host);
             mail.setSmtpPort(port);
-            mail.setSubject(subject);
-            mail.setAuthentication(config.get(ConfigurationKeys.MAIL_USERNAME), config.get(ConfigurationKeys.MAIL_PASSWORD));
-            mail.addTo(email);
-            mail.setFrom(config.get(ConfigurationKeys.MAIL_EMAIL), config.get(ConfigurationKeys.MAIL_SENDER));
+            mail.setAuthentication(smtpUsername, smtpPassword);
+            mail.setFrom(fromEmail, sender);
 
             switch (port) {
                 case 465 -> {
@@ -53,31 +73,64 @@ public class AuthenticEMailHandler implements EmailHandler {
                 }
             }
 
-            mail.setHtmlMsg(content);
-            Thread.currentThread().setContextClassLoader(getClass().getClassLoader());
-            mail.send();
+            return mail;
         } catch (EmailException e) {
             throw new RuntimeException(e);
         }
+    }
+
+    public MailOutbox getOutbox() {
+        return outbox;
+    }
+
+    public void shutdown() {
+        outbox.stop();
+    }
+
+    /**
+     * Stops this handler without waiting for the queued mails, they are sent by the next handler instead.
+     *
+     * @param next The handler replacing this one, or null if the mails are disabled now
+     */
+    public void handOver(AuthenticEMailHandler next) {
+        outbox.handOver(next == null ? null : next.outbox);
+    }
 
+    /**
+     * Queues the mail, it is sent in the background.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException If the outbox is full
+     */
+    @Override
+    public void sendEmail(String email, String subject, String content) {
+        outbox.submit(email, subject, content);
     }
 
+    /**
+     * Unlike the other mails, waits for the test mail to be delivered, so that the misconfiguration is reported.
+     */
     @Override
     public void sendTestMail(String email) {
-        sendEmail(email, "LibreLogin test mail", """
+        var result = outbox.submit(email, "LibreLogin test mail", """
                 Congratulations! You have successfully configured email sending in LibreLogin!<br>
                 Now, your users can reset their passwords.<br>
                 <i>If you have no idea what this means, block the sender.</i>
                 """);
+
+        try {
+            result.join();
+        } catch (CompletionException e) {
+            throw new RuntimeException(e.getCause());
+        }
     }
 
     @Override
     public void sendPasswordResetMail(String email, String token, String username, String ip) {
         sendEmail(email,
                 plugin.getMessages().getRawMessage("email-password-reset-subject")
-                        .replace("%server%", plugin.getConfiguration().get(ConfigurationKeys.MAIL_SENDER)),
+                        .replace("%server%", sender),
                 plugin.getMessages().getRawMessage("email-password-reset-content")
-                        .replace("%server%", plugin.getConfiguration().get(ConfigurationKeys.MAIL_SENDER))
+                        .replace("%server%", sender)
                         .replace("%code%", token)
                         .replace("%ip%", ip)
                         .replace("%name%", username)
@@ -88,10 +141,10 @@ public class AuthenticEMailHandler implements EmailHandler {
     public void sendVerificationMail(String email, String token, String username) {
         sendEmail(email,
                 plugin.getMessages().getRawMessage("email-verification-subject")
-                        .replace("%server%", plugin.getConfiguration().get(ConfigurationKeys.MAIL_SENDER)),
+                        .replace("%server%", sender),
                 plugin.getMessages().getRawMessage("email-verification-content")
                         .replace("%name%", username)
-                        .replace("%server%", plugin.getConfiguration().get(ConfigurationKeys.MAIL_SENDER))
+                        .replace("%server%", sender)
                         .replace("%code%", token)
         );
     }
@@ -0,0 +1,309 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.mail;
+
+import org.apache.commons.mail.EmailException;
+import org.apache.commons.mail.HtmlEmail;
+import xyz.kyngs.librelogin.api.Logger;
+import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
+import xyz.kyngs.librelogin.common.metrics.LatencyHistogram;
+
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Delivers the mails on a dedicated thread, so that no command waits for the SMTP server.<br>
+ * The mails queued together are sent over a single connection, which is kept open for a while for the next ones.
+ * A mail that fails to be delivered is retried with an exponential backoff.
+ */
+public class MailOutbox {
+
+    private static final int BATCH_SIZE = 50;
+    private static final long KEEP_ALIVE_MILLIS = 30_000;
+    private static final long RETRY_BACKOFF_MILLIS = 5_000;
+
+    private final AuthenticLibreLogin<?, ?> plugin;
+    private final Logger logger;
+    private final Session session;
+    private final Supplier<HtmlEmail> template;
+    private final int maxAttempts;
+    private final BlockingQueue<Mail> queue;
+    private final LatencyHistogram delivery;
+    private final LongAdder sent;
+    private final LongAdder retried;
+    private final LongAdder failed;
+    private final LongAdder rejected;
+    private volatile Thread worker;
+    private volatile MailOutbox successor;
+    /**
+     * Guards the queueing against stopping, so that no mail is queued once the worker has decided to exit.
+     */
+    private final Object submission = new Object();
+    private Transport transport;
+    private long lastUse;
+
+    /**
+     * @param template Creates a mail with everything but the recipient, the subject and the content set
+     */
+    public MailOutbox(AuthenticLibreLogin<?, ?> plugin, Supplier<HtmlEmail> template, int capacity, int maxAttempts) throws EmailException {
+        this.plugin = plugin;
+        this.logger = plugin.getLogger();
+        this.template = template;
+        this.session = template.get().getMailSession();
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, capacity));
+        this.delivery = new LatencyHistogram();
+        this.sent = new LongAdder();
+        this.retried = new LongAdder();
+        this.failed = new LongAdder();
+        this.rejected = new LongAdder();
+    }
+
+    public void start() {
+        var thread = new Thread(this::run, "LibreLogin Mail Outbox");
+        thread.setDaemon(true);
+        // The providers of javax.mail are looked up through the context class loader
+        thread.setContextClassLoader(getClass().getClassLoader());
+        worker = thread;
+        thread.start();
+    }
+
+    /**
+     * Stops the outbox once the queued mails are sent. The mails waiting for a retry are dropped.
+     */
+    public void stop() {
+        var thread = worker;
+        if (thread == null) return;
+
+        synchronized (submission) {
+            worker = null;
+        }
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops the outbox without waiting, meant for reloads. The queued mails and the pending retries are moved to the successor,
+     * if there is none, the queued mails are still sent in the background.
+     *
+     * @param successor The outbox replacing this one, or null if the mails are disabled now
+     */
+    public void handOver(MailOutbox successor) {
+        synchronized (submission) {
+            if (worker == null) return;
+
+            this.successor = successor;
+            worker = null;
+        }
+    }
+
+    /**
+     * Queues the mail without waiting for it to be sent.
+     *
+     * @return A future completed once the mail is delivered, or completed exceptionally once all its attempts fail
+     * @throws RejectedExecutionException If the outbox is full or stopped
+     */
+    public CompletableFuture<Void> submit(String to, String subject, String content) {
+        var mail = new Mail(to, subject, content, System.nanoTime(), new CompletableFuture<>());
+
+        synchronized (submission) {
+            if (worker != null) {
+                if (!queue.offer(new Attempt(mail, 1))) {
+                    rejected.increment();
+                    throw new RejectedExecutionException("The mail outbox is full");
+                }
+
+                return mail.result();
+            }
+        }
+
+        var next = successor;
+        if (next != null) return next.submit(to, subject, content);
+
+        rejected.increment();
+        throw new RejectedExecutionException("The mail outbox is stopped");
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public LatencyHistogram getDelivery() {
+        return delivery;
+    }
+
+    public long getSent() {
+        return sent.sum();
+    }
+
+    public long getRetried() {
+        return retried.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private void run() {
+        var batch = new ArrayList<Attempt>(BATCH_SIZE);
+
+        while (worker != null || (successor == null && !queue.isEmpty())) {
+            Attempt first;
+            try {
+                first = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+
+            if (first == null) {
+                if (transport != null && System.currentTimeMillis() - lastUse > KEEP_ALIVE_MILLIS) disconnect();
+                continue;
+            }
+
+            batch.add(first);
+            queue.drainTo(batch, BATCH_SIZE - 1);
+
+            send(batch);
+            batch.clear();
+        }
+
+        disconnect();
+
+        Attempt left;
+        while ((left = queue.poll()) != null) {
+            forward(left, null);
+        }
+    }
+
+    private void send(List<Attempt> batch) {
+        for (Attempt attempt : batch) {
+            var mail = attempt.mail();
+
+            try {
+                var message = template.get();
+
+                message.setMailSession(session);
+                message.addTo(mail.to());
+                message.setSubject(mail.subject());
+                message.setHtmlMsg(mail.content());
+                message.buildMimeMessage();
+
+                var mime = message.getMimeMessage();
+
+                connect().sendMessage(mime, mime.getAllRecipients());
+                lastUse = System.currentTimeMillis();
+
+                sent.increment();
+                delivery.record(System.nanoTime() - mail.queued());
+                mail.result().complete(null);
+            } catch (SendFailedException | EmailException e) {
+                // The message itself is wrong, e.g. an invalid address, sending it again would not help
+                fail(mail, e);
+            } catch (MessagingException | RuntimeException e) {
+                // The connection might have been closed by the server in the meantime
+                disconnect();
+                retry(attempt, e);
+            }
+        }
+    }
+
+    private Transport connect() throws MessagingException {
+        if (transport == null || !transport.isConnected()) {
+            transport = session.getTransport();
+            transport.connect();
+        }
+
+        return transport;
+    }
+
+    private void disconnect() {
+        if (transport == null) return;
+
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            logger.debug("Failed to close the SMTP connection", e);
+        }
+
+        transport = null;
+    }
+
+    private void retry(Attempt attempt, Exception e) {
+        var mail = attempt.mail();
+
+        if (attempt.number() >= maxAttempts || (worker == null && successor == null)) {
+            fail(mail, e);
+            return;
+        }
+
+        retried.increment();
+        logger.debug("Failed to send a mail to %s, retrying".formatted(mail.to()), e);
+
+        var next = new Attempt(mail, attempt.number() + 1);
+
+        plugin.delay(() -> requeue(next, e), RETRY_BACKOFF_MILLIS << (attempt.number() - 1));
+    }
+
+    /**
+     * Queues the attempt again, or moves it to the successor if this outbox has been stopped meanwhile.
+     */
+    private void requeue(Attempt attempt, Exception cause) {
+        synchronized (submission) {
+            if (worker != null) {
+                if (!queue.offer(attempt)) fail(attempt.mail(), cause);
+                return;
+            }
+        }
+
+        forward(attempt, cause);
+    }
+
+    /**
+     * Moves the attempt to the successor, or fails the mail if there is none or it is full.
+     */
+    private void forward(Attempt attempt, Exception cause) {
+        var next = successor;
+        var reason = cause != null ? cause : new RejectedExecutionException("The mail outbox was stopped");
+
+        if (next == null) {
+            fail(attempt.mail(), reason);
+        } else {
+            next.requeue(attempt, reason);
+        }
+    }
+
+    private void fail(Mail mail, Exception e) {
+        failed.increment();
+        logger.warn("Failed to send a mail to %s: %s".formatted(mail.to(), e.getMessage()));
+        mail.result().completeExceptionally(e);
+    }
+
+    private record Mail(String to, String subject, String content, long queued, CompletableFuture<Void> result) {
+    }
+
+    private record Attempt(Mail mail, int number) {
+    }
+
+}
@@ -0,0 +1,34 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.metrics;
+
+import xyz.kyngs.librelogin.api.metrics.DatabaseMetrics;
+import xyz.kyngs.librelogin.api.metrics.LatencySnapshot;
+import xyz.kyngs.librelogin.api.metrics.PoolSnapshot;
+
+import java.util.List;
+import java.util.Map;
+
+public record AuthenticDatabaseMetrics(List<PoolSnapshot> pools, Map<String, LatencySnapshot> operations,
+                                       long slowOperations) implements DatabaseMetrics {
+
+    @Override
+    public List<PoolSnapshot> getPools() {
+        return pools;
+    }
+
+    @Override
+    public Map<String, LatencySnapshot> getOperations() {
+        return operations;
+    }
+
+    @Override
+    public long getSlowOperations() {
+        return slowOperations;
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.metrics;
+
+import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
+import xyz.kyngs.librelogin.common.database.AuthenticDatabaseProvider;
+import xyz.kyngs.librelogin.common.database.connector.HikariPoolMetrics;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies of the phases of a login, keyed by their outcome, and counters of the notable events.<br>
+ * Recording is lock-free, so the phases can be timed on every join.
+ */
+public class AuthenticMetrics {
+
+    public static final String PRE_LOGIN = "pre_login";
+    public static final String PREMIUM_LOOKUP = "premium_lookup";
+    public static final String CHOOSE_SERVER = "choose_server";
+    public static final String HASH_VERIFICATION = "hash_verification";
+    public static final String AUTHORIZATION = "authorization";
+
+    public static final String AUTHENTICATIONS = "authentications";
+    public static final String WRONG_PASSWORDS = "wrong_passwords";
+
+    private final AuthenticLibreLogin<?, ?> plugin;
+    private final Map<Phase, LatencyHistogram> phases;
+    private final Map<Counter, LongAdder> counters;
+
+    public AuthenticMetrics(AuthenticLibreLogin<?, ?> plugin) {
+        this.plugin = plugin;
+        this.phases = new ConcurrentHashMap<>();
+        this.counters = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @param phase   The phase, e.g. {@link #PRE_LOGIN}
+     * @param outcome The outcome of the phase, e.g. FORCE_OFFLINE
+     * @param start   The {@link System#nanoTime()} at the start of the phase
+     */
+    public void record(String phase, String outcome, long start) {
+        phases.computeIfAbsent(new Phase(phase, outcome), key -> new LatencyHistogram()).record(System.nanoTime() - start);
+    }
+
+    /**
+     * @param counter   The counter, e.g. {@link #AUTHENTICATIONS}
+     * @param labelName The name of the label, e.g. reason
+     * @param label     What is counted, e.g. the authentication reason
+     */
+    public void increment(String counter, String labelName, String label) {
+        counters.computeIfAbsent(new Counter(counter, labelName, label), key -> new LongAdder()).increment();
+    }
+
+    public void write(MetricsVisitor visitor) {
+        phases.forEach((phase, histogram) -> visitor.histogram(
+                "librelogin_login_phase_seconds",
+                "Latency of the phases of a login",
+                Map.of("phase", phase.name(), "outcome", phase.outcome()),
+                histogram
+        ));
+
+        // Sorted, so that the series of a single counter are visited together
+        counters.entrySet().stream()
+                .sorted(Comparator.comparing(entry -> entry.getKey().name()))
+                .forEach(entry -> {
+                    var counter = entry.getKey();
+                    visitor.counter(
+                            "librelogin_" + counter.name() + "_total",
+                            "Count of the " + counter.name().replace('_', ' '),
+                            Map.of(counter.labelName(), counter.label()),
+                            entry.getValue().sum()
+                    );
+                });
+
+        writeDatabase(visitor);
+        writeMail(visitor);
+    }
+
+    private void writeMail(MetricsVisitor visitor) {
+        var handler = plugin.getEmailHandler();
+        if (handler == null) return;
+
+        var outbox = handler.getOutbox();
+
+        visitor.gauge("librelogin_mail_queue_size", "Mails waiting to be sent", Map.of(), outbox.getQueueSize());
+        visitor.histogram("librelogin_mail_delivery_seconds", "Time from queueing a mail to its delivery", Map.of(), outbox.getDelivery());
+
+        for (Map.Entry<String, Long> outcome : Map.of("sent", outbox.getSent(), "retried", outbox.getRetried(), "failed", outbox.getFailed(), "rejected", outbox.getRejected()).entrySet()) {
+            visitor.counter("librelogin_mails_total", "Count of the mails by their outcome", Map.of("outcome", outcome.getKey()), outcome.getValue());
+        }
+    }
+
+    private void writeDatabase(MetricsVisitor visitor) {
+        if (plugin.getDatabaseProvider() instanceof AuthenticDatabaseProvider<?> provider) {
+            var operations = provider.getMetrics();
+
+            operations.forEach((operation, histogram) -> visitor.histogram(
+                    "librelogin_database_operation_seconds",
+                    "Latency of the database provider operations",
+                    Map.of("operation", operation),
+                    histogram
+            ));
+
+            visitor.counter(
+                    "librelogin_database_slow_operations_total",
+                    "Count of the database operations over the slow query threshold",
+                    Map.of(),
+                    operations.getSlowOperations()
+            );
+        }
+
+        var pools = plugin.getPoolMetrics();
+
+        for (HikariPoolMetrics pool : pools) {
+            var stats = pool.getStats();
+            var name = pool.getName();
+
+            visitor.gauge("librelogin_database_pool_connections", "Connections of the database pool", Map.of("pool", name, "state", "active"), stats.getActiveConnections());
+            visitor.gauge("librelogin_database_pool_connections", "Connections of the database pool", Map.of("pool", name, "state", "idle"), stats.getIdleConnections());
+            visitor.gauge("librelogin_database_pool_connections", "Connections of the database pool", Map.of("pool", name, "state", "maximum"), pool.getMaximumSize());
+        }
+
+        for (HikariPoolMetrics pool : pools) {
+            visitor.gauge("librelogin_database_pool_pending_threads", "Threads waiting for a connection", Map.of("pool", pool.getName()), pool.getStats().getPendingThreads());
+        }
+
+        for (HikariPoolMetrics pool : pools) {
+            visitor.counter("librelogin_database_pool_timeouts_total", "Count of the connection timeouts", Map.of("pool", pool.getName()), pool.getTimeouts());
+        }
+
+        for (HikariPoolMetrics pool : pools) {
+            visitor.histogram("librelogin_database_pool_wait_seconds", "Time spent waiting for a connection", Map.of("pool", pool.getName()), pool.getConnectionWait());
+        }
+    }
+
+    private record Phase(String name, String outcome) {
+    }
+
+    private record Counter(String name, String labelName, String label) {
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.metrics;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Streams the metrics into an open JSON array, every series is an object carrying its name and labels.<br>
+ * The failures of the underlying writer are thrown as {@link UncheckedIOException}.
+ */
+public class JsonMetricsWriter implements MetricsVisitor {
+
+    private final JsonWriter writer;
+
+    public JsonMetricsWriter(JsonWriter writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void histogram(String name, String help, Map<String, String> labels, LatencyHistogram histogram) {
+        var snapshot = histogram.snapshot();
+
+        series(name, labels, () -> {
+            writer.name("count").value(snapshot.count());
+            writer.name("mean").value(snapshot.meanMillis());
+            writer.name("p50").value(snapshot.p50Millis());
+            writer.name("p95").value(snapshot.p95Millis());
+            writer.name("p99").value(snapshot.p99Millis());
+            writer.name("max").value(snapshot.maxMillis());
+        });
+    }
+
+    @Override
+    public void counter(String name, String help, Map<String, String> labels, long value) {
+        series(name, labels, () -> {
+            writer.name("value").value(value);
+        });
+    }
+
+    @Override
+    public void gauge(String name, String help, Map<String, String> labels, double value) {
+        series(name, labels, () -> {
+            writer.name("value").value(value);
+        });
+    }
+
+    private void series(String name, Map<String, String> labels, Body body) {
+        try {
+            writer.beginObject();
+            writer.name("name").value(name);
+
+            writer.name("labels").beginObject();
+            for (Map.Entry<String, String> label : labels.entrySet()) {
+                writer.name(label.getKey()).value(label.getValue());
+            }
+            writer.endObject();
+
+            body.write();
+            writer.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface Body {
+        void write() throws IOException;
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.metrics;
+
+import xyz.kyngs.librelogin.api.metrics.LatencySnapshot;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies with exponentially growing buckets, from 50 microseconds to roughly 10 seconds.
+ * Recording a sample costs a few increments, so it is cheap enough for every query.
+ */
+public class LatencyHistogram {
+
+    private static final long[] BOUNDS;
+
+    static {
+        BOUNDS = new long[32];
+        var bound = 50_000d;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            BOUNDS[i] = (long) bound;
+            bound *= 1.5;
+        }
+    }
+
+    private final LongAdder[] buckets;
+    private final LongAdder count;
+    private final LongAdder sum;
+    private final LongAccumulator max;
+
+    public LatencyHistogram() {
+        this.buckets = new LongAdder[BOUNDS.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+        this.count = new LongAdder();
+        this.sum = new LongAdder();
+        this.max = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * @param nanos The latency in nanoseconds
+     */
+    public void record(long nanos) {
+        buckets[bucket(nanos)].increment();
+        count.increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return The sum of all the samples in nanoseconds
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return The amount of samples in every bucket, the last bucket holds the samples above the largest bound
+     */
+    public long[] getBucketCounts() {
+        var counts = new long[buckets.length];
+
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+
+        return counts;
+    }
+
+    /**
+     * @return The inclusive upper bounds of the buckets in nanoseconds
+     */
+    public static long[] getBucketBounds() {
+        return BOUNDS.clone();
+    }
+
+    /**
+     * Clears the histogram. Samples recorded concurrently may be lost, which is fine for the windowed uses.
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * @param quantile The quantile, between 0 and 1
+     * @return The upper bound of the bucket containing the quantile in nanoseconds, or 0 if there are no samples
+     */
+    public long quantile(double quantile) {
+        var counts = getBucketCounts();
+        return quantile(counts, total(counts), quantile);
+    }
+
+    public LatencySnapshot snapshot() {
+        var counts = getBucketCounts();
+        var total = total(counts);
+
+        if (total == 0) return new LatencySnapshot(0, 0, 0, 0, 0, 0);
+
+        return new LatencySnapshot(
+                total,
+                toMillis(sum.sum() / (double) total),
+                toMillis(quantile(counts, total, 0.5)),
+                toMillis(quantile(counts, total, 0.95)),
+                toMillis(quantile(counts, total, 0.99)),
+                toMillis(max.get())
+        );
+    }
+
+    private long quantile(long[] counts, long total, double quantile) {
+        if (total == 0) return 0;
+
+        var rank = (long) Math.ceil(total * quantile);
+        var seen = 0L;
+
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            // The last bucket is unbounded, the maximum is the best estimate
+            if (seen >= rank) return i < BOUNDS.length ? Math.min(BOUNDS[i], max.get()) : max.get();
+        }
+
+        return max.get();
+    }
+
+    private static long total(long[] counts) {
+        var total = 0L;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    private static int bucket(long nanos) {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            if (nanos <= BOUNDS[i]) return i;
+        }
+        return BOUNDS.length;
+    }
+
+    private static double toMillis(double nanos) {
+        return Math.round(nanos / 1_000) / 1_000d;
+    }
+
+}
@@ -0,0 +1,20 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.metrics;
+
+import java.io.IOException;
+
+/**
+ * Publishes the metrics of the plugin, e.g. on an HTTP endpoint. Started after the plugin is enabled and stopped when it is disabled, or when the configuration is reloaded.
+ */
+public interface MetricsExporter {
+
+    void start() throws IOException;
+
+    void stop();
+
+}
@@ -0,0 +1,22 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.metrics;
+
+import java.util.Map;
+
+/**
+ * Receives the metrics of the plugin, one series at a time. The series of a single metric are always visited together.
+ */
+public interface MetricsVisitor {
+
+    void histogram(String name, String help, Map<String, String> labels, LatencyHistogram histogram);
+
+    void counter(String name, String help, Map<String, String> labels, long value);
+
+    void gauge(String name, String help, Map<String, String> labels, double value);
+
+}
@@ -0,0 +1,123 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.metrics;
+
+import xyz.kyngs.librelogin.api.Logger;
+import xyz.kyngs.librelogin.api.metrics.LatencySnapshot;
+import xyz.kyngs.librelogin.common.jfr.DatabaseOperationEvent;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Measures the latency of named operations, e.g. the methods of a database provider, and logs the slow ones.
+ */
+public class OperationMetrics {
+
+    private static final int RECENT_SLOW_OPERATIONS = 32;
+
+    private final Logger logger;
+    private final long slowThresholdNanos;
+    private final Map<String, LatencyHistogram> operations;
+    private final LongAdder slow;
+    private final Deque<SlowOperation> recentSlow;
+
+    /**
+     * @param logger              The logger for the slow operations
+     * @param slowThresholdMillis Operations slower than this are logged, 0 disables the logging
+     */
+    public OperationMetrics(Logger logger, long slowThresholdMillis) {
+        this.logger = logger;
+        this.slowThresholdNanos = slowThresholdMillis * 1_000_000;
+        this.operations = new ConcurrentHashMap<>();
+        this.slow = new LongAdder();
+        this.recentSlow = new ArrayDeque<>(RECENT_SLOW_OPERATIONS);
+    }
+
+    public <T> T time(String operation, Supplier<T> supplier) {
+        var event = new DatabaseOperationEvent();
+        T result = null;
+
+        event.begin();
+        var start = System.nanoTime();
+        try {
+            result = supplier.get();
+            return result;
+        } finally {
+            record(operation, System.nanoTime() - start);
+            event.complete(operation, result);
+        }
+    }
+
+    public void time(String operation, Runnable runnable) {
+        var event = new DatabaseOperationEvent();
+
+        event.begin();
+        var start = System.nanoTime();
+        try {
+            runnable.run();
+        } finally {
+            record(operation, System.nanoTime() - start);
+            event.complete(operation, null);
+        }
+    }
+
+    public void record(String operation, long nanos) {
+        operations.computeIfAbsent(operation, key -> new LatencyHistogram()).record(nanos);
+
+        if (slowThresholdNanos > 0 && nanos > slowThresholdNanos) {
+            slow.increment();
+
+            // Slow operations are rare, so the lock is not contended
+            synchronized (recentSlow) {
+                if (recentSlow.size() == RECENT_SLOW_OPERATIONS) recentSlow.removeFirst();
+                recentSlow.addLast(new SlowOperation(operation, nanos / 1_000_000, System.currentTimeMillis()));
+            }
+
+            logger.warn("Slow database operation %s took %s ms".formatted(operation, nanos / 1_000_000));
+        }
+    }
+
+    public Map<String, LatencySnapshot> snapshot() {
+        var snapshot = new TreeMap<String, LatencySnapshot>();
+
+        operations.forEach((operation, histogram) -> snapshot.put(operation, histogram.snapshot()));
+
+        return snapshot;
+    }
+
+    public void forEach(BiConsumer<String, LatencyHistogram> consumer) {
+        operations.forEach(consumer);
+    }
+
+    public long getSlowOperations() {
+        return slow.sum();
+    }
+
+    /**
+     * @return The last slow operations, the oldest first
+     */
+    public List<SlowOperation> getRecentSlowOperations() {
+        synchronized (recentSlow) {
+            return List.copyOf(recentSlow);
+        }
+    }
+
+    /**
+     * @param timestamp The wall-clock time the operation has finished at, in milliseconds
+     */
+    public record SlowOperation(String operation, long millis, long timestamp) {
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Serves the metrics in the Prometheus text format on /metrics.
+ */
+public class PrometheusExporter implements MetricsExporter {
+
+    private final AuthenticLibreLogin<?, ?> plugin;
+    private final String address;
+    private final int port;
+    private HttpServer server;
+
+    public PrometheusExporter(AuthenticLibreLogin<?, ?> plugin, String address, int port) {
+        this.plugin = plugin;
+        this.address = address;
+        this.port = port;
+    }
+
+    @Override
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(address, port), 0);
+
+        server.createContext("/metrics", exchange -> {
+            try (exchange) {
+                var body = render().getBytes(StandardCharsets.UTF_8);
+
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+        });
+
+        server.start();
+
+        plugin.getLogger().info("Serving Prometheus metrics on http://%s:%s/metrics".formatted(address, port));
+    }
+
+    @Override
+    public void stop() {
+        if (server != null) server.stop(0);
+    }
+
+    public String render() {
+        var writer = new TextWriter();
+        plugin.getMetrics().write(writer);
+        return writer.builder.toString();
+    }
+
+    private static final class TextWriter implements MetricsVisitor {
+
+        private static final long[] BOUNDS = LatencyHistogram.getBucketBounds();
+
+        private final StringBuilder builder = new StringBuilder();
+        private String current;
+
+        @Override
+        public void histogram(String name, String help, Map<String, String> labels, LatencyHistogram histogram) {
+            header(name, help, "histogram");
+
+            var counts = histogram.getBucketCounts();
+            var cumulative = 0L;
+
+            for (int i = 0; i < BOUNDS.length; i++) {
+                cumulative += counts[i];
+                sample(name + "_bucket", labels, String.valueOf(BOUNDS[i] / 1e9), cumulative);
+            }
+
+            cumulative += counts[BOUNDS.length];
+            sample(name + "_bucket", labels, "+Inf", cumulative);
+
+            sample(name + "_sum", labels, null, histogram.getSum() / 1e9);
+            sample(name + "_count", labels, null, cumulative);
+        }
+
+        @Override
+        public void counter(String name, String help, Map<String, String> labels, long value) {
+            header(name, help, "counter");
+            sample(name, labels, null, value);
+        }
+
+        @Override
+        public void gauge(String name, String help, Map<String, String> labels, double value) {
+            header(name, help, "gauge");
+            sample(name, labels, null, value);
+        }
+
+        private void header(String name, String help, String type) {
+            if (name.equals(current)) return;
+            current = name;
+
+            builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        }
+
+        private void sample(String name, Map<String, String> labels, String le, Object value) {
+            builder.append(name);
+
+            if (!labels.isEmpty() || le != null) {
+                builder.append('{');
+
+                var first = true;
+
+                for (Map.Entry<String, String> label : labels.entrySet()) {
+                    if (!first) builder.append(',');
+                    first = false;
+                    builder.append(label.getKey()).append("=\"").append(escape(label.getValue())).append('"');
+                }
+
+                if (le != null) {
+                    if (!first) builder.append(',');
+                    builder.append("le=\"").append(le).append('"');
+                }
+
+                builder.append('}');
+            }
+
+            builder.append(' ').append(value).append('\n');
+        }
+
+        private static String escape(String value) {
+            return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        }
+
+    }
+}
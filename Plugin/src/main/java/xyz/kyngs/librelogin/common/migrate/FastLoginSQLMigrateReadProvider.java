@@ -10,7 +10,7 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 import xyz.kyngs.librelogin.api.Logger;
 import xyz.kyngs.librelogin.api.database.User;
-import xyz.kyngs.librelogin.api.database.connector.DatabaseConnector;
+import xyz.kyngs.librelogin.api.database.ReadWriteDatabaseProvider;
 import xyz.kyngs.librelogin.api.database.connector.SQLDatabaseConnector;
 import xyz.kyngs.librelogin.api.premium.PremiumException;
 import xyz.kyngs.librelogin.api.premium.PremiumProvider;
@@ -20,10 +20,10 @@ import xyz.kyngs.librelogin.common.util.GeneralUtil;
 import java.util.*;
 
 public class FastLoginSQLMigrateReadProvider extends SQLMigrateReadProvider {
-    private final DatabaseConnector<?, ?> main;
+    private final ReadWriteDatabaseProvider main;
     private final PremiumProvider provider;
 
-    public FastLoginSQLMigrateReadProvider(String tableName, Logger logger, SQLDatabaseConnector connector, DatabaseConnector<?, ?> main, PremiumProvider provider) {
+    public FastLoginSQLMigrateReadProvider(String tableName, Logger logger, SQLDatabaseConnector connector, ReadWriteDatabaseProvider main, PremiumProvider provider) {
         super(tableName, logger, connector);
         this.main = main;
         this.provider = provider;
@@ -111,14 +111,12 @@ public class FastLoginSQLMigrateReadProvider extends SQLMigrateReadProvider {
 
                 assert name != null;
 
-                if (main instanceof SQLDatabaseConnector sqlMain) {
-                    String finalName = name;
-                    sqlMain.runQuery(connection2 -> {
-                        var ps2 = connection2.prepareStatement("UPDATE authentication SET premium_uuid=? WHERE last_nickname=?");
-                        ps2.setString(1, premiumUUID.toString());
-                        ps2.setString(2, finalName);
-                        ps2.executeUpdate();
-                    });
+                // Goes through the provider, the column format depends on the database
+                var existing = main.getByName(name);
+
+                if (existing != null) {
+                    existing.setPremiumUUID(premiumUUID);
+                    main.updateUser(existing);
                 }
             }
 
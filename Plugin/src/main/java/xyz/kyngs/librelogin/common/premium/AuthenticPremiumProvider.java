@@ -14,6 +14,7 @@ import xyz.kyngs.librelogin.api.premium.PremiumProvider;
 import xyz.kyngs.librelogin.api.premium.PremiumUser;
 import xyz.kyngs.librelogin.api.util.ThrowableFunction;
 import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
+import xyz.kyngs.librelogin.common.jfr.PremiumFetchEvent;
 import xyz.kyngs.librelogin.common.util.GeneralUtil;
 
 import java.io.IOException;
@@ -28,22 +29,35 @@ import java.util.concurrent.TimeUnit;
 
 public class AuthenticPremiumProvider implements PremiumProvider {
 
+    public static final String MOJANG_API = "https://api.mojang.com";
+
     private final Cache<String, PremiumUser> userCache;
-    private final List<ThrowableFunction<String, PremiumUser, PremiumException>> fetchers;
+    private final List<Fetcher> fetchers;
     private final AuthenticLibreLogin<?, ?> plugin;
+    private final String mojangApi;
 
     public AuthenticPremiumProvider(AuthenticLibreLogin<?, ?> plugin) {
+        this(plugin, MOJANG_API);
+    }
+
+    /**
+     * @param mojangApi The base URL of the Mojang API, e.g. a local stub in load tests
+     */
+    public AuthenticPremiumProvider(AuthenticLibreLogin<?, ?> plugin, String mojangApi) {
         this.plugin = plugin;
+        this.mojangApi = mojangApi;
         userCache = Caffeine.newBuilder()
                 .expireAfterWrite(10, TimeUnit.MINUTES)
+                .recordStats()
                 .build();
+        plugin.registerCache("premium-users", userCache);
 
         fetchers = new ArrayList<>(3);
 
-        fetchers.add(this::getUserFromMojang);
-        fetchers.add(this::getUserFromPlayerDB);
-        fetchers.add(this::getUserFromMinetools);
-        //fetchers.add(this::getUserFromAshcon); //Momentarily disabled, as it's unreliable. See https://github.com/Electroid/mojang-api/issues/79
+        fetchers.add(new Fetcher("Mojang", this::getUserFromMojang));
+        fetchers.add(new Fetcher("PlayerDB", this::getUserFromPlayerDB));
+        fetchers.add(new Fetcher("Minetools", this::getUserFromMinetools));
+        //fetchers.add(new Fetcher("Ashcon", this::getUserFromAshcon)); //Momentarily disabled, as it's unreliable. See https://github.com/Electroid/mojang-api/issues/79
     }
 
     @Override
@@ -56,10 +70,16 @@ public class AuthenticPremiumProvider implements PremiumProvider {
         var result = userCache.get(name, x -> {
             for (int i = 0; i < fetchers.size(); i++) {
                 var fetcher = fetchers.get(i);
+                var event = new PremiumFetchEvent();
+
+                event.begin();
 
                 try {
-                    return fetcher.apply(x);
+                    var user = fetcher.function().apply(x);
+                    event.complete(fetcher.name(), x, user == null ? "NOT_FOUND" : "FOUND");
+                    return user;
                 } catch (PremiumException e) {
+                    event.complete(fetcher.name(), x, e.getIssue().name());
                     if (i == fetchers.size() - 1) {
                         exceptionToThrow[0] = e;
                     } else if (e.getIssue() == PremiumException.Issue.SERVER_EXCEPTION) {
@@ -70,6 +90,7 @@ public class AuthenticPremiumProvider implements PremiumProvider {
                         plugin.getLogger().warn("Got unexpected exception while fetching premium user. Falling back to an alternative API. Player's information's might not be up-to-date.", e);
                     }
                 } catch (RuntimeException e) {
+                    event.complete(fetcher.name(), x, PremiumException.Issue.UNDEFINED.name());
                     plugin.getLogger().debug("Unexpected exception while fetching premium user " + finalName, e);
                     if (i == fetchers.size() - 1) {
                         exceptionToThrow[0] = new PremiumException(PremiumException.Issue.UNDEFINED, e);
@@ -198,7 +219,7 @@ public class AuthenticPremiumProvider implements PremiumProvider {
     private PremiumUser getUserFromMojang(String name) throws PremiumException {
         try {
             plugin.reportMainThread();
-            var connection = (HttpURLConnection) new URL("https://api.mojang.com/users/profiles/minecraft/" + name).openConnection();
+            var connection = (HttpURLConnection) new URL(mojangApi + "/users/profiles/minecraft/" + name).openConnection();
             connection.setConnectTimeout(5000);
             connection.setReadTimeout(5000);
 
@@ -262,4 +283,7 @@ public class AuthenticPremiumProvider implements PremiumProvider {
             throw new PremiumException(PremiumException.Issue.UNDEFINED, e);
         }
     }
+
+    private record Fetcher(String name, ThrowableFunction<String, PremiumUser, PremiumException> function) {
+    }
 }
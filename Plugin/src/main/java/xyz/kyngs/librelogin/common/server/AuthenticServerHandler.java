@@ -19,11 +19,14 @@ import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
 import xyz.kyngs.librelogin.common.config.ConfigurationKeys;
 import xyz.kyngs.librelogin.common.event.events.AuthenticLimboServerChooseEvent;
 import xyz.kyngs.librelogin.common.event.events.AuthenticLobbyServerChooseEvent;
+import xyz.kyngs.librelogin.common.jfr.ServerChooseEvent;
+import xyz.kyngs.librelogin.common.jfr.ServerPingEvent;
 import xyz.kyngs.librelogin.common.util.CancellableTask;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Optional;
 
 import static xyz.kyngs.librelogin.common.config.ConfigurationKeys.*;
@@ -43,17 +46,28 @@ public class AuthenticServerHandler<P, S> implements ServerHandler<P, S> {
         this.limboServers = new ArrayList<>();
 
         this.pingCache = Caffeine.newBuilder()
+                .recordStats()
                 .build(server -> {
                     if (!plugin.getConfiguration().get(ConfigurationKeys.PING_SERVERS))
                         return Optional.of(new ServerPing(Integer.MAX_VALUE));
 
+                    var event = new ServerPingEvent();
+
                     plugin.getLogger().debug("Pinging server " + server);
+                    event.begin();
                     var ping = plugin.getPlatformHandle().ping(server);
+                    event.end();
                     plugin.getLogger().debug("Pinged server " + server + ": " + ping);
 
+                    if (event.shouldCommit()) {
+                        event.complete(plugin.getPlatformHandle().getServerName(server), ping == null ? -1 : ping.maxPlayers());
+                    }
+
                     return Optional.ofNullable(plugin.getConfiguration().get(IGNORE_MAX_PLAYERS_FROM_BACKEND_PING) ? new ServerPing(Integer.MAX_VALUE) : ping);
                 });
 
+        plugin.registerCache("server-pings", pingCache);
+
         pingCacheRefreshTask = plugin.repeat(() -> pingCache.refreshAll(pingCache.asMap().keySet()), 10000, 10000);
 
         var handle = plugin.getPlatformHandle();
@@ -64,7 +78,7 @@ public class AuthenticServerHandler<P, S> implements ServerHandler<P, S> {
         for (String limbo : plugin.getConfiguration().get(LIMBO)) {
             var server = handle.getServer(limbo, true);
             if (server != null) {
-                registerLimboServer(server);
+                limboServers.add(server);
             } else {
                 plugin.getLogger().warn("Limbo server/world " + limbo + " not found!");
             }
@@ -73,7 +87,7 @@ public class AuthenticServerHandler<P, S> implements ServerHandler<P, S> {
         plugin.getConfiguration().get(ConfigurationKeys.LOBBY).forEach((forced, server) -> {
             var s = handle.getServer(server, false);
             if (s != null) {
-                registerLobbyServer(s, forced);
+                lobbyServers.put(forced, s);
             } else {
                 plugin.getLogger().warn("Lobby server/world " + server + " not found!");
             }
@@ -86,7 +100,13 @@ public class AuthenticServerHandler<P, S> implements ServerHandler<P, S> {
             plugin.getLogger().debug("Server: " + plugin.getPlatformHandle().getServerName(server) + " | " + server);
         }
 
-        if (plugin.getConfiguration().get(ConfigurationKeys.PING_SERVERS)) plugin.getLogger().info("Pinged servers...");
+        var toPing = new HashSet<S>(limboServers);
+        toPing.addAll(lobbyServers.values());
+
+        // Do not block the startup on the slowest backend, the pings finish in the background
+        pingCache.refreshAll(toPing).thenRun(() -> {
+            if (plugin.getConfiguration().get(ConfigurationKeys.PING_SERVERS)) plugin.getLogger().info("Pinged servers...");
+        });
     }
 
     @Override
@@ -100,6 +120,16 @@ public class AuthenticServerHandler<P, S> implements ServerHandler<P, S> {
     }
 
     public S chooseLobbyServerInternal(@Nullable User user, P player, boolean remember, Boolean fallback) {
+        var event = new ServerChooseEvent();
+
+        event.begin();
+        var server = selectLobbyServer(user, player, remember, fallback);
+        complete(event, ServerChooseEvent.LOBBY, server);
+
+        return server;
+    }
+
+    private S selectLobbyServer(@Nullable User user, P player, boolean remember, Boolean fallback) {
         if (user != null && remember && plugin.getConfiguration().get(REMEMBER_LAST_SERVER)) {
             var last = user.getLastServer();
 
@@ -147,6 +177,24 @@ public class AuthenticServerHandler<P, S> implements ServerHandler<P, S> {
 
     @Override
     public S chooseLimboServer(User user, P player) {
+        var event = new ServerChooseEvent();
+
+        event.begin();
+        var server = selectLimboServer(user, player);
+        complete(event, ServerChooseEvent.LIMBO, server);
+
+        return server;
+    }
+
+    private void complete(ServerChooseEvent event, String kind, @Nullable S server) {
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.complete(kind, server == null ? null : plugin.getPlatformHandle().getServerName(server));
+        }
+    }
+
+    private S selectLimboServer(User user, P player) {
         var event = new AuthenticLimboServerChooseEvent<>(user, player, plugin);
 
         plugin.getEventProvider().fire(plugin.getEventTypes().limboServerChoose, event);
@@ -175,13 +223,13 @@ public class AuthenticServerHandler<P, S> implements ServerHandler<P, S> {
 
     @Override
     public void registerLobbyServer(S server, String forcedHost) {
-        getLatestPing(server);
+        pingCache.refresh(server);
         lobbyServers.put(forcedHost, server);
     }
 
     @Override
     public void registerLimboServer(S server) {
-        getLatestPing(server);
+        pingCache.refresh(server);
         limboServers.add(server);
     }
 
@@ -6,12 +6,15 @@
 
 package xyz.kyngs.librelogin.common.totp;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.QRCodeWriter;
 import dev.samstevens.totp.code.CodeVerifier;
 import dev.samstevens.totp.code.DefaultCodeGenerator;
 import dev.samstevens.totp.code.DefaultCodeVerifier;
-import dev.samstevens.totp.exceptions.QrGenerationException;
 import dev.samstevens.totp.qr.QrData;
-import dev.samstevens.totp.qr.ZxingPngQrGenerator;
 import dev.samstevens.totp.secret.DefaultSecretGenerator;
 import dev.samstevens.totp.secret.SecretGenerator;
 import dev.samstevens.totp.time.SystemTimeProvider;
@@ -20,23 +23,27 @@ import xyz.kyngs.librelogin.api.totp.TOTPData;
 import xyz.kyngs.librelogin.api.totp.TOTPProvider;
 import xyz.kyngs.librelogin.common.AuthenticLibreLogin;
 import xyz.kyngs.librelogin.common.config.ConfigurationKeys;
+import xyz.kyngs.librelogin.common.image.MapRenderer;
 
-import javax.imageio.ImageIO;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 public class AuthenticTOTPProvider implements TOTPProvider {
 
     private final AuthenticLibreLogin<?, ?> plugin;
     private final SecretGenerator secretGenerator;
-    private final ZxingPngQrGenerator qrGenerator;
+    private final QRCodeWriter qrWriter;
     private final CodeVerifier verifier;
+    private final Cache<String, byte[]> maps;
 
     public AuthenticTOTPProvider(AuthenticLibreLogin<?, ?> plugin) {
         this.plugin = plugin;
         secretGenerator = new DefaultSecretGenerator();
-        qrGenerator = new ZxingPngQrGenerator();
-        qrGenerator.setImageSize(256);
+        qrWriter = new QRCodeWriter();
+        maps = Caffeine.newBuilder()
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+        plugin.registerCache("totp-maps", maps);
 
         verifier = new DefaultCodeVerifier(new DefaultCodeGenerator(), new SystemTimeProvider());
     }
@@ -48,25 +55,29 @@ public class AuthenticTOTPProvider implements TOTPProvider {
 
     @Override
     public TOTPData generate(User user, String secret) {
-        var data = new QrData.Builder()
-                .label(user.getLastNickname())
-                .issuer(plugin.getConfiguration().get(ConfigurationKeys.TOTP_LABEL))
-                .secret(secret)
-                .build();
+        var map = maps.get(secret, key -> {
+            var data = new QrData.Builder()
+                    .label(user.getLastNickname())
+                    .issuer(plugin.getConfiguration().get(ConfigurationKeys.TOTP_LABEL))
+                    .secret(key)
+                    .build();
 
-        byte[] code;
+            try {
+                // The bit matrix goes straight into the map, there is no image to encode and decode
+                return MapRenderer.render(qrWriter.encode(data.getUri(), BarcodeFormat.QR_CODE, 0, 0));
+            } catch (WriterException e) {
+                throw new RuntimeException(e);
+            }
+        });
 
-        try {
-            code = qrGenerator.generate(data);
-        } catch (QrGenerationException e) {
-            throw new RuntimeException(e);
-        }
+        return new TOTPData(MapRenderer.toImage(map), secret);
+    }
 
-        try {
-            return new TOTPData(ImageIO.read(new ByteArrayInputStream(code)), secret);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    /**
+     * @return The QR code of the data rendered into a map, cached per secret
+     */
+    public byte[] getMap(TOTPData data) {
+        return maps.get(data.secret(), key -> MapRenderer.render(data.qr()));
     }
 
     @Override
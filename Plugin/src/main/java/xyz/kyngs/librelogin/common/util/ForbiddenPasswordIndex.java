@@ -0,0 +1,189 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * An on-disk index of forbidden passwords.
+ * <p>
+ * The plain text list is converted once into a sorted array of 64-bit password hashes, which is then memory-mapped.
+ * Lookups are a binary search over the mapped file, so the list does not occupy the heap, no matter how large it is.
+ * The index is rebuilt automatically whenever the source list changes.
+ */
+public class ForbiddenPasswordIndex {
+
+    private static final int MAGIC = 0x4C4C4650; // LLFP
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+
+    private final LongBuffer hashes;
+
+    private ForbiddenPasswordIndex(LongBuffer hashes) {
+        this.hashes = hashes;
+    }
+
+    /**
+     * Opens the index for the given list, building it first if it does not exist or is out of date.
+     *
+     * @param source The plain text list, one password per line, lines starting with "# " are ignored
+     * @param index  The index file
+     * @return The opened index
+     * @throws IOException If the list cannot be read or the index cannot be written
+     */
+    public static ForbiddenPasswordIndex open(File source, File index) throws IOException {
+        if (!upToDate(source, index)) {
+            build(source, index);
+        }
+
+        try (var channel = FileChannel.open(index.toPath(), StandardOpenOption.READ)) {
+            var size = channel.size();
+
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Forbidden passwords index is too large");
+            }
+
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            var count = buffer.getLong(8);
+
+            buffer.position(HEADER_SIZE);
+
+            return new ForbiddenPasswordIndex(buffer.slice().asLongBuffer().limit((int) count));
+        }
+    }
+
+    /**
+     * Checks whether the password is on the list. The check is case-insensitive.
+     *
+     * @param password The password to check
+     * @return Whether the password is forbidden
+     */
+    public boolean contains(String password) {
+        var hash = hash(password);
+
+        var low = 0;
+        var high = hashes.limit() - 1;
+
+        while (low <= high) {
+            var mid = (low + high) >>> 1;
+            var value = hashes.get(mid);
+
+            if (value < hash) {
+                low = mid + 1;
+            } else if (value > hash) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public int size() {
+        return hashes.limit();
+    }
+
+    private static boolean upToDate(File source, File index) throws IOException {
+        if (!index.exists() || index.length() < HEADER_SIZE) return false;
+
+        try (var channel = FileChannel.open(index.toPath(), StandardOpenOption.READ)) {
+            var header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+
+            return header.getInt() == MAGIC
+                    && header.getInt() == VERSION
+                    && header.getLong() * Long.BYTES + HEADER_SIZE == index.length()
+                    && header.getLong() == source.length()
+                    && header.getLong() == source.lastModified();
+        }
+    }
+
+    private static void build(File source, File index) throws IOException {
+        var hashes = new long[1024];
+        var count = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(source.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("# ")) {
+                    continue;
+                }
+                if (count == hashes.length) {
+                    hashes = Arrays.copyOf(hashes, count * 2);
+                }
+                hashes[count++] = hash(line);
+            }
+        }
+
+        Arrays.sort(hashes, 0, count);
+
+        // Deduplicate in place
+        var unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || hashes[unique - 1] != hashes[i]) {
+                hashes[unique++] = hashes[i];
+            }
+        }
+
+        var temp = new File(index.getParentFile(), index.getName() + ".tmp");
+
+        try (var channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            var buffer = ByteBuffer.allocate(HEADER_SIZE + 8192 * Long.BYTES);
+
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putLong(unique);
+            buffer.putLong(source.length());
+            buffer.putLong(source.lastModified());
+
+            for (int i = 0; i < unique; i++) {
+                if (!buffer.hasRemaining()) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) channel.write(buffer);
+                    buffer.clear();
+                }
+                buffer.putLong(hashes[i]);
+            }
+
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+
+            channel.force(true);
+        }
+
+        Files.move(temp.toPath(), index.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long hash(String password) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+
+        var bytes = digest.digest(password.toUpperCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+
+        return ByteBuffer.wrap(bytes).getLong();
+    }
+
+}
@@ -16,11 +16,13 @@ import xyz.kyngs.librelogin.common.command.InvalidCommandArgument;
 import xyz.kyngs.librelogin.common.config.ConfigurationKeys;
 import xyz.kyngs.librelogin.common.config.HoconPluginConfiguration;
 import xyz.kyngs.librelogin.common.config.key.ConfigurationKey;
+import xyz.kyngs.librelogin.common.database.AuthenticDatabaseProvider;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.ArrayList;
@@ -61,6 +63,18 @@ public class GeneralUtil {
         );
     }
 
+    public static byte[] uuidToBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    public static UUID uuidFromBytes(byte[] bytes) {
+        var buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
     @Nullable
     public static TextComponent formatComponent(@Nullable TextComponent component, Map<String, String> replacements) {
         if (component == null) return null;
@@ -110,6 +124,11 @@ public class GeneralUtil {
 
                     provider = registration.create(connector);
 
+                    // The old database is only read, an older LibreLogin schema is converted while reading, not upgraded
+                    if (provider instanceof AuthenticDatabaseProvider<?> authentic) {
+                        authentic.prepareForReading();
+                    }
+
                     logger.info("Connected to the OLD database");
 
                 } catch (Exception e) {
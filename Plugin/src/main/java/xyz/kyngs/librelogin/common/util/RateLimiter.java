@@ -26,6 +26,7 @@ public class RateLimiter<T> {
     public RateLimiter(long amount, TimeUnit unit) {
         expiring = Caffeine.newBuilder()
                 .expireAfterWrite(amount, unit)
+                .recordStats()
                 .build();
     }
 
@@ -42,4 +43,8 @@ public class RateLimiter<T> {
         return wasLimited.get();
     }
 
+    public Cache<T, Object> getCache() {
+        return expiring;
+    }
+
 }
@@ -0,0 +1,108 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free sliding window counter.<br>
+ * The window is split into {@link #BUCKETS} buckets, identified by their epoch, the time divided by the length of a bucket.
+ * Every slot packs the epoch of its bucket and the count into a single long, so a bucket can be recycled and incremented with one CAS.
+ * The count is the sum of the buckets within the window, so it decays bucket by bucket instead of resetting at once.<br>
+ * <b>This implementation is thread-safe.</b>
+ */
+public class SlidingWindowCounter {
+
+    public static final int BUCKETS = 8;
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long EPOCH_MASK = (1L << (Long.SIZE - COUNT_BITS)) - 1;
+
+    private final AtomicLongArray slots;
+
+    public SlidingWindowCounter() {
+        this.slots = new AtomicLongArray(BUCKETS);
+    }
+
+    /**
+     * Adds to the count of the bucket.
+     *
+     * @param epoch  The epoch of the current bucket
+     * @param amount The amount to add
+     * @return The count within the window, including the added amount
+     */
+    public int add(long epoch, int amount) {
+        var masked = epoch & EPOCH_MASK;
+        var index = (int) (masked % BUCKETS);
+
+        while (true) {
+            var current = slots.get(index);
+            var count = epochOf(current) == masked ? countOf(current) : 0;
+            var updated = pack(masked, Math.min(count + amount, COUNT_MASK));
+
+            if (slots.compareAndSet(index, current, updated)) break;
+        }
+
+        return count(epoch);
+    }
+
+    /**
+     * Raises the count of the bucket to at least the given count, used to merge the counts seen by other proxies.
+     *
+     * @param epoch The epoch of the bucket
+     * @param count The count of the bucket elsewhere
+     */
+    public void merge(long epoch, int count) {
+        var masked = epoch & EPOCH_MASK;
+        var index = (int) (masked % BUCKETS);
+        var updated = pack(masked, Math.min(count, COUNT_MASK));
+
+        while (true) {
+            var current = slots.get(index);
+
+            // Either the slot holds a newer bucket, or it already knows about more attempts
+            if (epochOf(current) == masked ? countOf(current) >= count : isNewer(epochOf(current), masked)) return;
+
+            if (slots.compareAndSet(index, current, updated)) return;
+        }
+    }
+
+    /**
+     * @param epoch The epoch of the current bucket
+     * @return The count within the window ending with the current bucket
+     */
+    public int count(long epoch) {
+        var masked = epoch & EPOCH_MASK;
+        var sum = 0L;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            var slot = slots.get(i);
+            if (((masked - epochOf(slot)) & EPOCH_MASK) < BUCKETS) sum += countOf(slot);
+        }
+
+        return (int) Math.min(sum, Integer.MAX_VALUE);
+    }
+
+    private static boolean isNewer(long epoch, long than) {
+        var distance = (epoch - than) & EPOCH_MASK;
+        return distance != 0 && distance < (EPOCH_MASK >>> 1);
+    }
+
+    private static long pack(long epoch, long count) {
+        return (epoch << COUNT_BITS) | count;
+    }
+
+    private static long epochOf(long slot) {
+        return slot >>> COUNT_BITS;
+    }
+
+    private static long countOf(long slot) {
+        return slot & COUNT_MASK;
+    }
+
+}
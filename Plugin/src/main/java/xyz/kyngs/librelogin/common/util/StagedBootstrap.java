@@ -0,0 +1,137 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.util;
+
+import xyz.kyngs.librelogin.api.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the startup of the plugin as a graph of stages.
+ * <p>
+ * Every stage starts as soon as all of its dependencies have finished, so independent stages run concurrently.
+ * Deferred stages are not awaited at all, they are handed over to a scheduler once the critical path is done.
+ * The time every stage took is recorded and can be logged as a report.
+ */
+public class StagedBootstrap {
+
+    private final Logger logger;
+    private final Executor executor;
+    private final List<CompletableFuture<Void>> stages;
+    private final List<Runnable> deferred;
+    private final Map<String, Long> timings;
+    private final long start;
+
+    public StagedBootstrap(Logger logger, Executor executor) {
+        this.logger = logger;
+        this.executor = executor;
+        this.stages = new ArrayList<>();
+        this.deferred = new ArrayList<>();
+        this.timings = new ConcurrentHashMap<>();
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * Schedules a stage to run asynchronously once all of its dependencies finish.
+     *
+     * @param name         The name of the stage, used in the report
+     * @param runnable     The stage itself
+     * @param dependencies The stages that must finish before this one starts
+     * @return The stage, can be used as a dependency of other stages
+     */
+    @SafeVarargs
+    public final CompletableFuture<Void> stage(String name, Runnable runnable, CompletableFuture<Void>... dependencies) {
+        var stage = CompletableFuture.allOf(dependencies)
+                .thenRunAsync(() -> timed(name, runnable), executor);
+
+        stages.add(stage);
+
+        return stage;
+    }
+
+    /**
+     * Runs a stage on the current thread and records its timing.
+     *
+     * @param name     The name of the stage, used in the report
+     * @param runnable The stage itself
+     */
+    public void timed(String name, Runnable runnable) {
+        var stageStart = System.nanoTime();
+        try {
+            runnable.run();
+        } finally {
+            timings.put(name, System.nanoTime() - stageStart);
+        }
+    }
+
+    /**
+     * Registers a stage, which does not need to finish before the plugin starts accepting players.
+     *
+     * @param name     The name of the stage, used in the report
+     * @param runnable The stage itself
+     */
+    public void defer(String name, Runnable runnable) {
+        deferred.add(() -> {
+            var stageStart = System.nanoTime();
+            try {
+                runnable.run();
+            } catch (Exception e) {
+                logger.warn("Deferred startup stage %s failed".formatted(name), e);
+                return;
+            }
+            logger.info("Deferred startup stage %s took %s ms".formatted(name, toMillis(System.nanoTime() - stageStart)));
+        });
+    }
+
+    /**
+     * Waits for all the asynchronous stages. If any of them failed, the exception is rethrown on the current thread.
+     */
+    public void await() {
+        try {
+            CompletableFuture.allOf(stages.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+
+    /**
+     * Hands all deferred stages over to the scheduler.
+     *
+     * @param scheduler The scheduler, which should run the stages asynchronously
+     */
+    public void startDeferred(Consumer<Runnable> scheduler) {
+        deferred.forEach(scheduler);
+        deferred.clear();
+    }
+
+    /**
+     * Logs how long the startup and its individual stages took.
+     */
+    public void report() {
+        var breakdown = timings.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .map(entry -> "%s: %s ms".formatted(entry.getKey(), toMillis(entry.getValue())))
+                .collect(Collectors.joining(", "));
+
+        logger.info("Startup took %s ms (%s)".formatted(toMillis(System.nanoTime() - start), breakdown));
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos / 1_000_000;
+    }
+
+}
@@ -0,0 +1,36 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.util;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * The subnet of an address, /24 for IPv4 and /64 for IPv6.
+ *
+ * @param prefix The network part of the address
+ * @param v6     Whether the address is an IPv6 address
+ */
+public record Subnet(long prefix, boolean v6) {
+
+    public static Subnet of(InetAddress address) {
+        var bytes = address.getAddress();
+
+        if (address instanceof Inet4Address) {
+            return new Subnet(ByteBuffer.wrap(bytes).getInt() >>> 8, false);
+        }
+
+        return new Subnet(ByteBuffer.wrap(bytes).getLong(), true);
+    }
+
+    @Override
+    public String toString() {
+        return v6 ? "%016x/64".formatted(prefix) : "%06x/24".formatted(prefix);
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package xyz.kyngs.librelogin.common.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket.<br>
+ * Instead of storing the amount of tokens and the time of the last refill, the bucket only stores the time at which it will be full again
+ * (the generic cell rate algorithm), so the whole state fits into a single {@link AtomicLong} and can be updated with one CAS.<br>
+ * <b>This implementation is thread-safe.</b>
+ */
+public class TokenBucket {
+
+    private final long interval;
+    private final long tolerance;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param capacity The maximum amount of tokens the bucket can hold
+     * @param interval The time in nanoseconds it takes to refill a single token
+     */
+    public TokenBucket(int capacity, long interval) {
+        this.interval = interval;
+        this.tolerance = interval * (capacity - 1);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * @return true, if a token was taken, false if the bucket is empty
+     */
+    public boolean tryAcquire() {
+        var now = System.nanoTime();
+
+        while (true) {
+            var arrival = theoreticalArrival.get();
+            var base = arrival - now > 0 ? arrival : now;
+
+            if (base - now > tolerance) return false;
+
+            if (theoreticalArrival.compareAndSet(arrival, base + interval)) return true;
+        }
+    }
+
+}
@@ -12,9 +12,16 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
 import io.netty.util.AttributeKey;
 import org.geysermc.floodgate.api.player.FloodgatePlayer;
+import xyz.kyngs.librelogin.common.integration.FloodgateIntegration;
 
 public class FloodgateHelper {
 
+    private final FloodgateIntegration integration;
+
+    public FloodgateHelper(FloodgateIntegration integration) {
+        this.integration = integration;
+    }
+
     /**
      * Reimplementation of the tasks injected Floodgate in ProtocolLib that are not run due to a bug
      *
@@ -39,6 +46,8 @@ public class FloodgateHelper {
             return false;
         }
 
+        integration.onJoin(floodgatePlayer);
+
         // add prefix
         String username = floodgatePlayer.getCorrectUsername();
         packet.setUsername(username);
@@ -50,6 +59,13 @@ public class FloodgateHelper {
         return true;
     }
 
+    /**
+     * Checks the connection itself, so unlike a lookup by the name it cannot be fooled by a Java player using a Bedrock name.
+     */
+    protected boolean isFloodgatePlayer(Object channel) {
+        return getFloodgatePlayer(channel) != null;
+    }
+
     /**
      * @author games647 and FastLogin contributors
      */
@@ -31,6 +31,7 @@ import xyz.kyngs.librelogin.paper.protocol.PacketListener;
 import java.io.File;
 import java.io.InputStream;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 
 import static xyz.kyngs.librelogin.common.config.ConfigurationKeys.DEBUG;
 
@@ -122,6 +123,12 @@ public class PaperLibreLogin extends AuthenticLibreLogin<Player, World> {
         super.disable();
     }
 
+    @Override
+    protected Executor bootstrapExecutor() {
+        // Shutting down the server from a failed stage must happen on the main thread
+        return Runnable::run;
+    }
+
     @Override
     protected void enable() {
 
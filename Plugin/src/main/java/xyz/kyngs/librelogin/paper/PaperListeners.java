@@ -82,7 +82,7 @@ public class PaperListeners extends AuthenticListeners<PaperLibreLogin, Player,
     public PaperListeners(PaperLibreLogin plugin) {
         super(plugin);
 
-        floodgateHelper = this.plugin.floodgateEnabled() ? new FloodgateHelper() : null;
+        floodgateHelper = this.plugin.floodgateEnabled() ? new FloodgateHelper(this.plugin.getFloodgateIntegration()) : null;
 
         ipCache = Caffeine.newBuilder()
                 .expireAfterWrite(2, TimeUnit.MINUTES)
@@ -114,7 +114,7 @@ public class PaperListeners extends AuthenticListeners<PaperLibreLogin, Player,
     @EventHandler(priority = EventPriority.LOWEST)
     public void onJoin(PlayerJoinEvent event) {
         var data = readOnlyUserCache.getIfPresent(event.getPlayer().getUniqueId());
-        if (data == null && !plugin.fromFloodgate(event.getPlayer().getName())) {
+        if (data == null && !plugin.fromFloodgate(event.getPlayer().getName(), event.getPlayer().getUniqueId())) {
             event.getPlayer().kick(Component.text("Internal error, please try again later."));
             return;
         }
@@ -124,7 +124,7 @@ public class PaperListeners extends AuthenticListeners<PaperLibreLogin, Player,
 
     @EventHandler(priority = EventPriority.LOWEST)
     public void onPreLogin(AsyncPlayerPreLoginEvent event) {
-        if (plugin.fromFloodgate(event.getName())) return;
+        if (plugin.fromFloodgate(event.getName(), event.getUniqueId())) return;
 
         var user = plugin.getDatabaseProvider().getByName(event.getName());
 
@@ -227,7 +227,7 @@ public class PaperListeners extends AuthenticListeners<PaperLibreLogin, Player,
                 return;
             }
 
-            if (plugin.fromFloodgate(username)) {
+            if (plugin.floodgateEnabled() && floodgateHelper.isFloodgatePlayer(event.getChannel())) {
                 //Floodgate player, do not handle, only retransmit the packet. The UUID will be set by Floodgate
                 receiveFakeStartPacket(username, clientKey.orElse(null), event.getChannel(), UUID.randomUUID());
                 return;
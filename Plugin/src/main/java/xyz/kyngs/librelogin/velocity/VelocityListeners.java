@@ -21,6 +21,7 @@ import com.velocitypowered.api.util.GameProfile;
 import io.netty.channel.Channel;
 import io.netty.util.AttributeKey;
 import net.kyori.adventure.text.Component;
+import org.geysermc.floodgate.api.player.FloodgatePlayer;
 import xyz.kyngs.librelogin.api.event.exception.EventCancelledException;
 import xyz.kyngs.librelogin.common.config.ConfigurationKeys;
 import xyz.kyngs.librelogin.common.listener.AuthenticListeners;
@@ -119,7 +120,8 @@ public class VelocityListeners extends AuthenticListeners<VelocityLibreLogin, Pl
                 Object mcConnection = INITIAL_MINECRAFT_CONNECTION.get(connection);
                 channel = (Channel) CHANNEL.get(mcConnection);
 
-                if (channel.attr(FLOODGATE_ATTR).get() != null) {
+                if (channel.attr(FLOODGATE_ATTR).get() instanceof FloodgatePlayer player) {
+                    plugin.getFloodgateIntegration().onJoin(player);
                     return; // Player is coming from Floodgate
                 }
             } catch (Exception e) {